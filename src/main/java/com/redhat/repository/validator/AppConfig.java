@@ -12,12 +12,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.inject.Named;
 
-import org.apache.commons.io.filefilter.AbstractFileFilter;
 import org.apache.commons.io.filefilter.IOFileFilter;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.model.building.DefaultModelBuildingRequest;
 import org.apache.maven.model.building.ModelBuildingRequest;
@@ -51,15 +51,26 @@ import org.springframework.context.annotation.ComponentScan.Filter;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.redhat.repository.validator.impl.bom.BomFilter;
 import com.redhat.repository.validator.impl.bom.BomFilterSimple;
 import com.redhat.repository.validator.impl.remoterepository.ChecksumProviderNexus;
 import com.redhat.repository.validator.impl.remoterepository.ChecksumProviderNginx;
 import com.redhat.repository.validator.impl.remoterepository.RemoteRepositoryCollisionValidator;
+import com.redhat.repository.validator.impl.remoterepository.RemoteResponseCache;
+import com.redhat.repository.validator.internal.ChecksumEngine;
 import com.redhat.repository.validator.internal.DepthOneOptionalDependencySelector;
+import com.redhat.repository.validator.internal.HashCache;
+import com.redhat.repository.validator.internal.IncrementalValidation;
+import com.redhat.repository.validator.internal.InternalModelCache;
+import com.redhat.repository.validator.internal.InternalRepositoryCache;
 import com.redhat.repository.validator.internal.LocalRepositoryModelResolver;
 import com.redhat.repository.validator.internal.LogRepositoryListener;
 import com.redhat.repository.validator.internal.LogTransferListener;
+import com.redhat.repository.validator.internal.RootFileFilter;
+import com.redhat.repository.validator.internal.ShardedValidation;
+import com.redhat.repository.validator.internal.ThrottlingTransferListener;
+import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Configuration
 @ComponentScan(
@@ -67,6 +78,8 @@ import com.redhat.repository.validator.internal.LogTransferListener;
         includeFilters = @Filter(value = Named.class))
 public class AppConfig {
 
+    private static final int MAX_TRANSFERS_PER_REPOSITORY = 10;
+
     @Autowired
     private BeanFactory beanFactory;
 
@@ -81,13 +94,72 @@ public class AppConfig {
 
     @Value("#{systemProperties['redhat-repository-validator-remoteRepositories']?.split(';')}")
     private String[] remoteRepositories;
+
+    @Value("#{systemProperties['redhat-repository-validator-threads']?:'1'}")
+    private int threads;
+
+    @Value("#{systemProperties['redhat-repository-validator-hashCache']?:'true'}")
+    private boolean hashCacheEnabled;
+
+    @Value("#{systemProperties['redhat-repository-validator-remoteResponseCache']?:'true'}")
+    private boolean remoteResponseCacheEnabled;
+
+    @Value("#{systemProperties['redhat-repository-validator-incremental']?:'false'}")
+    private boolean incrementalEnabled;
+
+    @Value("#{systemProperties['redhat-repository-validator-shard']?:''}")
+    private String shard;
+
+    @Value("#{systemProperties['redhat-repository-validator-errorSpool']?:'false'}")
+    private boolean errorSpoolEnabled;
+
+    @Value("#{systemProperties['redhat-repository-validator-config']?:''}")
+    private String configFile;
     
     @Autowired(required = false)
     private ExceptionFilter[] exceptionFilters;
 
     @Bean
     public ValidationExecutor validationExecutor(Validator[] validators) {
-        return new ValidationExecutor(validators);
+        ValidationExecutor validationExecutor = new ValidationExecutor(validators);
+        validationExecutor.setThreads(threads);
+        return validationExecutor;
+    }
+
+    /**
+     * Threads shared by all validators for their concurrent tasks, see {@link ValidatorSupport#mapInOrder}.
+     */
+    @Bean
+    public ExecutorService validationTaskExecutor() {
+        return Executors.newFixedThreadPool(Math.max(threads, 1), new ThreadFactoryBuilder().setNameFormat("validation-task-%d").setDaemon(true).build());
+    }
+
+    @Bean
+    public HashCache hashCache() {
+        return hashCacheEnabled ? new HashCache(new File("workspace/hash-cache.tsv")) : new HashCache();
+    }
+
+    @Bean
+    public RemoteResponseCache remoteResponseCache() {
+        return remoteResponseCacheEnabled ? new RemoteResponseCache(new File("workspace/remote-response-cache.tsv")) : new RemoteResponseCache();
+    }
+
+    @Bean
+    public IncrementalValidation incrementalValidation(ChecksumEngine checksumEngine) {
+        if (!incrementalEnabled) {
+            return new IncrementalValidation();
+        }
+        return new IncrementalValidation(new File("workspace/incremental-manifest.tsv"), checksumEngine, configFile.isEmpty() ? null : new File(configFile));
+    }
+
+    @Bean
+    public ShardedValidation shardedValidation() {
+        if (shard.isEmpty()) {
+            return new ShardedValidation();
+        }
+        int index = Integer.parseInt(StringUtils.substringBefore(shard, "/"));
+        int count = Integer.parseInt(StringUtils.substringAfter(shard, "/"));
+        return new ShardedValidation(index, count, new File("workspace/shard-" + index + "-of-" + count + ".bin"));
     }
 
     @Bean
@@ -103,7 +175,11 @@ public class AppConfig {
 
     @Bean
     public List<RemoteRepository> effectiveRemoteRepositories() {
-        RemoteRepository validatedRemoteRepository = new RemoteRepository.Builder("validated", "default", new File(validatedRepository).toURI().toString()).build();
+        return effectiveRemoteRepositories(new File(validatedRepository));
+    }
+
+    private List<RemoteRepository> effectiveRemoteRepositories(File validatedRepository) {
+        RemoteRepository validatedRemoteRepository = new RemoteRepository.Builder("validated", "default", validatedRepository.toURI().toString()).build();
 
         List<RemoteRepository> repositories = new ArrayList<RemoteRepository>();
         repositories.add(validatedRemoteRepository);
@@ -143,7 +219,25 @@ public class AppConfig {
                   new File(validatedRepository),
                   new File(validatedDistribution),
                   effectiveRemoteRepositories(),
-                  Arrays.asList(exceptionFilters != null ? exceptionFilters : new ExceptionFilter[]{}));
+                  Arrays.asList(exceptionFilters != null ? exceptionFilters : new ExceptionFilter[]{}),
+                  errorSpoolDir());
+    }
+
+    /**
+     * Creates context for validation of given repository with configured remote repositories and exception filters, 
+     * used by {@link ValidationServer} for each job.
+     */
+    public ValidatorContext newValidatorContext(File validatedRepository, File validatedDistribution) {
+        return new ValidatorContext(
+                  validatedRepository,
+                  validatedDistribution != null ? validatedDistribution : new File(this.validatedDistribution),
+                  effectiveRemoteRepositories(validatedRepository),
+                  Arrays.asList(exceptionFilters != null ? exceptionFilters : new ExceptionFilter[]{}),
+                  errorSpoolDir());
+    }
+
+    private File errorSpoolDir() {
+        return errorSpoolEnabled ? new File("workspace/error-spool") : null;
     }
 
     @Bean
@@ -162,22 +256,8 @@ public class AppConfig {
     }
 
     @Bean
-    public IOFileFilter expectedRootFilesFilter() {
-        final String validatedRepositoryAbsolutePath = validatorContext().getValidatedRepository().getAbsolutePath();
-        final String[] expectedRootFiles = expectedRootFiles();
-
-        IOFileFilter expectedRootFileFilter = new AbstractFileFilter() {
-            @Override
-            public boolean accept(File dir, String name) {
-                if (dir.getAbsolutePath().equals(validatedRepositoryAbsolutePath) &&
-                        ArrayUtils.contains(expectedRootFiles, name.toLowerCase())) {
-                    return true;
-                }
-                return false;
-            }
-        };
-
-        return expectedRootFileFilter;
+    public RootFileFilter expectedRootFilesFilter() {
+        return new RootFileFilter(validatorContext().getValidatedRepository(), expectedRootFiles());
     }
     
     @Bean
@@ -187,9 +267,14 @@ public class AppConfig {
     
     @Bean
     public RemoteRepositoryCollisionValidator collisionValidatorJBossNexus() {
-        return new RemoteRepositoryCollisionValidator("https://repository.jboss.org/nexus/content/groups/public-jboss/", new ChecksumProviderNexus(), collisionValidatorJBossNexusFilter(), 20);
+        return new RemoteRepositoryCollisionValidator("https://repository.jboss.org/nexus/content/groups/public-jboss/", nexusChecksumProvider(), collisionValidatorJBossNexusFilter(), 20);
     }
     
+    @Bean
+    public ChecksumProviderNexus nexusChecksumProvider() {
+        return new ChecksumProviderNexus();
+    }
+
     @Bean
     public IOFileFilter collisionValidatorMavenCentralFilter() {
         return defaultFilter();
@@ -296,7 +381,7 @@ public class AppConfig {
     }
 
     @Bean
-    public RepositorySystemSession repositorySystemSession(RepositorySystem repositorySystem) {
+    public RepositorySystemSession repositorySystemSession(RepositorySystem repositorySystem, InternalRepositoryCache repositoryCache) {
         // see MavenRepositorySystemUtils.newSession()
 
         DependencySelector selector = new AndDependencySelector(
@@ -319,7 +404,8 @@ public class AppConfig {
         session.setArtifactDescriptorPolicy(new SimpleArtifactDescriptorPolicy(true, true));
         session.setDependencySelector(selector);
         session.setDependencyGraphTransformer(transformer);
-        session.setTransferListener(new LogTransferListener());
+        session.setTransferListener(new ThrottlingTransferListener(new LogTransferListener(), MAX_TRANSFERS_PER_REPOSITORY));
+        session.setCache(repositoryCache);
         session.setRepositoryListener(new LogRepositoryListener());
 
         if (!session.getConfigProperties().containsKey(ConfigurationProperties.REQUEST_TIMEOUT)) {
@@ -362,7 +448,7 @@ public class AppConfig {
     }
 
     @Bean
-    public ModelBuildingRequest modelBuildingRequestTemplate(RepositorySystemSession repositorySystemSession, LocalRepositoryModelResolver localRepositoryModelResolver) {
+    public ModelBuildingRequest modelBuildingRequestTemplate(RepositorySystemSession repositorySystemSession, LocalRepositoryModelResolver localRepositoryModelResolver, InternalModelCache modelCache) {
         Properties userProperties = new Properties();
         userProperties.putAll(repositorySystemSession.getUserProperties());
 
@@ -373,6 +459,7 @@ public class AppConfig {
         request.setProcessPlugins(true);
         request.setLocationTracking(true);
         request.setModelResolver(localRepositoryModelResolver);
+        request.setModelCache(modelCache);
         request.setUserProperties(userProperties);
         request.setSystemProperties(systemProperties);
 
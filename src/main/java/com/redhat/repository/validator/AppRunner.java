@@ -1,8 +1,11 @@
 package com.redhat.repository.validator;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 
@@ -23,10 +26,14 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
+import com.redhat.repository.validator.internal.ShardedValidation;
+
 public class AppRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(AppRunner.class);
 
+    private static final Pattern SHARD_PATTERN = Pattern.compile("(\\d+)/(\\d+)");
+
     public static void main(String[] args) {
         new AppRunner().run(args);
     }
@@ -35,6 +42,14 @@ public class AppRunner {
     private final Option validatedDistributionOption = createOption("vd", "validated-distribution", "validate given distribution, verify if current distribution is valid, \ndefault value is `workspace/validated-distribution`", "dir");
     private final Option localRepositoryOption = createOption("lr", "local-repository", "use given local repository, \ndefault value is `workspace/local-repository`", "dir");
     private final Option remoteRepositoryOption = createOption("rr", "remote-repository", "use given remote repository, this option can be used multiple times, \ndefault remote repository is only maven central", "url");
+    private final Option threadsOption = createOption("t", "threads", "use given number of threads for validation, \ndefault value is `1`", "count");
+    private final Option noHashCacheOption = createOption("nhc", "no-hash-cache", "don't reuse hashes of unchanged files from previous runs, \nby default they are stored in `workspace/hash-cache.tsv`", null);
+    private final Option noRemoteCacheOption = createOption("nrc", "no-remote-cache", "don't reuse responses of remote repositories from previous runs, \nby default they are stored in `workspace/remote-response-cache.tsv`", null);
+    private final Option incrementalOption = createOption("inc", "incremental", "validate only files affected by changes since previous run and reuse errors of other files, \nmanifest of previous run is stored in `workspace/incremental-manifest.tsv`", null);
+    private final Option serverOption = createOption("srv", "server", "run as long-running validation server on given port of loopback interface, \njobs are submitted by `POST /validate?repository=<dir>[&distribution=<dir>]`", "port");
+    private final Option shardOption = createOption("sh", "shard", "validate only given shard of repository, e.g. `0/4`, and store its results \nin `workspace/shard-<i>-of-<n>.bin`, shards are split by groupId and artifactId", "i/n");
+    private final Option mergeOption = createOption("mr", "merge", "merge and report results of all shards of repository instead of validation, \nthis option is used once per result file", "file");
+    private final Option spoolErrorsOption = createOption("se", "spool-errors", "keep found errors in spool files in `workspace/error-spool` instead of memory, \nreports load them one exception type at a time", null);
     private final Option configOption = createOption("c", "config", "use given configuration file, \ndefault value is `redhat-repository-validator-config.xml`", "file");
     private final Option helpOption = createOption("h", "help", "print help and exit", null);
 
@@ -55,6 +70,14 @@ public class AppRunner {
         options.addOption(validatedDistributionOption);
         options.addOption(localRepositoryOption);
         options.addOption(remoteRepositoryOption);
+        options.addOption(threadsOption);
+        options.addOption(noHashCacheOption);
+        options.addOption(noRemoteCacheOption);
+        options.addOption(incrementalOption);
+        options.addOption(serverOption);
+        options.addOption(shardOption);
+        options.addOption(mergeOption);
+        options.addOption(spoolErrorsOption);
         options.addOption(configOption);
         options.addOption(helpOption);
         
@@ -64,6 +87,19 @@ public class AppRunner {
 
             if (line.hasOption(helpOption.getOpt())) {
                 runHelp(options);
+                return;
+            }
+            checkShardOptions(line);
+            if (line.hasOption(serverOption.getOpt())) {
+                initApplicationContext(line);
+                runServer(Integer.parseInt(line.getOptionValue(serverOption.getOpt())));
+            } else if (line.hasOption(mergeOption.getOpt())) {
+                initApplicationContext(line);
+                List<File> resultFiles = new ArrayList<File>();
+                for (String resultFile : line.getOptionValues(mergeOption.getOpt())) {
+                    resultFiles.add(new File(resultFile));
+                }
+                runMerge(resultFiles);
             } else {
                 initApplicationContext(line);
                 runValidation();
@@ -97,9 +133,50 @@ public class AppRunner {
     }
 
     protected void runValidation() {
-        initializer.initialize(context);
-        validationExecutor.execute(context);
-        reportingExecutor.execute(context);
+        try {
+            initializer.initialize(context);
+            validationExecutor.execute(context);
+            reportingExecutor.execute(context);
+        } finally {
+            context.close();
+        }
+    }
+
+    protected void runMerge(List<File> resultFiles) throws IOException {
+        try {
+            ShardedValidation.merge(context, validationExecutor.getValidators(), resultFiles);
+            reportingExecutor.execute(context);
+        } finally {
+            context.close();
+        }
+    }
+
+    protected void runServer(int port) throws Exception {
+        final ValidationServer server = appCtx.getAutowireCapableBeanFactory().createBean(ValidationServer.class);
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                server.stop();
+            }
+        });
+        server.start(port);
+        server.join();
+    }
+
+    private void checkShardOptions(CommandLine line) throws ParseException {
+        if (line.hasOption(shardOption.getOpt())) {
+            String shard = line.getOptionValue(shardOption.getOpt());
+            Matcher matcher = SHARD_PATTERN.matcher(shard);
+            if (!matcher.matches() || Integer.parseInt(matcher.group(1)) >= Integer.parseInt(matcher.group(2))) {
+                throw new ParseException("Invalid shard `" + shard + "`, expected <i>/<n> where 0 <= i < n");
+            }
+            if (line.hasOption(incrementalOption.getOpt()) || line.hasOption(serverOption.getOpt()) || line.hasOption(mergeOption.getOpt())) {
+                throw new ParseException("Option --shard can't be combined with --incremental, --server or --merge");
+            }
+        }
+        if (line.hasOption(mergeOption.getOpt()) && (line.hasOption(incrementalOption.getOpt()) || line.hasOption(serverOption.getOpt()))) {
+            throw new ParseException("Option --merge can't be combined with --incremental or --server");
+        }
     }
 
     private void initApplicationContext(CommandLine line) {
@@ -107,11 +184,18 @@ public class AppRunner {
         String validatedDist = line.getOptionValue(validatedDistributionOption.getOpt(), "workspace/validated-distribution");
         String localRepo = line.getOptionValue(localRepositoryOption.getOpt(), "workspace/local-repository");
         String[] remoteRepos = line.getOptionValues(remoteRepositoryOption.getOpt());
+        String threads = line.getOptionValue(threadsOption.getOpt(), "1");
 
         System.setProperty("redhat-repository-validator-validatedRepository", validatedRepo);
         System.setProperty("redhat-repository-validator-validatedDistribution", validatedDist);
         System.setProperty("redhat-repository-validator-localRepository", localRepo);
         System.setProperty("redhat-repository-validator-remoteRepositories", StringUtils.defaultString(StringUtils.join(remoteRepos, ';')));
+        System.setProperty("redhat-repository-validator-threads", threads);
+        System.setProperty("redhat-repository-validator-hashCache", String.valueOf(!line.hasOption(noHashCacheOption.getOpt())));
+        System.setProperty("redhat-repository-validator-remoteResponseCache", String.valueOf(!line.hasOption(noRemoteCacheOption.getOpt())));
+        System.setProperty("redhat-repository-validator-incremental", String.valueOf(line.hasOption(incrementalOption.getOpt())));
+        System.setProperty("redhat-repository-validator-shard", StringUtils.defaultString(line.getOptionValue(shardOption.getOpt())));
+        System.setProperty("redhat-repository-validator-errorSpool", String.valueOf(line.hasOption(spoolErrorsOption.getOpt())));
 
         String userConfigFile = line.getOptionValue(configOption.getOpt());
         if (userConfigFile == null) {
@@ -120,6 +204,7 @@ public class AppRunner {
                 userConfigFile = defaultUserConfig.getAbsolutePath();
             }
         }
+        System.setProperty("redhat-repository-validator-config", StringUtils.defaultString(userConfigFile));
 
         List<Resource> resources = new ArrayList<Resource>();
         resources.add(new ClassPathResource("redhat-repository-validator-app-context.xml"));
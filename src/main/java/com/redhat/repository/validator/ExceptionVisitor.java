@@ -0,0 +1,11 @@
+package com.redhat.repository.validator;
+
+/**
+ * Callback receiving exceptions one by one, allows reporters to process spooled errors
+ * without loading all exceptions of a type into memory.
+ */
+public interface ExceptionVisitor<E extends Exception> {
+
+    public void visit(E exception);
+
+}
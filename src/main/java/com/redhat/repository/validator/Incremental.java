@@ -0,0 +1,29 @@
+package com.redhat.repository.validator;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that errors of annotated validator for each file depend only on the file itself,
+ * other files in the same directory and poms referenced by it (parent, imported boms, dependencies).
+ * In incremental mode such validator sees only affected files in repository index
+ * and errors of other files are reused from previous run, other validators always validate whole repository.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Incremental {
+
+    /**
+     * Errors depend also on content of remote repositories, which can change without any change of validated repository,
+     * so in incremental mode such validator validates whole repository and its errors are never reused.
+     * In sharded mode it still validates only files of the shard.
+     */
+    boolean remote() default false;
+
+}
@@ -0,0 +1,23 @@
+package com.redhat.repository.validator;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that annotated validator has to be executed after given validators finished, 
+ * e.g. because it depends on errors or files they produce. 
+ * Validators without any dependency can be executed concurrently by {@link ValidationExecutor}.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RunsAfter {
+
+    Class<? extends Validator>[] value();
+
+}
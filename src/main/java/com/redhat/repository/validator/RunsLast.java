@@ -0,0 +1,19 @@
+package com.redhat.repository.validator;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that annotated validator has to be executed after all validators without this annotation finished, 
+ * e.g. because it inspects local repository, into which other validators resolve artifacts.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RunsLast {
+}
@@ -0,0 +1,21 @@
+package com.redhat.repository.validator;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Validator which compares files across whole repository (e.g. versions of all artifacts), split into two phases,
+ * so it can take part in sharded validation. Facts are collected by each shard from its own files
+ * and validated together after results of all shards are merged, single run simply validates facts of whole repository.
+ * Facts have to refer to files by paths relative to validated repository, because each shard can see it under different path.
+ */
+public interface ShardableValidator<F extends Serializable> extends Validator {
+
+    List<F> collectFacts(ValidatorContext ctx);
+
+    /**
+     * Validates facts collected from whole repository, in order of shards.
+     */
+    void validateFacts(ValidatorContext ctx, List<F> facts);
+
+}
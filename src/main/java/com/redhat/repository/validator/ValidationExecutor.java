@@ -2,45 +2,338 @@ package com.redhat.repository.validator;
 
 import static org.springframework.core.annotation.AnnotationAwareOrderComparator.sort;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+
+import com.redhat.repository.validator.internal.CpuTimeAccount;
+import com.redhat.repository.validator.internal.IncrementalValidation;
+import com.redhat.repository.validator.internal.RepositoryIndex;
+import com.redhat.repository.validator.internal.ShardedValidation;
+import com.redhat.repository.validator.internal.ValidationPlan;
 
+/**
+ * Executes validators, independent validators can run concurrently.
+ * Validator runs after all validators with lower explicit order ({@link Order} or {@link Ordered}), 
+ * after all validators declared in {@link RunsAfter} and, when annotated with {@link RunsLast}, after all other validators.
+ * In incremental mode {@link Incremental} validators validate only files affected by changes since previous run,
+ * in sharded mode they validate only files of the shard and {@link ShardableValidator}s only collect facts.
+ */
 public class ValidationExecutor {
     
     private static final Logger logger = LoggerFactory.getLogger(ValidationExecutor.class);
 
     private final Validator[] validators;
+    private final Map<Validator, Set<Validator>> dependencies;
+    private int threads = 1;
+    @Autowired(required = false)
+    private ValidationListener[] listeners;
+    @Autowired(required = false)
+    private IncrementalValidation incrementalValidation;
+    @Autowired(required = false)
+    private ShardedValidation shardedValidation;
 
     public ValidationExecutor(Validator... validators) {
         sort(validators);
         this.validators = validators;
+        this.dependencies = resolveDependencies(validators);
     }
 
     public Validator[] getValidators() {
         return validators;
     }
 
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setIncrementalValidation(IncrementalValidation incrementalValidation) {
+        this.incrementalValidation = incrementalValidation;
+    }
+
+    public void setShardedValidation(ShardedValidation shardedValidation) {
+        this.shardedValidation = shardedValidation;
+    }
+
     public void execute(ValidatorContext ctx) {
         logValidatorNames();
+        ctx.setRepositoryIndex(RepositoryIndex.build(ctx.getValidatedRepository()));
+        fireValidationStarted(ctx);
+        try {
+            boolean incremental = incrementalValidation != null && incrementalValidation.isEnabled();
+            boolean sharded = shardedValidation != null && shardedValidation.isEnabled();
+            if (incremental && sharded) {
+                throw new IllegalStateException("Incremental validation can't be combined with sharded validation");
+            }
+            ValidationPlan plan = null;
+            if (incremental) {
+                plan = incrementalValidation.start(ctx, validators);
+            } else if (sharded) {
+                plan = shardedValidation.start(ctx, validators);
+            }
+            List<ValidatorTask> tasks;
+            if (threads > 1) {
+                tasks = executeConcurrently(ctx, plan);
+            } else {
+                tasks = executeSequentially(ctx, plan);
+            }
+            if (plan != null) {
+                plan.finish(findFailedValidators(tasks));
+            }
+            logTimes(tasks);
+        } finally {
+            fireValidationFinished(ctx);
+        }
+    }
+
+    private List<ValidatorTask> executeSequentially(ValidatorContext ctx, ValidationPlan plan) {
+        List<ValidatorTask> tasks = new ArrayList<ValidatorTask>();
+        for (Validator validator : dependencies.keySet()) {
+            ValidatorTask task = newTask(validator, ctx, plan);
+            task.call();
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private List<ValidatorTask> executeConcurrently(ValidatorContext ctx, ValidationPlan plan) {
+        List<ValidatorTask> tasks = new ArrayList<ValidatorTask>();
+        Map<Validator, Set<Validator>> pending = new LinkedHashMap<Validator, Set<Validator>>();
+        for (Map.Entry<Validator, Set<Validator>> entry : dependencies.entrySet()) {
+            pending.put(entry.getKey(), new LinkedHashSet<Validator>(entry.getValue()));
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<ValidatorTask> completionService = new ExecutorCompletionService<ValidatorTask>(executorService);
+            int running = submitReadyTasks(ctx, plan, pending, completionService);
+            while (running > 0) {
+                ValidatorTask task = completionService.take().get();
+                tasks.add(task);
+                running--;
+                for (Set<Validator> remainingDependencies : pending.values()) {
+                    remainingDependencies.remove(task.validator);
+                }
+                running += submitReadyTasks(ctx, plan, pending, completionService);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+        return tasks;
+    }
+
+    private int submitReadyTasks(ValidatorContext ctx, ValidationPlan plan, Map<Validator, Set<Validator>> pending, CompletionService<ValidatorTask> completionService) {
+        List<Validator> ready = new ArrayList<Validator>();
+        for (Map.Entry<Validator, Set<Validator>> entry : pending.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                ready.add(entry.getKey());
+            }
+        }
+        for (Validator validator : ready) {
+            pending.remove(validator);
+            completionService.submit(newTask(validator, ctx, plan));
+        }
+        return ready.size();
+    }
+
+    private static ValidatorTask newTask(Validator validator, ValidatorContext ctx, ValidationPlan plan) {
+        return new ValidatorTask(validator, ctx, plan);
+    }
+
+    private static Set<Validator> findFailedValidators(List<ValidatorTask> tasks) {
+        Set<Validator> failedValidators = new HashSet<Validator>();
+        for (ValidatorTask task : tasks) {
+            if (task.failed) {
+                failedValidators.add(task.validator);
+            }
+        }
+        return failedValidators;
+    }
+
+    /**
+     * Returns map of validators in topological order (stable against given order) to validators they depend on.
+     */
+    private static Map<Validator, Set<Validator>> resolveDependencies(Validator[] validators) {
+        Map<Validator, Set<Validator>> dependencies = new HashMap<Validator, Set<Validator>>();
         for (Validator validator : validators) {
-            logger.debug("starting {}", validator);
-            try {
-                validator.validate(ctx);
-            } catch (RuntimeException e) {
-                logger.error("validator " + validator + " ended with unexpected exception!", e);
-                ctx.addError(null, ctx.getValidatedRepository(), e);
+            Set<Validator> validatorDependencies = new LinkedHashSet<Validator>();
+            Integer order = findExplicitOrder(validator);
+            RunsAfter runsAfter = AnnotationUtils.findAnnotation(validator.getClass(), RunsAfter.class);
+            boolean runsLast = isRunsLast(validator);
+            for (Validator other : validators) {
+                if (other == validator) {
+                    continue;
+                }
+                Integer otherOrder = findExplicitOrder(other);
+                if (order != null && otherOrder != null && otherOrder < order) {
+                    validatorDependencies.add(other);
+                }
+                if (runsLast && !isRunsLast(other)) {
+                    validatorDependencies.add(other);
+                }
+                if (runsAfter != null) {
+                    for (Class<? extends Validator> runsAfterClass : runsAfter.value()) {
+                        if (runsAfterClass.isInstance(other)) {
+                            validatorDependencies.add(other);
+                        }
+                    }
+                }
+            }
+            dependencies.put(validator, validatorDependencies);
+        }
+
+        Map<Validator, Set<Validator>> sorted = new LinkedHashMap<Validator, Set<Validator>>();
+        while (sorted.size() < validators.length) {
+            boolean progress = false;
+            for (Validator validator : validators) {
+                if (!sorted.containsKey(validator) && sorted.keySet().containsAll(dependencies.get(validator))) {
+                    sorted.put(validator, Collections.unmodifiableSet(dependencies.get(validator)));
+                    progress = true;
+                    break;
+                }
+            }
+            if (!progress) {
+                throw new IllegalStateException("Validators have cyclic dependencies: " + dependencies);
+            }
+        }
+        return sorted;
+    }
+
+    private static boolean isRunsLast(Validator validator) {
+        return AnnotationUtils.findAnnotation(validator.getClass(), RunsLast.class) != null;
+    }
+
+    private static Integer findExplicitOrder(Validator validator) {
+        if (validator instanceof Ordered) {
+            return ((Ordered) validator).getOrder();
+        }
+        Order order = AnnotationUtils.findAnnotation(validator.getClass(), Order.class);
+        return order != null ? order.value() : null;
+    }
+
+    private void fireValidationStarted(ValidatorContext ctx) {
+        if (listeners != null) {
+            for (ValidationListener listener : listeners) {
+                listener.validationStarted(ctx);
+            }
+        }
+    }
+
+    private void fireValidationFinished(ValidatorContext ctx) {
+        if (listeners != null) {
+            for (ValidationListener listener : listeners) {
+                listener.validationFinished(ctx);
             }
         }
     }
 
     private void logValidatorNames() {
         StringBuilder validatorNamesBuilder = new StringBuilder();
-        for (Validator validator : validators) {
+        for (Validator validator : dependencies.keySet()) {
             validatorNamesBuilder.append("\t");
             validatorNamesBuilder.append(validator.getClass().getCanonicalName());
+            List<String> dependencyNames = new ArrayList<String>();
+            for (Validator dependency : dependencies.get(validator)) {
+                dependencyNames.add(dependency.getClass().getSimpleName());
+            }
+            if (!dependencyNames.isEmpty()) {
+                validatorNamesBuilder.append(" (after ").append(StringUtils.join(dependencyNames, ", ")).append(")");
+            }
             validatorNamesBuilder.append("\n");
         }
-        logger.debug("following validators will be executed:\n" + validatorNamesBuilder);
+        logger.debug("following validators will be executed using {} thread(s):\n{}", threads, validatorNamesBuilder);
+    }
+
+    private void logTimes(List<ValidatorTask> tasks) {
+        StringBuilder timesBuilder = new StringBuilder();
+        timesBuilder.append(String.format("%-50s %12s %12s%n", "validator", "wall [ms]", "cpu [ms]"));
+        for (ValidatorTask task : tasks) {
+            timesBuilder.append(String.format("%-50s %12d %12d%n", task.validator.getClass().getSimpleName(), task.wallTime, task.cpuTime));
+        }
+        logger.info("validators execution times:\n{}", timesBuilder);
+    }
+
+    private static class ValidatorTask implements Callable<ValidatorTask> {
+
+        private final Validator validator;
+        private final ValidatorContext ctx;
+        private final ValidationPlan plan;
+        private long wallTime;
+        private long cpuTime;
+        private boolean failed;
+
+        private ValidatorTask(Validator validator, ValidatorContext ctx, ValidationPlan plan) {
+            this.validator = validator;
+            this.ctx = ctx;
+            this.plan = plan;
+        }
+
+        @Override
+        public ValidatorTask call() {
+            long wallStart = System.nanoTime();
+            // includes CPU time of executor threads working for the validator in ValidatorSupport#mapInOrder
+            CpuTimeAccount cpuTimeAccount = new CpuTimeAccount();
+            try {
+                cpuTimeAccount.call(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        validate();
+                        return null;
+                    }
+                });
+            } catch (Exception e) {
+                // validate() handles all exceptions of validator
+                throw new IllegalStateException(e);
+            }
+            wallTime = (System.nanoTime() - wallStart) / 1000000;
+            cpuTime = CpuTimeAccount.isSupported() ? cpuTimeAccount.getCpuTime() : -1;
+            return this;
+        }
+
+        private void validate() {
+            logger.debug("starting {}", validator);
+            try {
+                if (plan != null) {
+                    plan.validate(validator);
+                } else {
+                    validator.validate(ctx);
+                }
+            } catch (RuntimeException e) {
+                logger.error("validator " + validator + " ended with unexpected exception!", e);
+                ctx.addError(null, ctx.getValidatedRepository(), e);
+                failed = true;
+            }
+        }
+
     }
 
 }
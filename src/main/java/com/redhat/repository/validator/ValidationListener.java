@@ -0,0 +1,13 @@
+package com.redhat.repository.validator;
+
+/**
+ * Callback notified by {@link ValidationExecutor} when validation run starts and finishes, 
+ * allows beans to maintain state (like caches) which is valid only during one run.
+ */
+public interface ValidationListener {
+
+    public void validationStarted(ValidatorContext ctx);
+
+    public void validationFinished(ValidatorContext ctx);
+
+}
@@ -0,0 +1,248 @@
+package com.redhat.repository.validator;
+
+import static com.redhat.repository.validator.internal.Utils.relativize;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.aether.repository.LocalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.repository.validator.internal.ValidatorSupport;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Long-running validation server, which keeps application context, repository system and persistent caches resident between jobs.
+ * Jobs are accepted over HTTP on loopback interface, e.g. <code>POST /validate?repository=/path/to/repo</code>,
+ * they are executed one at a time, each with its own {@link ValidatorContext}, and errors are streamed back as they are found.
+ * Server takes ownership of local repository, so it refuses to start unless the directory is empty or doesn't exist yet,
+ * and it empties the directory after each job, so artifacts of one validated repository can't satisfy dependencies of another.
+ * Model caches are kept between jobs, until pom files of validated repository change.
+ */
+public class ValidationServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationServer.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long POLL_INTERVAL_MS = 500;
+
+    @Inject
+    private AppConfig appConfig;
+    @Inject
+    private AppInitializer initializer;
+    @Inject
+    private ValidationExecutor validationExecutor;
+    @Inject
+    private ReportingExecutor reportingExecutor;
+    @Inject
+    private LocalRepository localRepository;
+    @Inject
+    private ValidatorSupport validatorSupport;
+
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService requestExecutor = Executors.newCachedThreadPool();
+    private final AtomicLong jobSequence = new AtomicLong();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer httpServer;
+
+    /**
+     * Starts server on given port of loopback interface, zero means any free port, and returns its address.
+     */
+    public InetSocketAddress start(int port) throws IOException {
+        takeLocalRepository();
+        validatorSupport.setModelCacheResident(true);
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/validate", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    handleValidate(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        httpServer.setExecutor(requestExecutor);
+        httpServer.start();
+        logger.info("validation server listening on {}", httpServer.getAddress());
+        return httpServer.getAddress();
+    }
+
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        jobExecutor.shutdownNow();
+        requestExecutor.shutdownNow();
+        validatorSupport.setModelCacheResident(false);
+        stopped.countDown();
+    }
+
+    /**
+     * Waits until server is stopped.
+     */
+    public void join() throws InterruptedException {
+        stopped.await();
+    }
+
+    private void takeLocalRepository() throws IOException {
+        File dir = localRepository.getBasedir();
+        if (dir.exists()) {
+            String[] files = dir.list();
+            if (files == null || files.length != 0) {
+                throw new IllegalStateException("Local repository " + dir + " isn't empty directory, validation server needs local repository of its own");
+            }
+        } else {
+            FileUtils.forceMkdir(dir);
+        }
+    }
+
+    private void handleValidate(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            exchange.sendResponseHeaders(405, -1);
+            return;
+        }
+        Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        String repository = parameters.get("repository");
+        if (StringUtils.isEmpty(repository)) {
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+        String distribution = parameters.get("distribution");
+
+        final long jobId = jobSequence.incrementAndGet();
+        final ValidatorContext ctx = appConfig.newValidatorContext(
+                new File(repository).getAbsoluteFile(),
+                distribution != null ? new File(distribution).getAbsoluteFile() : null);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        Writer writer = new OutputStreamWriter(exchange.getResponseBody(), UTF_8);
+        try {
+            writeLine(writer, "job " + jobId + " queued: " + ctx.getValidatedRepository());
+            Future<Long> job = jobExecutor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws IOException {
+                    return runJob(jobId, ctx);
+                }
+            });
+            int streamed = 0;
+            Long time = null;
+            String failure = null;
+            while (time == null && failure == null) {
+                try {
+                    time = job.get(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // still running
+                } catch (ExecutionException e) {
+                    logger.error("job " + jobId + " ended with unexpected exception!", e.getCause());
+                    failure = e.getCause().toString();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                streamed += streamErrors(writer, ctx, streamed);
+            }
+            if (failure != null) {
+                writeLine(writer, "job " + jobId + " failed: " + failure);
+            } else {
+                writeLine(writer, "job " + jobId + " finished: " + (ctx.isSuccess() ? "SUCCESS" : "FAILURE")
+                        + ", " + ctx.getErrorCount() + " errors, " + ctx.getIgnoredErrorCount() + " ignored errors, in " + time + " ms");
+            }
+        } catch (IOException e) {
+            // client disconnected, the job runs to the end anyway, so it doesn't leave run scoped state inconsistent
+            logger.warn("unable to stream results of job {}: {}", jobId, e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(writer);
+            closeAfterJob(ctx);
+        }
+    }
+
+    private void closeAfterJob(final ValidatorContext ctx) {
+        try {
+            // jobs are executed one at a time, so context is closed after its job, even if client disconnected
+            jobExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            ctx.close();
+        }
+    }
+
+    private long runJob(long jobId, ValidatorContext ctx) throws IOException {
+        long start = System.currentTimeMillis();
+        logger.info("starting job {}: {}", jobId, ctx.getValidatedRepository());
+        try {
+            initializer.initialize(ctx);
+            validationExecutor.execute(ctx);
+            reportingExecutor.execute(ctx);
+        } finally {
+            // local repository was empty when server started, so it contains only files resolved by jobs
+            FileUtils.cleanDirectory(localRepository.getBasedir());
+        }
+        long time = System.currentTimeMillis() - start;
+        logger.info("finished job {} in {} ms", jobId, time);
+        return time;
+    }
+
+    private static int streamErrors(Writer writer, ValidatorContext ctx, int streamed) throws IOException {
+        List<ValidationError> errors = ctx.getErrorsFrom(streamed);
+        for (ValidationError error : errors) {
+            Exception e = error.getException();
+            String file = error.getFile() != null ? relativize(ctx, error.getFile()).getPath() : "";
+            writeLine(writer, "error\t" + e.getClass().getSimpleName() + "\t" + file + "\t" + StringUtils.normalizeSpace(e.getMessage()));
+        }
+        return errors.size();
+    }
+
+    private static void writeLine(Writer writer, String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+        writer.flush();
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<String, String>();
+        if (query != null) {
+            for (String parameter : StringUtils.split(query, '&')) {
+                String name = StringUtils.substringBefore(parameter, "=");
+                String value = StringUtils.substringAfter(parameter, "=");
+                parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+}
@@ -2,16 +2,25 @@ package com.redhat.repository.validator;
 
 import static com.redhat.repository.validator.internal.Utils.relativize;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.commons.io.FileUtils;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class ValidatorContext {
+import com.redhat.repository.validator.internal.ErrorStore;
+import com.redhat.repository.validator.internal.MemoryErrorStore;
+import com.redhat.repository.validator.internal.RepositoryIndex;
+import com.redhat.repository.validator.internal.SpoolingErrorStore;
+
+public class ValidatorContext implements Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(Validator.class);
 
@@ -19,18 +28,59 @@ public class ValidatorContext {
     private final File validatedDistribution;
     private final List<RemoteRepository> remoteRepositories;
     private final List<ExceptionFilter> exceptionFilters;
-    private final List<ValidationError> errors = new ArrayList<ValidationError>();
-    private final List<ValidationError> ignoredErrors = new ArrayList<ValidationError>();
+    private final ErrorStore errors;
+    private final ErrorStore ignoredErrors;
+    private RepositoryIndex repositoryIndex;
 
     public ValidatorContext(File validatedRepository, File validatedDistribution, List<RemoteRepository> remoteRepositories) {
         this(validatedRepository, validatedDistribution, remoteRepositories, null);
     }
 
     public ValidatorContext(File validatedRepository, File validatedDistribution, List<RemoteRepository> remoteRepositories, List<ExceptionFilter> exceptionFilters) {
+        this(validatedRepository, validatedDistribution, remoteRepositories, exceptionFilters, null);
+    }
+
+    /**
+     * @param errorSpoolDir directory where errors are spooled instead of keeping them in memory, can be null
+     */
+    public ValidatorContext(File validatedRepository, File validatedDistribution, List<RemoteRepository> remoteRepositories, List<ExceptionFilter> exceptionFilters, File errorSpoolDir) {
         this.validatedRepository = validatedRepository;
         this.validatedDistribution = validatedDistribution; 
         this.remoteRepositories = remoteRepositories;
         this.exceptionFilters = exceptionFilters;
+        if (errorSpoolDir != null) {
+            this.errors = new SpoolingErrorStore(createSpoolFile(errorSpoolDir, "errors-"));
+            this.ignoredErrors = new SpoolingErrorStore(createSpoolFile(errorSpoolDir, "ignored-errors-"));
+        } else {
+            this.errors = new MemoryErrorStore();
+            this.ignoredErrors = new MemoryErrorStore();
+        }
+    }
+
+    private static File createSpoolFile(File errorSpoolDir, String prefix) {
+        try {
+            FileUtils.forceMkdir(errorSpoolDir);
+            return File.createTempFile(prefix, ".spool", errorSpoolDir);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private ValidatorContext(ValidatorContext ctx, RepositoryIndex repositoryIndex) {
+        this.validatedRepository = ctx.validatedRepository;
+        this.validatedDistribution = ctx.validatedDistribution;
+        this.remoteRepositories = ctx.remoteRepositories;
+        this.exceptionFilters = ctx.exceptionFilters;
+        this.errors = ctx.errors;
+        this.ignoredErrors = ctx.ignoredErrors;
+        this.repositoryIndex = repositoryIndex;
+    }
+
+    /**
+     * Returns view of this context with given repository index, errors are shared with this context.
+     */
+    public ValidatorContext withRepositoryIndex(RepositoryIndex repositoryIndex) {
+        return new ValidatorContext(this, repositoryIndex);
     }
 
     public File getValidatedRepository() {
@@ -45,6 +95,17 @@ public class ValidatorContext {
         return remoteRepositories;
     }
 
+    public synchronized RepositoryIndex getRepositoryIndex() {
+        if (repositoryIndex == null) {
+            repositoryIndex = RepositoryIndex.build(validatedRepository);
+        }
+        return repositoryIndex;
+    }
+
+    public synchronized void setRepositoryIndex(RepositoryIndex repositoryIndex) {
+        this.repositoryIndex = repositoryIndex;
+    }
+
     public boolean isSuccess() {
         return errors.isEmpty();
     }
@@ -71,45 +132,133 @@ public class ValidatorContext {
     }
 
     public List<ValidationError> getErrors() {
-        return Collections.unmodifiableList(errors);
+        return errors.getErrors();
+    }
+
+    /**
+     * Returns errors added after first given count of errors.
+     */
+    public List<ValidationError> getErrorsFrom(int index) {
+        return errors.getErrorsFrom(index);
+    }
+
+    public int getErrorCount() {
+        return errors.size();
     }
 
     public List<ValidationError> getErrors(File pomFile) {
-        List<ValidationError> result = new ArrayList<ValidationError>();
-        for(ValidationError error : errors) {
-            if( pomFile.equals(error.getFile()) ) {
-                result.add(error);
-            }
-        }
-        return Collections.unmodifiableList(result);
+        return errors.getErrors(pomFile);
+    }
+
+    public boolean hasErrors(File file) {
+        return errors.hasErrors(file);
+    }
+
+    public List<ValidationError> getErrors(Validator validator) {
+        return errors.getErrors(validator);
     }
     
     public List<Exception> getExceptions() {
-        List<Exception> result = new ArrayList<Exception>();
-        for (ValidationError error : errors) {
-            result.add(error.getException());
-        }
-        return Collections.unmodifiableList(result);
+        return toExceptions(errors.getErrors());
     }
 
     public <E extends Exception> List<E> getExceptions(Class<E> exceptionType) {
-        List<E> result = new ArrayList<E>();
-        for (Exception exception : getExceptions()) {
-            if (exceptionType.isInstance(exception)) {
-                result.add(exceptionType.cast(exception));
-            }
-        }
-        return Collections.unmodifiableList(result);
+        return castExceptions(errors.getErrors(exceptionType), exceptionType);
+    }
+
+    /**
+     * Returns exceptions of exactly given class, subclasses (e.g. {@code BomDependencyNotFoundException}
+     * of {@code DependencyNotFoundException}) are not loaded from error spool.
+     */
+    public <E extends Exception> List<E> getExceptionsOfClass(Class<E> exceptionClass) {
+        return castExceptions(errors.getErrorsOfClass(exceptionClass), exceptionClass);
     }
     
+    /**
+     * Passes distinct exceptions of exactly given class to visitor ordered by message,
+     * spooled exceptions are read one at a time, so they don't have to fit into memory together.
+     */
+    public <E extends Exception> void visitExceptionsOfClass(Class<E> exceptionClass, ExceptionVisitor<? super E> visitor) {
+        errors.visitExceptionsOfClass(exceptionClass, castingVisitor(exceptionClass, visitor));
+    }
+
+    /**
+     * Returns count of distinct exceptions of exactly given class.
+     */
+    public int getExceptionCountOfClass(Class<? extends Exception> exceptionClass) {
+        return errors.getExceptionCountOfClass(exceptionClass);
+    }
+
+    /**
+     * Returns classes of exceptions of errors, reporters can process errors type by type, 
+     * so they don't need all of them at once when errors are spooled.
+     */
+    public Set<Class<? extends Exception>> getExceptionTypes() {
+        return errors.getExceptionTypes();
+    }
+
     public List<ValidationError> getIgnoredErrors() {
-        return Collections.unmodifiableList(ignoredErrors);
+        return ignoredErrors.getErrors();
+    }
+
+    public int getIgnoredErrorCount() {
+        return ignoredErrors.size();
     }
     
     public List<Exception> getIgnoredExceptions() {
+        return toExceptions(ignoredErrors.getErrors());
+    }
+
+    public <E extends Exception> List<E> getIgnoredExceptions(Class<E> exceptionType) {
+        return castExceptions(ignoredErrors.getErrors(exceptionType), exceptionType);
+    }
+
+    public <E extends Exception> List<E> getIgnoredExceptionsOfClass(Class<E> exceptionClass) {
+        return castExceptions(ignoredErrors.getErrorsOfClass(exceptionClass), exceptionClass);
+    }
+
+    public <E extends Exception> void visitIgnoredExceptionsOfClass(Class<E> exceptionClass, ExceptionVisitor<? super E> visitor) {
+        ignoredErrors.visitExceptionsOfClass(exceptionClass, castingVisitor(exceptionClass, visitor));
+    }
+
+    public int getIgnoredExceptionCountOfClass(Class<? extends Exception> exceptionClass) {
+        return ignoredErrors.getExceptionCountOfClass(exceptionClass);
+    }
+
+    public Set<Class<? extends Exception>> getIgnoredExceptionTypes() {
+        return ignoredErrors.getExceptionTypes();
+    }
+
+    /**
+     * Releases error spool files, errors are not available afterwards, views with other repository index are closed too.
+     */
+    @Override
+    public void close() {
+        errors.close();
+        ignoredErrors.close();
+    }
+
+    private static List<Exception> toExceptions(List<ValidationError> errors) {
         List<Exception> result = new ArrayList<Exception>();
-        for (ValidationError ignoredError : ignoredErrors) {
-            result.add(ignoredError.getException());
+        for (ValidationError error : errors) {
+            result.add(error.getException());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static <E extends Exception> ExceptionVisitor<Exception> castingVisitor(final Class<E> exceptionClass, final ExceptionVisitor<? super E> visitor) {
+        return new ExceptionVisitor<Exception>() {
+            @Override
+            public void visit(Exception exception) {
+                visitor.visit(exceptionClass.cast(exception));
+            }
+        };
+    }
+
+    private static <E extends Exception> List<E> castExceptions(List<ValidationError> errors, Class<E> exceptionType) {
+        List<E> result = new ArrayList<E>();
+        for (ValidationError error : errors) {
+            result.add(exceptionType.cast(error.getException()));
         }
         return Collections.unmodifiableList(result);
     }
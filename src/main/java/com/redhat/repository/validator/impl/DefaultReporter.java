@@ -1,9 +1,7 @@
 package com.redhat.repository.validator.impl;
 
-import static com.redhat.repository.validator.internal.Utils.findPathToDependency;
-import static com.redhat.repository.validator.internal.Utils.sortArtifacts;
-import static com.redhat.repository.validator.internal.Utils.sortDependencyNodes;
-import static com.redhat.repository.validator.internal.Utils.sortExceptions;
+import static com.redhat.repository.validator.internal.Utils.formatDependencyPaths;
+import static com.redhat.repository.validator.internal.Utils.sortExceptionTypes;
 import static org.apache.commons.lang3.ObjectUtils.notEqual;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 
@@ -11,7 +9,6 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Named;
@@ -21,12 +18,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.eclipse.aether.artifact.Artifact;
-import org.eclipse.aether.graph.DependencyNode;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.LinkedListMultimap;
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Multimap;
+import com.redhat.repository.validator.ExceptionVisitor;
 import com.redhat.repository.validator.Reporter;
 import com.redhat.repository.validator.ValidatorContext;
 import com.redhat.repository.validator.impl.bom.BomDependencyNotFoundException;
@@ -54,99 +47,82 @@ public class DefaultReporter implements Reporter {
 
     @Override
     public void report(ValidatorContext ctx) {
-        List<BomDependencyNotFoundException> bomDependencyNotFoundExceptions = new ArrayList<BomDependencyNotFoundException>();
-        List<DependencyNotFoundException> dependencyNotFoundExceptions = new ArrayList<DependencyNotFoundException>();
-        List<Exception> exceptions = new ArrayList<Exception>();
-
-        for (Exception e : ctx.getExceptions()) {
-            if (e instanceof BomDependencyNotFoundException) {
-                bomDependencyNotFoundExceptions.add((BomDependencyNotFoundException) e);
-            } else if (e instanceof DependencyNotFoundException) {
-                dependencyNotFoundExceptions.add((DependencyNotFoundException) e);
-            } else {
-                exceptions.add(e);
+        // exceptions are visited class by class and read one at a time, so spooled errors don't have to fit into memory
+        reportMissingDependencies(ctx, DependencyNotFoundException.class);
+        reportMissingDependencies(ctx, BomDependencyNotFoundException.class);
+
+        for (Class<? extends Exception> exceptionType : sortExceptionTypes(ctx.getExceptionTypes())) {
+            if (!DependencyNotFoundException.class.isAssignableFrom(exceptionType)) {
+                reportExceptions(ctx, exceptionType);
             }
         }
-
-        reportDependencyNotFoundExceptions(dependencyNotFoundExceptions);
-        reportBomDependencyNotFoundExceptions(bomDependencyNotFoundExceptions);
-        reportExceptions(exceptions);
     }
 
-    private void reportDependencyNotFoundExceptions(List<DependencyNotFoundException> dependencyNotFoundExceptions) {
-        ListMultimap<Artifact, DependencyNode> artifactNotFoundMap = collectMissingDependencies(dependencyNotFoundExceptions);
-        if (artifactNotFoundMap.isEmpty()) {
+    private void reportMissingDependencies(ValidatorContext ctx, Class<? extends DependencyNotFoundException> exceptionType) {
+        // header needs count of missing artifacts, so they are counted in first pass and reported in second one
+        final int[] missingDependencyCount = new int[1];
+        MissingDependencyVisitor counter = new MissingDependencyVisitor() {
+            @Override
+            protected void visitMissingDependency(Artifact artifact, List<DependencyNotFoundException> roots) {
+                missingDependencyCount[0]++;
+            }
+        };
+        ctx.visitExceptionsOfClass(exceptionType, counter);
+        counter.finish();
+        if (missingDependencyCount[0] == 0) {
             return;
         }
-        try (PrintStream ps = openStream(DependencyNotFoundException.class)) {
-            reportMissingDependencies(ps, artifactNotFoundMap, false);
-        }
-    }
 
-    private void reportBomDependencyNotFoundExceptions(List<BomDependencyNotFoundException> bomDependencyNotFoundExceptions) {
-        ListMultimap<Artifact, DependencyNode> artifactNotFoundMap = collectMissingDependencies(bomDependencyNotFoundExceptions);
-        if (artifactNotFoundMap.isEmpty()) {
-            return;
-        }
-        try (PrintStream ps = openStream(BomDependencyNotFoundException.class)) {
-            reportMissingDependencies(ps, artifactNotFoundMap, true);
-        }
-    }
-    
-    private void reportMissingDependencies(PrintStream ps, ListMultimap<Artifact, DependencyNode> artifactNotFoundMap, boolean isBom) {
-        ps.print("--- ");
-        ps.print(isBom ? BomDependencyNotFoundException.class.getSimpleName() : DependencyNotFoundException.class.getSimpleName());
-        ps.print(" (found " + artifactNotFoundMap.keySet().size() + " missing dependencies)");
-        ps.println(" ---");
-        
-        for (Artifact artifact : sortArtifacts(artifactNotFoundMap.keySet())) {
-            ps.println("miss: " + artifact);
-            List<DependencyNode> roots = sortDependencyNodes(artifactNotFoundMap.get(artifact));
-            for (DependencyNode root : roots) {
-                ps.println("    from: " + root.getArtifact());
-                String path = findPathToDependency(artifact, root);
-                String simplePath = root.getArtifact() + " > " + artifact;
-                if (isNotEmpty(path) && notEqual(path, simplePath)) {
-                    ps.print("        path: ");
-                    ps.print(path);
-                    ps.println();
+        try (final PrintStream ps = openStream(exceptionType)) {
+            ps.print("--- ");
+            ps.print(exceptionType.getSimpleName());
+            ps.print(" (found " + missingDependencyCount[0] + " missing dependencies)");
+            ps.println(" ---");
+
+            MissingDependencyVisitor reporter = new MissingDependencyVisitor() {
+                @Override
+                protected void visitMissingDependency(Artifact artifact, List<DependencyNotFoundException> roots) {
+                    reportMissingDependency(ps, artifact, roots);
                 }
-            }
+            };
+            ctx.visitExceptionsOfClass(exceptionType, reporter);
+            reporter.finish();
+
+            ps.println();
+            ps.flush();
         }
-        ps.println();
-        ps.flush();
     }
 
-    private ListMultimap<Artifact, DependencyNode> collectMissingDependencies(List<? extends DependencyNotFoundException> dependencyNotFoundExceptions) {
-        ListMultimap<Artifact, DependencyNode> artifactNotFoundMap = ArrayListMultimap.create();
-        for (DependencyNotFoundException e : dependencyNotFoundExceptions) {
-            DependencyNode dependencyNode = e.getDependencyNode();
-            Artifact missingArtifact = e.getMissingArtifact();
-            artifactNotFoundMap.put(missingArtifact, dependencyNode);
+    private void reportMissingDependency(PrintStream ps, Artifact artifact, List<DependencyNotFoundException> roots) {
+        ps.println("miss: " + artifact);
+        for (DependencyNotFoundException root : roots) {
+            ps.println("    from: " + root.getRootArtifact());
+            String path = formatDependencyPaths(root.getPaths());
+            String simplePath = root.getRootArtifact() + " > " + artifact;
+            if (isNotEmpty(path) && notEqual(path, simplePath)) {
+                ps.print("        path: ");
+                ps.print(path);
+                ps.println();
+            }
         }
-        return artifactNotFoundMap;
     }
 
-    private void reportExceptions(List<Exception> exceptions) {
-        exceptions = sortExceptions(exceptions);
-        if (exceptions.isEmpty()) {
+    private void reportExceptions(ValidatorContext ctx, Class<? extends Exception> exceptionType) {
+        int count = ctx.getExceptionCountOfClass(exceptionType);
+        if (count == 0) {
             return;
         }
 
-        Multimap<Class<? extends Exception>, Exception> exceptionMultimap = LinkedListMultimap.create();
-        for (Exception exception : exceptions) {
-            exceptionMultimap.put(exception.getClass(), exception);
-        }
-
-        for (Class<? extends Exception> exceptionType : exceptionMultimap.keySet()) {
-            try (PrintStream ps = openStream(exceptionType)) {
-                ps.println("--- " + exceptionType.getSimpleName() + " (total count " + exceptionMultimap.get(exceptionType).size() + ") ---");
-                for (Exception exception : exceptionMultimap.get(exceptionType)) {
+        try (final PrintStream ps = openStream(exceptionType)) {
+            ps.println("--- " + exceptionType.getSimpleName() + " (total count " + count + ") ---");
+            ctx.visitExceptionsOfClass(exceptionType, new ExceptionVisitor<Exception>() {
+                @Override
+                public void visit(Exception exception) {
                     reportException(ps, exception, 0);
                 }
-                ps.println();
-                ps.flush();
-            }
+            });
+            ps.println();
+            ps.flush();
         }
     }
 
@@ -9,7 +9,8 @@ import static org.apache.commons.lang3.StringUtils.substringBeforeLast;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -24,6 +25,7 @@ import org.eclipse.aether.artifact.ArtifactType;
 import org.eclipse.aether.artifact.ArtifactTypeRegistry;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
 import org.eclipse.aether.collection.DependencyCollectionException;
 import org.eclipse.aether.graph.DefaultDependencyNode;
 import org.eclipse.aether.graph.Dependency;
@@ -39,12 +41,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.Order;
 
+import com.google.common.base.Function;
+import com.redhat.repository.validator.Incremental;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.internal.DependencyPathIndex;
 import com.redhat.repository.validator.internal.Utils;
+import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
 @Order(100)
+@Incremental(remote = true)
 public class DependenciesValidator implements Validator {
     
     private static final Logger logger = LoggerFactory.getLogger(DependenciesValidator.class);
@@ -57,31 +64,58 @@ public class DependenciesValidator implements Validator {
     private RepositorySystem repositorySystem;
     @Inject
     private RepositorySystemSession repositorySystemSession;
+    @Inject
+    private ValidatorSupport validatorSupport;
+
+    private final int threads;
+
+    public DependenciesValidator() {
+        this(0);
+    }
+
+    /**
+     * @param threads number of poms validated concurrently, zero means same number as global validation threads
+     */
+    public DependenciesValidator(int threads) {
+        this.threads = threads;
+    }
 
     @Override
-    public void validate(ValidatorContext ctx) {
-        Collection<File> pomFiles = listPomFiles(ctx.getValidatedRepository(), fileFilter);
-        for (File pomFile : pomFiles) {
-            logger.trace("validating {}", relativize(ctx, pomFile));
-            validate(ctx, pomFile);
+    public void validate(final ValidatorContext ctx) {
+        List<File> pomFiles = new ArrayList<File>(listPomFiles(ctx, fileFilter));
+        List<List<Exception>> errors = validatorSupport.mapInOrder(pomFiles, threads, new Function<File, List<Exception>>() {
+            @Override
+            public List<Exception> apply(File pomFile) {
+                return validate(ctx, pomFile);
+            }
+        });
+        for (int i = 0; i < pomFiles.size(); i++) {
+            reportErrors(ctx, pomFiles.get(i), errors.get(i));
         }
     }
 
-    private void validate(ValidatorContext ctx, File pomFile) {
+    private void reportErrors(ValidatorContext ctx, File pomFile, List<Exception> errors) {
+        for (Exception error : errors) {
+            ctx.addError(this, pomFile, error);
+        }
+    }
+
+    private List<Exception> validate(ValidatorContext ctx, File pomFile) {
+        logger.trace("validating {}", relativize(ctx, pomFile));
+        List<Exception> errors = new ArrayList<Exception>();
         Artifact pomArtifact = parsePomArtifact(ctx.getValidatedRepository(), pomFile);
-        Model pomModel = parsePomModel(ctx, pomFile);
+        Model pomModel = parsePomModel(errors, pomFile);
         if (pomModel == null) {
-            return;
+            return errors;
         }
-        if (!resolvePom(ctx, pomFile, pomArtifact)) {
-            return;
+        if (!resolvePom(ctx, errors, pomArtifact)) {
+            return errors;
         }
-        if (!resolveArchive(ctx, pomFile, pomArtifact, pomModel)) {
-            return;
-        }
-        if (!resolveDependencies(ctx, pomFile, pomArtifact)) {
-            return;
+        if (!resolveArchive(ctx, errors, pomFile, pomArtifact, pomModel)) {
+            return errors;
         }
+        resolveDependencies(ctx, errors, pomArtifact);
+        return errors;
     }
 
     private Artifact parsePomArtifact(File repoDir, File pomFile) {
@@ -100,36 +134,36 @@ public class DependenciesValidator implements Validator {
         return new DefaultArtifact(groupId, artifactId, "pom", version);
     }
 
-    private Model parsePomModel(ValidatorContext ctx, File pomFile) {
+    private Model parsePomModel(List<Exception> errors, File pomFile) {
         try {
             return modelReader.read(pomFile, null);
         } catch (IOException e) {
-            ctx.addError(this, pomFile, e);
+            errors.add(e);
             return null;
         }
     }
 
-    private boolean resolvePom(ValidatorContext ctx, File pomFile, Artifact pomArtifact) {
+    private boolean resolvePom(ValidatorContext ctx, List<Exception> errors, Artifact pomArtifact) {
         ArtifactRequest pomRequest = new ArtifactRequest();
         pomRequest.setArtifact(pomArtifact);
         pomRequest.setRepositories(ctx.getRemoteRepositories());
         try {
             repositorySystem.resolveArtifact(repositorySystemSession, pomRequest);
         } catch (ArtifactResolutionException e) {
-            collectAndReportMissingArtifacts(ctx, e, pomFile, pomArtifact, new DefaultDependencyNode(pomArtifact));
+            collectMissingArtifacts(errors, e, pomArtifact, new DefaultDependencyNode(pomArtifact));
             return false;
         }
         return true;
     }
 
-    private boolean resolveArchive(ValidatorContext ctx, File pomFile, Artifact pomArtifact, Model model) {
+    private boolean resolveArchive(ValidatorContext ctx, List<Exception> errors, File pomFile, Artifact pomArtifact, Model model) {
         if (!model.getPackaging().equals("pom")) {
 
             ArtifactTypeRegistry artifactTypeRegistry = repositorySystemSession.getArtifactTypeRegistry();
             ArtifactType artifactType = artifactTypeRegistry.get(model.getPackaging());
             
             if (artifactType == null) {
-                ctx.addError(this, pomFile, new UnknownArtifactTypeException(model.getPackaging(), relativize(ctx, pomFile)));
+                errors.add(new UnknownArtifactTypeException(model.getPackaging(), relativize(ctx, pomFile)));
                 return false;
             }
 
@@ -147,42 +181,43 @@ public class DependenciesValidator implements Validator {
             try {
                 repositorySystem.resolveArtifact(repositorySystemSession, archiveRequest);
             } catch (ArtifactResolutionException e) {
-                collectAndReportMissingArtifacts(ctx, e, pomFile, pomArtifact, new DefaultDependencyNode(pomArtifact));
+                collectMissingArtifacts(errors, e, pomArtifact, new DefaultDependencyNode(pomArtifact));
                 return false;
             }
         }
         return true;
     }
 
-    private boolean resolveDependencies(ValidatorContext ctx, File pomFile, Artifact pomArtifact) {
+    private boolean resolveDependencies(ValidatorContext ctx, List<Exception> errors, Artifact pomArtifact) {
         CollectRequest collectRequest = new CollectRequest();
         collectRequest.setRoot(new Dependency(pomArtifact, JavaScopes.COMPILE));
         collectRequest.setRepositories(ctx.getRemoteRepositories());
 
-        DependencyFilter dependencyFilter = DependencyFilterUtils.classpathFilter(JavaScopes.COMPILE);
-        DependencyRequest dependencyRequest = new DependencyRequest(collectRequest, dependencyFilter);
-
+        CollectResult collectResult;
         try {
-            repositorySystem.collectDependencies(repositorySystemSession, collectRequest);
+            collectResult = repositorySystem.collectDependencies(repositorySystemSession, collectRequest);
         } catch (DependencyCollectionException e) {
             DependencyNode rootDepNode = new DefaultDependencyNode(e.getResult().getRequest().getRoot());
-            collectAndReportMissingArtifacts(ctx, e, pomFile, pomArtifact, rootDepNode);
+            collectMissingArtifacts(errors, e, pomArtifact, rootDepNode);
             return false;
         }
 
+        // resolve already collected graph, instead of collecting it again
+        DependencyFilter dependencyFilter = DependencyFilterUtils.classpathFilter(JavaScopes.COMPILE);
+        DependencyRequest dependencyRequest = new DependencyRequest(collectResult.getRoot(), dependencyFilter);
+
         try {
             repositorySystem.resolveDependencies(repositorySystemSession, dependencyRequest);
         } catch (DependencyResolutionException e) {
             DependencyNode rootDepNode = e.getResult().getRoot();
-            collectAndReportMissingArtifacts(ctx, e, pomFile, pomArtifact, rootDepNode);
+            collectMissingArtifacts(errors, e, pomArtifact, rootDepNode);
             return false;
         }
 
         return true;
     }
 
-    private void collectAndReportMissingArtifacts(ValidatorContext ctx, Exception e, File pomFile,
-                                                  Artifact validatedArtifact, DependencyNode rootDepNode) {
+    private void collectMissingArtifacts(List<Exception> errors, Exception e, Artifact validatedArtifact, DependencyNode rootDepNode) {
         ArtifactResolutionException are;
         if (e instanceof ArtifactResolutionException) {
             are = (ArtifactResolutionException) e;
@@ -191,10 +226,12 @@ public class DependenciesValidator implements Validator {
         }
         
         if( are == null ) {
-            ctx.addError(this, pomFile, e);
+            errors.add(e);
         } else {
-            for (Artifact missingArtifact : Utils.collectMissingArtifacts(are)) {
-                ctx.addError(this, pomFile, new DependencyNotFoundException(are, missingArtifact, validatedArtifact, rootDepNode));
+            List<Artifact> missingArtifacts = Utils.collectMissingArtifacts(are);
+            DependencyPathIndex pathIndex = new DependencyPathIndex(rootDepNode, missingArtifacts);
+            for (Artifact missingArtifact : missingArtifacts) {
+                errors.add(new DependencyNotFoundException(are, missingArtifact, validatedArtifact, rootDepNode, pathIndex));
             }
         }
     }
@@ -1,21 +1,58 @@
 package com.redhat.repository.validator.impl;
 
+import static com.redhat.repository.validator.internal.Utils.detachResults;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.graph.DefaultDependencyNode;
 import org.eclipse.aether.graph.DependencyNode;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.redhat.repository.validator.internal.DependencyPathIndex;
+
+/**
+ * Keeps only paths from root of dependency graph to missing artifact, with artifacts shared by all exceptions,
+ * so the graph (also referenced by results of aether exceptions in cause) can be garbage collected.
+ */
 public class DependencyNotFoundException extends Exception {
     private static final long serialVersionUID = 1L;
 
+    private static final Interner<Artifact> ARTIFACTS = Interners.newWeakInterner();
+
     private final Artifact missingArtifact;
     private final Artifact validatedArtifact;
-    private final DependencyNode dependencyNode;
+    private final Artifact rootArtifact;
+    private final Artifact[][] paths;
 
     public DependencyNotFoundException(Exception cause, Artifact missingArtifact, Artifact validatedArtifact, DependencyNode dependencyNode) {
-        super("Artifact " + missingArtifact + " (referenced from '" + validatedArtifact + ") not found!", cause);
+        this(cause, missingArtifact, validatedArtifact, dependencyNode, new DependencyPathIndex(dependencyNode, Collections.singleton(missingArtifact)));
+    }
+
+    /**
+     * Creates exception with paths found by given index of the dependency graph,
+     * which is shared by all artifacts missing in the graph.
+     */
+    public DependencyNotFoundException(Exception cause, Artifact missingArtifact, Artifact validatedArtifact, DependencyNode dependencyNode, DependencyPathIndex pathIndex) {
+        this(cause, missingArtifact, validatedArtifact, 
+                dependencyNode != null && dependencyNode.getArtifact() != null ? dependencyNode.getArtifact() : validatedArtifact, 
+                pathIndex.getPaths(missingArtifact));
+    }
+
+    /**
+     * Creates exception with given paths from root of dependency graph to missing artifact, 
+     * e.g. kept by memo of dependency graphs instead of the graph itself.
+     */
+    public DependencyNotFoundException(Exception cause, Artifact missingArtifact, Artifact validatedArtifact, Artifact rootArtifact, List<List<Artifact>> paths) {
+        super("Artifact " + missingArtifact + " (referenced from '" + validatedArtifact + ") not found!", detachResults(cause));
         this.missingArtifact = missingArtifact;
         this.validatedArtifact = validatedArtifact;
-        this.dependencyNode = dependencyNode;
+        this.rootArtifact = intern(rootArtifact);
+        this.paths = internPaths(paths);
     }
 
     public DependencyNotFoundException(Exception e, Artifact missingArtifact, Artifact validatedArtifact) {
@@ -30,8 +67,47 @@ public class DependencyNotFoundException extends Exception {
         return validatedArtifact;
     }
 
+    /**
+     * Returns artifact of root of dependency graph in which the missing artifact was found.
+     */
+    public Artifact getRootArtifact() {
+        return rootArtifact;
+    }
+
+    /**
+     * @deprecated the graph isn't kept anymore, returns just node of its root artifact without children, 
+     *             use {@link #getRootArtifact()} and {@link #getPaths()} instead
+     */
+    @Deprecated
     public DependencyNode getDependencyNode() {
-        return dependencyNode;
+        return new DefaultDependencyNode(rootArtifact);
+    }
+
+    /**
+     * Returns paths from root of dependency graph to the missing artifact.
+     */
+    public List<List<Artifact>> getPaths() {
+        List<List<Artifact>> result = new ArrayList<List<Artifact>>(paths.length);
+        for (Artifact[] path : paths) {
+            result.add(Collections.unmodifiableList(Arrays.asList(path)));
+        }
+        return result;
+    }
+
+    private static Artifact[][] internPaths(List<List<Artifact>> paths) {
+        Artifact[][] result = new Artifact[paths.size()][];
+        for (int i = 0; i < result.length; i++) {
+            List<Artifact> path = paths.get(i);
+            result[i] = new Artifact[path.size()];
+            for (int j = 0; j < result[i].length; j++) {
+                result[i][j] = intern(path.get(j));
+            }
+        }
+        return result;
+    }
+
+    private static Artifact intern(Artifact artifact) {
+        return artifact != null ? ARTIFACTS.intern(artifact) : null;
     }
 
 }
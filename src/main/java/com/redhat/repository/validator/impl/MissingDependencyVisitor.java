@@ -0,0 +1,58 @@
+package com.redhat.repository.validator.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.aether.artifact.Artifact;
+
+import com.redhat.repository.validator.ExceptionVisitor;
+
+/**
+ * Groups visited exceptions by missing artifact. Exceptions are visited ordered by message, which starts with
+ * the missing artifact, so exceptions of one artifact come in a row and only they are kept in memory.
+ */
+abstract class MissingDependencyVisitor implements ExceptionVisitor<DependencyNotFoundException> {
+
+    private final List<DependencyNotFoundException> roots = new ArrayList<DependencyNotFoundException>();
+    private Artifact artifact;
+
+    @Override
+    public void visit(DependencyNotFoundException exception) {
+        if (artifact != null && !artifact.equals(exception.getMissingArtifact())) {
+            flush();
+        }
+        artifact = exception.getMissingArtifact();
+        roots.add(exception);
+    }
+
+    /**
+     * Passes group of the last artifact, has to be called after all exceptions were visited.
+     */
+    public void finish() {
+        if (artifact != null) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        visitMissingDependency(artifact, sortByRootArtifact(roots));
+        roots.clear();
+        artifact = null;
+    }
+
+    protected abstract void visitMissingDependency(Artifact artifact, List<DependencyNotFoundException> roots);
+
+    private static List<DependencyNotFoundException> sortByRootArtifact(List<DependencyNotFoundException> exceptions) {
+        List<DependencyNotFoundException> result = new ArrayList<DependencyNotFoundException>(exceptions);
+        Collections.sort(result, new Comparator<DependencyNotFoundException>() {
+            @Override
+            public int compare(DependencyNotFoundException e1, DependencyNotFoundException e2) {
+                return e1.getRootArtifact().toString().compareTo(e2.getRootArtifact().toString());
+            }
+        });
+        return result;
+    }
+
+}
@@ -1,9 +1,7 @@
 package com.redhat.repository.validator.impl;
 
-import static com.redhat.repository.validator.internal.Utils.findPathToDependency;
-import static com.redhat.repository.validator.internal.Utils.sortArtifacts;
-import static com.redhat.repository.validator.internal.Utils.sortDependencyNodes;
-import static com.redhat.repository.validator.internal.Utils.sortExceptions;
+import static com.redhat.repository.validator.internal.Utils.formatDependencyPaths;
+import static com.redhat.repository.validator.internal.Utils.sortExceptionTypes;
 import static org.apache.commons.lang3.SystemUtils.LINE_SEPARATOR;
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 import static org.apache.maven.surefire.report.CategorizedReportEntry.reportEntry;
@@ -11,12 +9,11 @@ import static org.apache.maven.surefire.report.CategorizedReportEntry.reportEntr
 import java.io.File;
 import java.util.HashSet;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Set;
 
 import javax.inject.Named;
 
-import com.google.common.collect.*;
+import com.redhat.repository.validator.ExceptionVisitor;
 import com.redhat.repository.validator.Reporter;
 import com.redhat.repository.validator.ValidatorContext;
 import com.redhat.repository.validator.impl.bom.BomAmbiguousVersionException;
@@ -34,7 +31,6 @@ import org.apache.maven.surefire.report.ReportEntry;
 import org.apache.maven.surefire.report.SafeThrowable;
 import org.apache.maven.surefire.report.StackTraceWriter;
 import org.eclipse.aether.artifact.Artifact;
-import org.eclipse.aether.graph.DependencyNode;
 
 @Named
 public class SurefireXmlReporter implements Reporter {
@@ -76,69 +72,82 @@ public class SurefireXmlReporter implements Reporter {
             FileUtils.forceMkdir(reportsDirectory);
             FileUtils.cleanDirectory(reportsDirectory);
 
-            List<Exception> exceptions = sortExceptions(ctx.getExceptions());
-            List<Exception> filteredExceptions = sortExceptions(ctx.getIgnoredExceptions());
+            Set<Class<? extends Exception>> exceptionTypes = new HashSet<Class<? extends Exception>>(ctx.getExceptionTypes());
+            exceptionTypes.addAll(ctx.getIgnoredExceptionTypes());
             // in case no exceptions were reported, create dummy successful test suite,
             // fixes https://github.com/thradec/redhat-repository-validator/issues/12
-            if (exceptions.isEmpty() && filteredExceptions.isEmpty()) {
+            if (exceptionTypes.isEmpty()) {
                 TestSetStats testSuite = new TestSetStats(false, false);
                 testSuite.testSucceeded(testCase("NoErrorsOrWarningsFound", ReportEntryType.success,
                         "No errors or warnings have been found during the validation.", null));
                 reportTestSuite("NoErrorsOrWarningsFound", testSuite);
             }
-            reportMissingDependencies("DependencyNotFoundReport", DependencyNotFoundException.class, exceptions, filteredExceptions);
-            reportMissingDependencies("BomDependencyNotFoundReport", BomDependencyNotFoundException.class, exceptions, filteredExceptions);
-            List<BomAmbiguousVersionException> bomAmbiguousVersionsExs = ctx.getExceptions(BomAmbiguousVersionException.class);
-            reportAmbiguousDependencyVersionInBoms(bomAmbiguousVersionsExs);
-            exceptions.removeAll(bomAmbiguousVersionsExs);
-            reportExceptions(exceptions, filteredExceptions);
+            reportMissingDependencies("DependencyNotFoundReport", DependencyNotFoundException.class, ctx);
+            reportMissingDependencies("BomDependencyNotFoundReport", BomDependencyNotFoundException.class, ctx);
+            reportAmbiguousDependencyVersionInBoms(ctx);
+            // exceptions are visited type by type and read one at a time, so spooled errors don't have to fit into memory,
+            // only report entries of one test suite are kept until it is written
+            for (Class<? extends Exception> exceptionType : sortExceptionTypes(exceptionTypes)) {
+                if (exceptionType.equals(DependencyNotFoundException.class) || exceptionType.equals(BomDependencyNotFoundException.class)) {
+                    continue;
+                }
+                reportExceptions(exceptionType, !exceptionType.equals(BomAmbiguousVersionException.class), ctx);
+            }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void reportMissingDependencies(String type, Class<? extends DependencyNotFoundException> exceptionType,
-            List<Exception> exceptions, List<Exception> filteredExceptions) {
-        ListMultimap<Artifact, DependencyNode> artifactNotFoundMap = collectDependencyNotFoundData(exceptions, exceptionType);
-        ListMultimap<Artifact, DependencyNode> filteredArtifactNotFoundMap = collectDependencyNotFoundData(filteredExceptions, exceptionType);
+    private void reportMissingDependencies(String type, Class<? extends DependencyNotFoundException> exceptionType, ValidatorContext ctx) {
         TestSetStats testSuite = new TestSetStats(false, false);
-        reportMissingDependencies(type, artifactNotFoundMap, ReportEntryType.error, testSuite);
-        reportMissingDependencies(type, filteredArtifactNotFoundMap, ReportEntryType.skipped, testSuite);
+        MissingDependencyVisitor errorVisitor = missingDependencyVisitor(type, ReportEntryType.error, testSuite);
+        ctx.visitExceptionsOfClass(exceptionType, errorVisitor);
+        errorVisitor.finish();
+        MissingDependencyVisitor skippedVisitor = missingDependencyVisitor(type, ReportEntryType.skipped, testSuite);
+        ctx.visitIgnoredExceptionsOfClass(exceptionType, skippedVisitor);
+        skippedVisitor.finish();
         reportTestSuite(type, testSuite);
     }
 
-    private void reportMissingDependencies(String type, ListMultimap<Artifact, DependencyNode> artifactNotFoundMap,
+    private MissingDependencyVisitor missingDependencyVisitor(final String type, final ReportEntryType reportEntryType, final TestSetStats testSuite) {
+        return new MissingDependencyVisitor() {
+            @Override
+            protected void visitMissingDependency(Artifact artifact, List<DependencyNotFoundException> roots) {
+                reportMissingDependency(type, artifact, roots, reportEntryType, testSuite);
+            }
+        };
+    }
+
+    private void reportMissingDependency(String type, Artifact artifact, List<DependencyNotFoundException> roots,
             ReportEntryType reportEntryType, TestSetStats testSuite) {
-        for (Artifact artifact : sortArtifacts(artifactNotFoundMap.keySet())) {
-            List<DependencyNode> roots = sortDependencyNodes(artifactNotFoundMap.get(artifact));
-            if (roots.size() == 1) {
-                String path = "path " + findPathToDependency(artifact, roots.get(0));
-                String msg = "Miss " + artifact + " in " + roots.get(0).getArtifact() + " (" + path + ")";
-                reportTestCase(type, reportEntryType, msg, path, testSuite);
-            } else {
-                String msg = "Miss " + artifact + " in " + roots.size() + " artifacts ...";
-                StringBuilder dsc = new StringBuilder();
-                dsc.append("Miss " + artifact + " in ...");
+        if (roots.size() == 1) {
+            String path = "path " + formatDependencyPaths(roots.get(0).getPaths());
+            String msg = "Miss " + artifact + " in " + roots.get(0).getRootArtifact() + " (" + path + ")";
+            reportTestCase(type, reportEntryType, msg, path, testSuite);
+        } else {
+            String msg = "Miss " + artifact + " in " + roots.size() + " artifacts ...";
+            StringBuilder dsc = new StringBuilder();
+            dsc.append("Miss " + artifact + " in ...");
+            dsc.append(LINE_SEPARATOR).append(LINE_SEPARATOR);
+            for (DependencyNotFoundException root : roots) {
+                dsc.append(root.getRootArtifact() + " (path " + formatDependencyPaths(root.getPaths()) + ")");
                 dsc.append(LINE_SEPARATOR).append(LINE_SEPARATOR);
-                for (DependencyNode root : roots) {
-                    dsc.append(root.getArtifact() + " (path " + findPathToDependency(artifact, root) + ")");
-                    dsc.append(LINE_SEPARATOR).append(LINE_SEPARATOR);
-                }
-                reportTestCase(type, reportEntryType, msg, dsc.toString(), testSuite);
             }
+            reportTestCase(type, reportEntryType, msg, dsc.toString(), testSuite);
         }
     }
 
-    private void reportAmbiguousDependencyVersionInBoms(List<BomAmbiguousVersionException> exceptions) {
-        TestSetStats testSuite = new TestSetStats(false, false);
-        // the list may contain duplicates, because the exception is inserted for each BOM in the repo
-        // e.g. if there are there boms declaring different version for some artifact, there will be three
-        // identical exceptions in the list
-        Set<BomAmbiguousVersionException> uniqueExceptions = new HashSet<BomAmbiguousVersionException>(exceptions);
-        for (BomAmbiguousVersionException ex : uniqueExceptions) {
-            String description = ex.getMessage() + "\n\n" + formatAmbiguousDependencies(ex.getAmbiguousDependencies());
-            reportTestCase("BomAmbiguousVersionReport", ReportEntryType.error, ex.getMessage(), description, testSuite);
-        }
+    private void reportAmbiguousDependencyVersionInBoms(ValidatorContext ctx) {
+        final TestSetStats testSuite = new TestSetStats(false, false);
+        // the exception is inserted for each BOM in the repo, e.g. if there are three boms declaring different version
+        // for some artifact, there will be three identical exceptions, visitor passes only distinct ones
+        ctx.visitExceptionsOfClass(BomAmbiguousVersionException.class, new ExceptionVisitor<BomAmbiguousVersionException>() {
+            @Override
+            public void visit(BomAmbiguousVersionException ex) {
+                String description = ex.getMessage() + "\n\n" + formatAmbiguousDependencies(ex.getAmbiguousDependencies());
+                reportTestCase("BomAmbiguousVersionReport", ReportEntryType.error, ex.getMessage(), description, testSuite);
+            }
+        });
         reportTestSuite("BomAmbiguousVersionReport", testSuite);
     }
 
@@ -152,43 +161,23 @@ public class SurefireXmlReporter implements Reporter {
         return msgSb.toString();
     }
 
-    private void reportExceptions(List<Exception> exceptionList, List<Exception> ignoredExceptions) {
-        Multimap<Class<? extends Exception>, Exception> exceptionMultimap = LinkedListMultimap.create();
-        for (Exception exception : exceptionList) {
-            exceptionMultimap.put(exception.getClass(), exception);
-        }
-        for (Exception exception : ignoredExceptions) {
-            exceptionMultimap.put(exception.getClass(), exception);
-        }
-
-        for (Class<? extends Exception> exceptionType : exceptionMultimap.keySet()) {
-            TestSetStats testSuiteData = new TestSetStats(false, false);
-            for (Exception exception : exceptionMultimap.get(exceptionType)) {
-                if (ignoredExceptions.contains(exception)) {
-                    testSuiteData.testSkipped(testCase(exception, ReportEntryType.skipped));
-                } else {
+    private void reportExceptions(Class<? extends Exception> exceptionType, boolean includeErrors, ValidatorContext ctx) {
+        final TestSetStats testSuiteData = new TestSetStats(false, false);
+        if (includeErrors) {
+            ctx.visitExceptionsOfClass(exceptionType, new ExceptionVisitor<Exception>() {
+                @Override
+                public void visit(Exception exception) {
                     testSuiteData.testError(testCase(exception, ReportEntryType.error));
                 }
-            }
-            reportTestSuite(exceptionType.getSimpleName(), testSuiteData);
+            });
         }
-    }
-
-
-    private ListMultimap<Artifact, DependencyNode> collectDependencyNotFoundData(List<Exception> exceptionList,
-            Class<? extends DependencyNotFoundException> exceptionType) {
-        ListMultimap<Artifact, DependencyNode> artifactNotFoundMap = ArrayListMultimap.create();
-
-        ListIterator<Exception> exceptionIterator = exceptionList.listIterator();
-        while (exceptionIterator.hasNext()) {
-            Exception e = exceptionIterator.next();
-            if (e.getClass().equals(exceptionType)) {
-                DependencyNode from = exceptionType.cast(e).getDependencyNode();
-                artifactNotFoundMap.put(exceptionType.cast(e).getMissingArtifact(), from);
-                exceptionIterator.remove();
+        ctx.visitIgnoredExceptionsOfClass(exceptionType, new ExceptionVisitor<Exception>() {
+            @Override
+            public void visit(Exception exception) {
+                testSuiteData.testSkipped(testCase(exception, ReportEntryType.skipped));
             }
-        }
-        return artifactNotFoundMap;
+        });
+        reportTestSuite(exceptionType.getSimpleName(), testSuiteData);
     }
 
     private void reportTestCase(String type, ReportEntryType reportEntryType, String message, String description, TestSetStats testSuite) {
@@ -17,12 +17,17 @@ import org.apache.maven.model.building.ModelBuildingResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.redhat.repository.validator.Incremental;
+import com.redhat.repository.validator.RunsAfter;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.DependenciesValidator;
 import com.redhat.repository.validator.internal.ValidatorSupport;
 
 // https://docs.sonatype.org/display/Repository/Central+Sync+Requirements
 @Named
+@RunsAfter(DependenciesValidator.class)
+@Incremental
 public class BestPracticesValidator implements Validator {
 
     private static final Logger logger = LoggerFactory.getLogger(BestPracticesValidator.class);
@@ -3,7 +3,10 @@ package com.redhat.repository.validator.impl.bom;
 import static com.redhat.repository.validator.internal.Utils.relativize;
 
 import java.io.File;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -19,12 +22,15 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 
-import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.RunsAfter;
+import com.redhat.repository.validator.ShardableValidator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.DependenciesValidator;
 import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
-public class BomAmbiguousVersionValidator implements Validator {
+@RunsAfter(DependenciesValidator.class)
+public class BomAmbiguousVersionValidator implements ShardableValidator<BomAmbiguousVersionValidator.BomDependencies> {
 
     @Inject @Named("bomAmbiguousVersionValidatorFilter")
     private IOFileFilter fileFilter;
@@ -35,11 +41,31 @@ public class BomAmbiguousVersionValidator implements Validator {
 
     @Override
     public void validate(ValidatorContext ctx) {
-        validateAmbiguousVersions(ctx);
+        validateFacts(ctx, collectFacts(ctx));
+    }
+
+    @Override
+    public List<BomDependencies> collectFacts(ValidatorContext ctx) {
+        List<BomDependencies> bomDependenciesList = new ArrayList<BomDependencies>();
+        Iterator<Model> modelIterator = validatorSupport.effectiveModelIterator(ctx, fileFilter);
+        while (modelIterator.hasNext()) {
+            Model model = modelIterator.next();
+            if (model != null) {
+                if( bomFilter.isBom(model) ) {
+                    bomDependenciesList.add(new BomDependencies(relativize(ctx, model.getPomFile()), model.getDependencyManagement().getDependencies()));
+                }
+            }
+        }
+        return bomDependenciesList;
+    }
+
+    @Override
+    public void validateFacts(ValidatorContext ctx, List<BomDependencies> bomDependenciesList) {
+        validateAmbiguousVersions(ctx, bomDependenciesList);
     }
     
-    private void validateAmbiguousVersions(ValidatorContext ctx) {
-        Map<DepKey, Map<DepVersion, List<Pair<Dependency, File>>>> dependencies = collectDependencies(ctx);
+    private void validateAmbiguousVersions(ValidatorContext ctx, List<BomDependencies> bomDependenciesList) {
+        Map<DepKey, Map<DepVersion, List<Pair<Dependency, File>>>> dependencies = collectDependencies(bomDependenciesList);
         for (DepKey depKey : dependencies.keySet()) {
             Map<DepVersion, List<Pair<Dependency, File>>> versions = dependencies.get(depKey);
             if (versions.size() > 1) {
@@ -55,39 +81,57 @@ public class BomAmbiguousVersionValidator implements Validator {
         }
     }
 
-    private Map<DepKey, Map<DepVersion, List<Pair<Dependency, File>>>> collectDependencies(ValidatorContext ctx) {
+    private Map<DepKey, Map<DepVersion, List<Pair<Dependency, File>>>> collectDependencies(List<BomDependencies> bomDependenciesList) {
         Map<DepKey, Map<DepVersion, List<Pair<Dependency, File>>>> dependencies = new HashMap<DepKey, Map<DepVersion, List<Pair<Dependency, File>>>>();
-        
-        Iterator<Model> modelIterator = validatorSupport.effectiveModelIterator(ctx, fileFilter);
-        while (modelIterator.hasNext()) {
-            Model model = modelIterator.next();
-            if (model != null) {
-                if( bomFilter.isBom(model) ) {
-                    for (Dependency dependency : model.getDependencyManagement().getDependencies()) {
-                        DepKey depKey = new DepKey(dependency);
-                        DepVersion depVersion = new DepVersion(dependency);
-
-                        Map<DepVersion, List<Pair<Dependency, File>>> versions = dependencies.get(depKey);
-                        if (versions == null) {
-                            versions = new HashMap<DepVersion, List<Pair<Dependency, File>>>();
-                            dependencies.put(depKey, versions);
-                        }
-
-                        List<Pair<Dependency, File>> pairs = versions.get(depVersion);
-                        if (pairs == null) {
-                            pairs = new ArrayList<Pair<Dependency, File>>();
-                            versions.put(depVersion, pairs);
-                        }
-
-                        pairs.add(new ImmutablePair<Dependency, File>(dependency, relativize(ctx, model.getPomFile())));
-                    }
+
+        List<BomDependencies> sortedBomDependenciesList = new ArrayList<BomDependencies>(bomDependenciesList);
+        Collections.sort(sortedBomDependenciesList, new Comparator<BomDependencies>() {
+            @Override
+            public int compare(BomDependencies d1, BomDependencies d2) {
+                return d1.bomFile.getPath().compareTo(d2.bomFile.getPath());
+            }
+        });
+        for (BomDependencies bomDependencies : sortedBomDependenciesList) {
+            for (Dependency dependency : bomDependencies.dependencies) {
+                DepKey depKey = new DepKey(dependency);
+                DepVersion depVersion = new DepVersion(dependency);
+
+                Map<DepVersion, List<Pair<Dependency, File>>> versions = dependencies.get(depKey);
+                if (versions == null) {
+                    versions = new HashMap<DepVersion, List<Pair<Dependency, File>>>();
+                    dependencies.put(depKey, versions);
+                }
+
+                List<Pair<Dependency, File>> pairs = versions.get(depVersion);
+                if (pairs == null) {
+                    pairs = new ArrayList<Pair<Dependency, File>>();
+                    versions.put(depVersion, pairs);
                 }
+
+                pairs.add(new ImmutablePair<Dependency, File>(dependency, bomDependencies.bomFile));
             }
         }
 
         return dependencies;
     }
 
+    /**
+     * Managed dependencies of bom, which is referred by path relative to validated repository.
+     */
+    public static class BomDependencies implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File bomFile;
+        private final ArrayList<Dependency> dependencies;
+
+        private BomDependencies(File bomFile, List<Dependency> dependencies) {
+            this.bomFile = bomFile;
+            this.dependencies = new ArrayList<Dependency>(dependencies);
+        }
+
+    }
+
     private static class DepKey {
 
         private final String key;
@@ -1,9 +1,12 @@
 package com.redhat.repository.validator.impl.bom;
 
+import java.util.List;
+
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.graph.DependencyNode;
 
 import com.redhat.repository.validator.impl.DependencyNotFoundException;
+import com.redhat.repository.validator.internal.DependencyPathIndex;
 
 public class BomDependencyNotFoundException extends DependencyNotFoundException {
     private static final long serialVersionUID = 1L;
@@ -12,4 +15,12 @@ public class BomDependencyNotFoundException extends DependencyNotFoundException
         super(cause, missingArtifact, validatedArtifact, dependencyNode);
     }
 
+    public BomDependencyNotFoundException(Exception cause, Artifact missingArtifact, Artifact validatedArtifact, DependencyNode dependencyNode, DependencyPathIndex pathIndex) {
+        super(cause, missingArtifact, validatedArtifact, dependencyNode, pathIndex);
+    }
+
+    public BomDependencyNotFoundException(Exception cause, Artifact missingArtifact, Artifact validatedArtifact, Artifact rootArtifact, List<List<Artifact>> paths) {
+        super(cause, missingArtifact, validatedArtifact, rootArtifact, paths);
+    }
+
 }
\ No newline at end of file
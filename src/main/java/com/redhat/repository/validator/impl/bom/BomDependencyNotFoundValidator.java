@@ -3,35 +3,40 @@ package com.redhat.repository.validator.impl.bom;
 import static com.redhat.repository.validator.internal.Utils.findCause;
 import static com.redhat.repository.validator.internal.Utils.relativize;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.commons.io.filefilter.IOFileFilter;
 import org.apache.maven.model.Model;
-import org.eclipse.aether.RepositorySystem;
+import org.apache.maven.model.Repository;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
-import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.graph.Dependency;
-import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
-import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
 import org.eclipse.aether.util.artifact.JavaScopes;
-import org.eclipse.aether.util.filter.DependencyFilterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
+import com.redhat.repository.validator.Incremental;
+import com.redhat.repository.validator.RunsAfter;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
-import com.redhat.repository.validator.internal.Utils;
+import com.redhat.repository.validator.impl.DependenciesValidator;
+import com.redhat.repository.validator.internal.DependencyGraphMemo;
 import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
+@RunsAfter(DependenciesValidator.class)
+@Incremental(remote = true)
 public class BomDependencyNotFoundValidator implements Validator {
 
     private static final Logger logger = LoggerFactory.getLogger(BomDependencyNotFoundValidator.class);
@@ -39,60 +44,174 @@ public class BomDependencyNotFoundValidator implements Validator {
     @Inject @Named("bomDependencyNotFoundValidatorFilter")
     private IOFileFilter fileFilter;
     @Inject
-    private RepositorySystem repositorySystem;
-    @Inject
     private RepositorySystemSession repositorySystemSession;
     @Inject
     private ValidatorSupport validatorSupport;
     @Inject
     private BomFilter bomFilter;
+    @Inject
+    private DependencyGraphMemo dependencyGraphMemo;
+
+    private final boolean batched;
+    private final int threads;
+
+    public BomDependencyNotFoundValidator() {
+        this(false, 0);
+    }
+
+    /**
+     * @param batched if true, managed dependencies of all boms are deduplicated and resolved concurrently, 
+     *                missing artifacts are then reported for every bom which declares them
+     * @param threads number of concurrent resolutions in batched mode, zero means same number as global validation threads
+     */
+    public BomDependencyNotFoundValidator(boolean batched, int threads) {
+        this.batched = batched;
+        this.threads = threads;
+    }
 
     @Override
     public void validate(ValidatorContext ctx) {
+        List<BomEntry> boms = new ArrayList<BomEntry>();
         Iterator<Model> modelIterator = validatorSupport.effectiveModelIterator(ctx, fileFilter);
         while (modelIterator.hasNext()) {
             Model model = modelIterator.next();
             if (model != null) {
                 if (bomFilter.isBom(model)) {
-                    logger.trace("validating {}", relativize(ctx, model.getPomFile()));
-                    validateBomDependencies(ctx, model);
+                    if (batched) {
+                        boms.add(new BomEntry(model));
+                    } else {
+                        logger.trace("validating {}", relativize(ctx, model.getPomFile()));
+                        validateBomDependencies(ctx, new BomEntry(model));
+                    }
                 }
             }
         }
+        if (batched) {
+            validateBomDependenciesBatched(ctx, boms);
+        }
     }
 
-    private void validateBomDependencies(ValidatorContext ctx, Model bom) {
-        Artifact bomArtifact = new DefaultArtifact(bom.getGroupId(), bom.getArtifactId(), bom.getPackaging(), bom.getVersion());
-        Dependency bomDependency = new Dependency(bomArtifact, JavaScopes.COMPILE);
-        for (org.apache.maven.model.Dependency dependency : bom.getDependencyManagement().getDependencies()) {
-            validateBomDependency(ctx, bom, bomDependency, validatorSupport.convert(dependency));
+    private void validateBomDependencies(ValidatorContext ctx, BomEntry bom) {
+        for (Dependency dependency : bom.managedDependencies) {
+            reportResult(ctx, bom, resolve(ctx, bom, dependency));
         }
     }
 
-    private void validateBomDependency(ValidatorContext ctx, Model bom, Dependency bomDependency, Dependency dependency) {
-        CollectRequest collectRequest = new CollectRequest(
-                bomDependency,
-                Collections.singletonList(dependency),
-                ctx.getRemoteRepositories());
+    private void validateBomDependenciesBatched(final ValidatorContext ctx, List<BomEntry> boms) {
+        // same managed dependencies are resolved in one task, so the first resolution is reused by others via memo
+        Map<Object, List<BomDependency>> groups = new LinkedHashMap<Object, List<BomDependency>>();
+        int count = 0;
+        for (BomEntry bom : boms) {
+            for (Dependency dependency : bom.managedDependencies) {
+                Object key = dependencyGraphMemo.createKey(dependency, bom.memoContext);
+                List<BomDependency> group = groups.get(key);
+                if (group == null) {
+                    group = new ArrayList<BomDependency>();
+                    groups.put(key, group);
+                }
+                BomDependency bomDependency = new BomDependency(bom, dependency);
+                group.add(bomDependency);
+                bom.dependencies.add(bomDependency);
+                count++;
+            }
+        }
+        logger.debug("resolving {} distinct dependencies of {} managed dependencies in {} boms", groups.size(), count, boms.size());
+
+        validatorSupport.mapInOrder(groups.values(), threads, new Function<List<BomDependency>, Void>() {
+            @Override
+            public Void apply(List<BomDependency> group) {
+                for (BomDependency bomDependency : group) {
+                    bomDependency.result = resolve(ctx, bomDependency.bom, bomDependency.dependency);
+                }
+                return null;
+            }
+        });
+
+        // errors are registered in order of boms and their managed dependencies, same as in sequential mode
+        for (BomEntry bom : boms) {
+            for (BomDependency bomDependency : bom.dependencies) {
+                reportResult(ctx, bom, bomDependency.result);
+            }
+        }
+    }
 
-        DependencyRequest dependencyRequest = new DependencyRequest(
-                collectRequest,
-                DependencyFilterUtils.classpathFilter(JavaScopes.COMPILE));
+    private DependencyGraphMemo.Result resolve(ValidatorContext ctx, BomEntry bom, Dependency dependency) {
+        return dependencyGraphMemo.resolve(
+                repositorySystemSession, 
+                bom.bomDependency, 
+                dependency, 
+                bom.managedDependencies, 
+                ctx.getRemoteRepositories(), 
+                bom.memoContext);
+    }
 
-        try {
-            repositorySystem.resolveDependencies(repositorySystemSession, dependencyRequest);
-        } catch (DependencyResolutionException e) {
+    /**
+     * Each bom gets its own resolution exception (see {@link DependencyGraphMemo.Result#getException()}),
+     * it is the cause of all errors of the bom, while its cause is shared by all boms reusing the memoized resolution.
+     * Shared causes are kept in memory once, but error spool serializes the whole cause chain with each error.
+     */
+    private void reportResult(ValidatorContext ctx, BomEntry bom, DependencyGraphMemo.Result result) {
+        DependencyResolutionException e = result.getException();
+        if (e != null) {
+            Model model = bom.model;
             ArtifactResolutionException are = findCause(e, ArtifactResolutionException.class);
             if( are == null ) {
-                ctx.addError(this, bom.getPomFile(), e);
+                ctx.addError(this, model.getPomFile(), e);
             } else {
-                DependencyNode dependencyNode = e.getResult().getRoot();
-                Artifact validatedArtifact = new DefaultArtifact(bom.getGroupId(), bom.getArtifactId(), bom.getPackaging(), bom.getVersion());
-                for (Artifact missingArtifact : Utils.collectMissingArtifacts(are)) {
-                    ctx.addError(this, bom.getPomFile(), new BomDependencyNotFoundException(e, missingArtifact, validatedArtifact, dependencyNode));                
+                Artifact validatedArtifact = new DefaultArtifact(model.getGroupId(), model.getArtifactId(), model.getPackaging(), model.getVersion());
+                for (Artifact missingArtifact : result.getMissingArtifacts()) {
+                    ctx.addError(this, model.getPomFile(), 
+                            new BomDependencyNotFoundException(e, missingArtifact, validatedArtifact, result.getRootArtifact(), result.getPaths(missingArtifact)));
                 }
             }
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Repositories and dependencies declared by bom take part in resolution of each managed dependency, 
+     * so memoized graphs are shared only between boms which declare the same.
+     */
+    private Object createMemoContext(Model bom) {
+        List<String> memoContext = new ArrayList<String>();
+        for (Repository repository : bom.getRepositories()) {
+            memoContext.add(repository.getId() + "=" + repository.getUrl());
+        }
+        for (org.apache.maven.model.Dependency dependency : bom.getDependencies()) {
+            memoContext.add(validatorSupport.convert(dependency).toString());
+        }
+        return memoContext;
+    }
+
+    private class BomEntry {
+
+        private final Model model;
+        private final Dependency bomDependency;
+        private final List<Dependency> managedDependencies = new ArrayList<Dependency>();
+        private final Object memoContext;
+        private final List<BomDependency> dependencies = new ArrayList<BomDependency>();
+
+        private BomEntry(Model model) {
+            this.model = model;
+            this.bomDependency = new Dependency(new DefaultArtifact(model.getGroupId(), model.getArtifactId(), model.getPackaging(), model.getVersion()), JavaScopes.COMPILE);
+            for (org.apache.maven.model.Dependency dependency : model.getDependencyManagement().getDependencies()) {
+                managedDependencies.add(validatorSupport.convert(dependency));
+            }
+            this.memoContext = createMemoContext(model);
+        }
+
+    }
+
+    private static class BomDependency {
+
+        private final BomEntry bom;
+        private final Dependency dependency;
+        private volatile DependencyGraphMemo.Result result;
+
+        private BomDependency(BomEntry bom, Dependency dependency) {
+            this.bom = bom;
+            this.dependency = dependency;
+        }
+
+    }
+
+}
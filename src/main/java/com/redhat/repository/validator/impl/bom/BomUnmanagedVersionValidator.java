@@ -1,10 +1,15 @@
 package com.redhat.repository.validator.impl.bom;
 
 import static com.redhat.repository.validator.internal.Utils.gav;
+import static com.redhat.repository.validator.internal.Utils.relativePath;
 import static com.redhat.repository.validator.internal.ValidatorSupport.listPomFiles;
 
 import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -20,12 +25,16 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
-import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.RunsAfter;
+import com.redhat.repository.validator.ShardableValidator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.DependenciesValidator;
+import com.redhat.repository.validator.impl.ModelValidator;
 import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
-public class BomUnmanagedVersionValidator implements Validator {
+@RunsAfter({ DependenciesValidator.class, ModelValidator.class })
+public class BomUnmanagedVersionValidator implements ShardableValidator<BomUnmanagedVersionValidator.PomGavs> {
 
     private static final Logger logger = LoggerFactory.getLogger(BomUnmanagedVersionValidator.class);
 
@@ -38,35 +47,62 @@ public class BomUnmanagedVersionValidator implements Validator {
 
     @Override
     public void validate(ValidatorContext ctx) {
-        Map<String, File> projectGavToFileMap = Maps.newHashMap();
-        ListMultimap<String, String> dependencyGavToBomGavMap = ArrayListMultimap.create();
-        
-        collectData(ctx, projectGavToFileMap, dependencyGavToBomGavMap);
-        findUnmanagedVersions(ctx, projectGavToFileMap, dependencyGavToBomGavMap);
+        validateFacts(ctx, collectFacts(ctx));
     }
 
-    private void collectData(ValidatorContext ctx, Map<String, File> projectGavToFileMap, ListMultimap<String, String> dependencyGavToBomGavMap) {
-        Collection<File> pomFiles = listPomFiles(ctx.getValidatedRepository(), fileFilter);
+    @Override
+    public List<PomGavs> collectFacts(ValidatorContext ctx) {
+        List<PomGavs> pomGavsList = new ArrayList<PomGavs>();
+        Collection<File> pomFiles = listPomFiles(ctx, fileFilter);
         for (File pomFile : pomFiles) {
-            if (!ctx.getErrors(pomFile).isEmpty()) {
+            if (ctx.hasErrors(pomFile)) {
                 logger.debug("skipping `{}`, because already contains exceptions", pomFile);
                 continue;
             }
 
             Model model = validatorSupport.buildModel(pomFile).getEffectiveModel();
+            String path = relativePath(ctx.getValidatedRepository(), model.getPomFile());
             if (model.getPackaging().equals("pom")) {
                 if (bomFilter.isBom(model)) {
-                    String bomGav = gav(model);
+                    ArrayList<String> dependencyGavs = new ArrayList<String>();
                     for (Dependency bomDependency : model.getDependencyManagement().getDependencies()) {
-                        String dependencyGav = gav(bomDependency);
-                        dependencyGavToBomGavMap.put(dependencyGav, bomGav);
+                        dependencyGavs.add(gav(bomDependency));
                     }
+                    pomGavsList.add(new PomGavs(path, gav(model), dependencyGavs));
                 }
             } else if( model.getPackaging().equals("maven-plugin") || model.getPackaging().equals("maven-archetype") ) {
                 // skip, maven plugins and archetypes are not managed in boms
             } else {
-                String projectGav = gav(model);
-                projectGavToFileMap.put(projectGav, model.getPomFile());
+                pomGavsList.add(new PomGavs(path, gav(model), null));
+            }
+        }
+        return pomGavsList;
+    }
+
+    @Override
+    public void validateFacts(ValidatorContext ctx, List<PomGavs> pomGavsList) {
+        Map<String, File> projectGavToFileMap = Maps.newHashMap();
+        ListMultimap<String, String> dependencyGavToBomGavMap = ArrayListMultimap.create();
+
+        collectData(ctx, pomGavsList, projectGavToFileMap, dependencyGavToBomGavMap);
+        findUnmanagedVersions(ctx, projectGavToFileMap, dependencyGavToBomGavMap);
+    }
+
+    private void collectData(ValidatorContext ctx, List<PomGavs> pomGavsList, Map<String, File> projectGavToFileMap, ListMultimap<String, String> dependencyGavToBomGavMap) {
+        List<PomGavs> sortedPomGavsList = new ArrayList<PomGavs>(pomGavsList);
+        Collections.sort(sortedPomGavsList, new Comparator<PomGavs>() {
+            @Override
+            public int compare(PomGavs g1, PomGavs g2) {
+                return g1.path.compareTo(g2.path);
+            }
+        });
+        for (PomGavs pomGavs : sortedPomGavsList) {
+            if (pomGavs.bomDependencyGavs != null) {
+                for (String dependencyGav : pomGavs.bomDependencyGavs) {
+                    dependencyGavToBomGavMap.put(dependencyGav, pomGavs.gav);
+                }
+            } else {
+                projectGavToFileMap.put(pomGavs.gav, new File(ctx.getValidatedRepository(), pomGavs.path));
             }
         }
     }
@@ -84,4 +120,23 @@ public class BomUnmanagedVersionValidator implements Validator {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Gav of project or bom, bom contains also gavs of its managed dependencies.
+     */
+    public static class PomGavs implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+        private final String gav;
+        private final ArrayList<String> bomDependencyGavs;
+
+        private PomGavs(String path, String gav, ArrayList<String> bomDependencyGavs) {
+            this.path = path;
+            this.gav = gav;
+            this.bomDependencyGavs = bomDependencyGavs;
+        }
+
+    }
+
+}
@@ -18,11 +18,17 @@ import org.apache.maven.model.building.ModelBuildingResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.redhat.repository.validator.Incremental;
+import com.redhat.repository.validator.RunsAfter;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.DependenciesValidator;
+import com.redhat.repository.validator.impl.ModelValidator;
 import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
+@RunsAfter({ DependenciesValidator.class, ModelValidator.class })
+@Incremental
 public class BomVersionPropertyValidator implements Validator {
     
     private static final Logger logger = LoggerFactory.getLogger(BomVersionPropertyValidator.class);
@@ -36,9 +42,9 @@ public class BomVersionPropertyValidator implements Validator {
 
     @Override
     public void validate(ValidatorContext ctx) {
-        Collection<File> pomFiles = listPomFiles(ctx.getValidatedRepository(), fileFilter);
+        Collection<File> pomFiles = listPomFiles(ctx, fileFilter);
         for (File pomFile : pomFiles) {
-            if (!ctx.getErrors(pomFile).isEmpty()) {
+            if (ctx.hasErrors(pomFile)) {
                 logger.debug("skipping `{}`, because already contains exceptions", pomFile);
                 continue;
             }
@@ -1,10 +1,8 @@
 package com.redhat.repository.validator.impl.checksum;
 
 import static com.redhat.repository.validator.internal.Utils.relativize;
-import static org.apache.commons.io.FileUtils.listFiles;
 import static org.apache.commons.io.filefilter.FileFilterUtils.and;
 import static org.apache.commons.io.filefilter.FileFilterUtils.notFileFilter;
-import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
 import static org.apache.commons.lang3.StringUtils.equalsIgnoreCase;
 
 import java.io.File;
@@ -12,22 +10,30 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
 import org.apache.commons.io.filefilter.SuffixFileFilter;
-import org.eclipse.aether.util.ChecksumUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
+import com.redhat.repository.validator.Incremental;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.internal.ChecksumEngine;
+import com.redhat.repository.validator.internal.RepositoryIndex;
+import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
+@Incremental
 public class ChecksumValidator implements Validator {
     
     private static final Logger logger = LoggerFactory.getLogger(ChecksumValidator.class);
@@ -40,41 +46,104 @@ public class ChecksumValidator implements Validator {
 
     @Inject @Named("checksumValidatorFilter")
     private IOFileFilter fileFilter;
+    @Inject
+    private ChecksumEngine checksumEngine;
+    @Inject
+    private ValidatorSupport validatorSupport;
 
     @Override
-    public void validate(ValidatorContext ctx) {
+    public void validate(final ValidatorContext ctx) {
+        long start = System.currentTimeMillis();
         Collection<File> files = findFiles(ctx);
+
+        // files are validated per directory, so sidecar checksum files are read during the same directory visit
+        Map<File, List<File>> filesByDirectory = new LinkedHashMap<File, List<File>>();
+        for (File file : files) {
+            List<File> directoryFiles = filesByDirectory.get(file.getParentFile());
+            if (directoryFiles == null) {
+                directoryFiles = new ArrayList<File>();
+                filesByDirectory.put(file.getParentFile(), directoryFiles);
+            }
+            directoryFiles.add(file);
+        }
+
+        Map<File, List<Exception>> errors = new HashMap<File, List<Exception>>();
+        List<Map<File, List<Exception>>> directoryErrors = validatorSupport.mapInOrder(filesByDirectory.entrySet(), 0, new Function<Entry<File, List<File>>, Map<File, List<Exception>>>() {
+            @Override
+            public Map<File, List<Exception>> apply(Entry<File, List<File>> directory) {
+                return validateDirectory(ctx, directory.getKey(), directory.getValue());
+            }
+        });
+        for (Map<File, List<Exception>> directoryError : directoryErrors) {
+            errors.putAll(directoryError);
+        }
+
+        // errors are registered in order of files, so output doesn't depend on number of threads
+        long bytes = 0;
+        for (File file : files) {
+            for (Exception error : errors.get(file)) {
+                ctx.addError(this, file, error);
+            }
+            bytes += ctx.getRepositoryIndex().getEntry(file).getSize();
+        }
+
+        long time = Math.max(System.currentTimeMillis() - start, 1);
+        logger.info("checksums of {} files ({} MB) validated in {} ms, {} MB/s", 
+                files.size(), bytes / (1024 * 1024), time, String.format("%.1f", bytes * 1000.0 / time / (1024 * 1024)));
+    }
+
+    private Map<File, List<Exception>> validateDirectory(ValidatorContext ctx, File dir, List<File> files) {
+        Map<File, String> checksumFiles = readChecksumFiles(ctx, dir);
+        Map<File, List<Exception>> errors = new HashMap<File, List<Exception>>();
         for (File file : files) {
             logger.trace("validating {}", relativize(ctx, file));
-            validateChecksum(ctx, file);
+            errors.put(file, validateChecksum(ctx, file, checksumFiles));
+        }
+        return errors;
+    }
+
+    private Map<File, String> readChecksumFiles(ValidatorContext ctx, File dir) {
+        Map<File, String> checksumFiles = new HashMap<File, String>();
+        for (RepositoryIndex.Entry entry : ctx.getRepositoryIndex().listDirectory(dir)) {
+            if (!entry.isDirectory() && checksumAlgorithms.containsValue("." + FilenameUtils.getExtension(entry.getFile().getName()))) {
+                try {
+                    checksumFiles.put(entry.getFile(), ChecksumEngine.readChecksumFile(entry.getFile()));
+                } catch (IOException e) {
+                    logger.debug("unable to read checksum file {}: {}", relativize(ctx, entry.getFile()), e.getMessage());
+                }
+            }
         }
+        return checksumFiles;
     }
 
-    private void validateChecksum(ValidatorContext ctx, File file) {
-        Map<String, Object> checksums;
+    private List<Exception> validateChecksum(ValidatorContext ctx, File file, Map<File, String> checksumFiles) {
+        Map<String, String> checksums;
         try {
-            checksums = ChecksumUtils.calc(file, checksumAlgorithms.keySet());
+            checksums = checksumEngine.calc(file, checksumAlgorithms.keySet());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
+        List<Exception> errors = new ArrayList<Exception>();
         for (Entry<String, String> checksumAlgorithm : checksumAlgorithms.entrySet()) {
-            try {
-                String checksum1 = checksums.get(checksumAlgorithm.getKey()).toString();
-                String checksum2 = ChecksumUtils.read(new File(file.getPath() + checksumAlgorithm.getValue()));
-                if (!equalsIgnoreCase(checksum1, checksum2)) {
-                    ctx.addError(this, file, new ChecksumNotMatchException(relativize(ctx, file), checksumAlgorithm.getKey(), checksum1, checksum2));
-                }
-            } catch (IOException e) {
-                ctx.addError(this, file, new ChecksumNotExistException(relativize(ctx, file), checksumAlgorithm.getKey()));
+            File checksumFile = new File(file.getPath() + checksumAlgorithm.getValue());
+            String checksum2 = checksumFiles.get(checksumFile);
+            if (checksum2 == null) {
+                errors.add(new ChecksumNotExistException(relativize(ctx, file), checksumAlgorithm.getKey()));
+                continue;
+            }
+            String checksum1 = checksums.get(checksumAlgorithm.getKey());
+            if (!equalsIgnoreCase(checksum1, checksum2)) {
+                errors.add(new ChecksumNotMatchException(relativize(ctx, file), checksumAlgorithm.getKey(), checksum1, checksum2));
             }
         }
+        return errors;
     }
 
     private Collection<File> findFiles(ValidatorContext ctx) {
         IOFileFilter filterChecksumFiles = notFileFilter(new SuffixFileFilter(new ArrayList<String>(checksumAlgorithms.values())));
-        Collection<File> files = listFiles(ctx.getValidatedRepository(), and(fileFilter, filterChecksumFiles), trueFileFilter());
+        Collection<File> files = ctx.getRepositoryIndex().listFiles(and(fileFilter, filterChecksumFiles));
         return files;
     }
 
-}
\ No newline at end of file
+}
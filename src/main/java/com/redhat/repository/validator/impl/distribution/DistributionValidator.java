@@ -1,5 +1,6 @@
 package com.redhat.repository.validator.impl.distribution;
 
+import static com.redhat.repository.validator.internal.Utils.relativePath;
 import static com.redhat.repository.validator.internal.Utils.relativize;
 import static com.redhat.repository.validator.internal.Utils.relativizeFile;
 import static com.redhat.repository.validator.internal.Utils.sortFiles;
@@ -10,9 +11,12 @@ import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -22,19 +26,22 @@ import javax.inject.Named;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.commons.lang3.ObjectUtils;
 import org.eclipse.aether.repository.LocalRepository;
-import org.eclipse.aether.util.ChecksumUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Sets;
-import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.RunsLast;
+import com.redhat.repository.validator.ShardableValidator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.internal.ChecksumEngine;
 
 @Named
-public class DistributionValidator implements Validator {
+@RunsLast
+public class DistributionValidator implements ShardableValidator<DistributionValidator.FileHash> {
 
     private static final Logger logger = LoggerFactory.getLogger(DistributionValidator.class);
     
@@ -44,23 +51,82 @@ public class DistributionValidator implements Validator {
     private IOFileFilter fileFilter;
     @Inject
     private LocalRepository localRepository;
+    @Inject
+    private ChecksumEngine checksumEngine;
 
     @Override
     public void validate(ValidatorContext ctx) {
+        validateFacts(ctx, collectFacts(ctx));
+    }
+
+    /**
+     * Collects hashes of repository files, distribution files and local repository files, which can be identical with some distribution file.
+     * Local repository contains dependencies resolved by this run (on sharded validation only dependencies of the shard), 
+     * so facts of all shards together contain all of them.
+     */
+    @Override
+    public List<FileHash> collectFacts(ValidatorContext ctx) {
         if (!ctx.getValidatedDistribution().isDirectory()) {
             logger.trace("validation skipped, because distribution directory {} doesn't exists", ctx.getValidatedDistribution());
+            return Collections.emptyList();
+        }
+
+        ListMultimap<String, File> validatedRepoFilesMap = mapFilesToChecksum(ctx.getRepositoryIndex().listFiles(createFilter()));
+        ListMultimap<String, File> validatedDistFilesMap = mapFilesToChecksum(listFiles(ctx.getValidatedDistribution()));
+        ListMultimap<String, File> localRepoFilesMap = mapFilesToChecksum(findLocalRepoCandidates(validatedRepoFilesMap, validatedDistFilesMap));
+
+        List<FileHash> facts = new ArrayList<FileHash>();
+        for (Entry<String, File> entry : validatedRepoFilesMap.entries()) {
+            facts.add(new FileHash(FileHash.REPOSITORY, relativePath(ctx.getValidatedRepository(), entry.getValue()), entry.getKey()));
+        }
+        for (Entry<String, File> entry : validatedDistFilesMap.entries()) {
+            facts.add(new FileHash(FileHash.DISTRIBUTION, relativePath(ctx.getValidatedDistribution(), entry.getValue()), entry.getKey()));
+        }
+        for (String hash : localRepoFilesMap.keySet()) {
+            facts.add(new FileHash(FileHash.LOCAL_REPOSITORY, null, hash));
+        }
+        return facts;
+    }
+
+    /**
+     * Validates hashes collected from whole repository, each shard contributes the same distribution files, 
+     * so they are taken only once.
+     */
+    @Override
+    public void validateFacts(ValidatorContext ctx, List<FileHash> facts) {
+        if (facts.isEmpty()) {
             return;
         }
 
-        ListMultimap<String, File> validatedRepoFilesMap = mapFilesToChecksum(ctx.getValidatedRepository());
-        ListMultimap<String, File> validatedDistFilesMap = mapFilesToChecksum(ctx.getValidatedDistribution());
-        ListMultimap<String, File> localRepoFilesMap = mapFilesToChecksum(localRepository.getBasedir());
+        ListMultimap<String, File> validatedRepoFilesMap = ArrayListMultimap.create();
+        ListMultimap<String, File> validatedDistFilesMap = ArrayListMultimap.create();
+        Set<String> localRepoHashes = new HashSet<String>();
+        Set<String> distPaths = new HashSet<String>();
+        // files are taken in order of paths, so reported files don't depend on order of shards
+        List<FileHash> sortedFacts = new ArrayList<FileHash>(facts);
+        Collections.sort(sortedFacts, new Comparator<FileHash>() {
+            @Override
+            public int compare(FileHash h1, FileHash h2) {
+                return ObjectUtils.compare(h1.path, h2.path);
+            }
+        });
+        for (FileHash fact : sortedFacts) {
+            if (fact.origin == FileHash.REPOSITORY) {
+                validatedRepoFilesMap.put(fact.hash, new File(ctx.getValidatedRepository(), fact.path));
+            } else if (fact.origin == FileHash.DISTRIBUTION) {
+                if (distPaths.add(fact.path)) {
+                    validatedDistFilesMap.put(fact.hash, new File(ctx.getValidatedDistribution(), fact.path));
+                }
+            } else {
+                localRepoHashes.add(fact.hash);
+            }
+        }
 
         // find files which are in validated repository, but not in distribution
         findMissingFiles(ctx, validatedRepoFilesMap, validatedDistFilesMap);
         
         // find files which are in distribution, but not in validated repository or in local repository, due transitive dependencies
-        findRedundantFiles(ctx, validatedRepoFilesMap, validatedDistFilesMap, localRepoFilesMap);
+        findRedundantFiles(ctx, validatedRepoFilesMap, validatedDistFilesMap, localRepoHashes);
         
         // find files which are identical, has same content
         findDuplicateFiles(ctx, validatedRepoFilesMap, validatedDistFilesMap);
@@ -72,6 +138,30 @@ public class DistributionValidator implements Validator {
         findCorruptedFiles(ctx, validatedRepoFilesMap, validatedDistFilesMap);
     }
 
+    /**
+     * Returns local repository files, which can be identical with some distribution file missing in validated repository. 
+     * Identical files have same size, so only local repository files with size of some such distribution file are hashed.
+     */
+    private Collection<File> findLocalRepoCandidates(ListMultimap<String, File> validatedRepoFilesMap, ListMultimap<String, File> validatedDistFilesMap) {
+        Set<Long> redundantFileSizes = new HashSet<Long>();
+        for (String redundantFileHash : Sets.difference(validatedDistFilesMap.keySet(), validatedRepoFilesMap.keySet())) {
+            redundantFileSizes.add(validatedDistFilesMap.get(redundantFileHash).get(0).length());
+        }
+        if (redundantFileSizes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Collection<File> localRepoFiles = listFiles(localRepository.getBasedir());
+        List<File> candidates = new ArrayList<File>();
+        for (File localRepoFile : localRepoFiles) {
+            if (redundantFileSizes.contains(localRepoFile.length())) {
+                candidates.add(localRepoFile);
+            }
+        }
+        logger.debug("hashing {} of {} local repository files", candidates.size(), localRepoFiles.size());
+        return candidates;
+    }
+
     private void findMissingFiles(ValidatorContext ctx, ListMultimap<String, File> validatedRepoFilesMap, ListMultimap<String, File> validatedDistFilesMap) {
         Set<String> missingFileHashSet = Sets.difference(validatedRepoFilesMap.keySet(), validatedDistFilesMap.keySet());
         for (String missingFileHash : missingFileHashSet) {
@@ -81,10 +171,10 @@ public class DistributionValidator implements Validator {
         }
     }
 
-    private void findRedundantFiles(ValidatorContext ctx, ListMultimap<String, File> validatedRepoFilesMap, ListMultimap<String, File> validatedDistFilesMap, ListMultimap<String, File> localRepoFilesMap) {
+    private void findRedundantFiles(ValidatorContext ctx, ListMultimap<String, File> validatedRepoFilesMap, ListMultimap<String, File> validatedDistFilesMap, Set<String> localRepoHashes) {
         Set<String> redundantFileHashSet = Sets.difference(validatedDistFilesMap.keySet(), validatedRepoFilesMap.keySet());
         for (String redundantFileHash : redundantFileHashSet) {
-            if (localRepoFilesMap.containsKey(redundantFileHash)) {
+            if (localRepoHashes.contains(redundantFileHash)) {
                 // transitive dependency from remote repository, which belongs to distribution
                 continue;
             }
@@ -110,13 +200,9 @@ public class DistributionValidator implements Validator {
 
     private void findMisnomerFiles(ValidatorContext ctx, ListMultimap<String, File> validatedRepoFilesMap, ListMultimap<String, File> validatedDistFilesMap) {
         for (Entry<String, File> distFileEntry : validatedDistFilesMap.entries()) {
-            for (Entry<String, File> repoFileEntry : validatedRepoFilesMap.entries()) {
-                String distFileHash = distFileEntry.getKey();
-                String repoFileHash = repoFileEntry.getKey();
-                File distFile = distFileEntry.getValue();
-                File repoFile = repoFileEntry.getValue();
-
-                if (distFileHash.equals(repoFileHash) && !distFile.getName().equals(repoFile.getName())) {
+            File distFile = distFileEntry.getValue();
+            for (File repoFile : validatedRepoFilesMap.get(distFileEntry.getKey())) {
+                if (!distFile.getName().equals(repoFile.getName())) {
                     ctx.addError(this,
                             repoFile, new DistributionMisnomerFileException(
                                     relativizeFile(ctx.getValidatedRepository(), repoFile),
@@ -127,14 +213,17 @@ public class DistributionValidator implements Validator {
     }
 
     private void findCorruptedFiles(ValidatorContext ctx, ListMultimap<String, File> validatedRepoFilesMap, ListMultimap<String, File> validatedDistFilesMap) {
+        // repository files by name, in the same order as entries of checksum multimap
+        ListMultimap<String, Entry<String, File>> validatedRepoFilesByName = ArrayListMultimap.create();
+        for (Entry<String, File> repoFileEntry : validatedRepoFilesMap.entries()) {
+            validatedRepoFilesByName.put(repoFileEntry.getValue().getName(), repoFileEntry);
+        }
+
         for (Entry<String, File> distFileEntry : validatedDistFilesMap.entries()) {
-            for (Entry<String, File> repoFileEntry : validatedRepoFilesMap.entries()) {
-                String distFileHash = distFileEntry.getKey();
-                String repoFileHash = repoFileEntry.getKey();
-                File distFile = distFileEntry.getValue();
+            File distFile = distFileEntry.getValue();
+            for (Entry<String, File> repoFileEntry : validatedRepoFilesByName.get(distFile.getName())) {
                 File repoFile = repoFileEntry.getValue();
-
-                if (distFile.getName().equals(repoFile.getName()) && !distFileHash.equals(repoFileHash) ) {
+                if (!distFileEntry.getKey().equals(repoFileEntry.getKey())) {
                     ctx.addError(this,
                             repoFile, new DistributionCorruptedFileException(
                                     relativizeFile(ctx.getValidatedRepository(), repoFile),
@@ -144,12 +233,11 @@ public class DistributionValidator implements Validator {
         }
     }
     
-    private ListMultimap<String, File> mapFilesToChecksum(File dir) {
-        Collection<File> files = listFiles(dir);
+    private ListMultimap<String, File> mapFilesToChecksum(Collection<File> files) {
         ListMultimap<String, File> filesHash = ArrayListMultimap.create();
         for (File file : files) {
             try {
-                String checksum = ChecksumUtils.calc(file, Collections.singleton(HASH_ALGORITHM)).get(HASH_ALGORITHM).toString();
+                String checksum = checksumEngine.calc(file, HASH_ALGORITHM);
                 filesHash.put(checksum, file);
             } catch (IOException e) {
                 throw new RuntimeException(e);
@@ -159,6 +247,11 @@ public class DistributionValidator implements Validator {
     }
     
     private Collection<File> listFiles(File dir) {
+        Collection<File> files = FileUtils.listFiles(dir, createFilter(), trueFileFilter());
+        return files;
+    }
+
+    private IOFileFilter createFilter() {
         IOFileFilter filter = and(
                 fileFilter,
                 suffixFileFilter(".jar"),
@@ -166,9 +259,27 @@ public class DistributionValidator implements Validator {
                 notFileFilter(suffixFileFilter("-sources.jar")),
                 notFileFilter(suffixFileFilter("-tests.jar")),
                 notFileFilter(suffixFileFilter("-test-sources.jar")));
-        
-        Collection<File> files = FileUtils.listFiles(dir, filter, trueFileFilter());
-        return files;
+        return filter;
+    }
+
+    public static class FileHash implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int REPOSITORY = 0;
+        private static final int DISTRIBUTION = 1;
+        private static final int LOCAL_REPOSITORY = 2;
+
+        private final int origin;
+        private final String path;
+        private final String hash;
+
+        private FileHash(int origin, String path, String hash) {
+            this.origin = origin;
+            this.path = path;
+            this.hash = hash;
+        }
+
     }
 
-}
\ No newline at end of file
+}
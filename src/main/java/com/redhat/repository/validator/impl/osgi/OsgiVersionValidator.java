@@ -12,11 +12,16 @@ import org.apache.maven.model.Model;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.redhat.repository.validator.Incremental;
+import com.redhat.repository.validator.RunsAfter;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.DependenciesValidator;
 import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
+@RunsAfter(DependenciesValidator.class)
+@Incremental
 public class OsgiVersionValidator implements Validator {
 
     private static final Logger logger = LoggerFactory.getLogger(OsgiVersionValidator.class);
@@ -5,11 +5,18 @@ import static com.redhat.repository.validator.internal.Utils.calculateChecksum;
 import java.io.File;
 import java.net.URI;
 
+import javax.inject.Inject;
+
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 
+import com.redhat.repository.validator.internal.ChecksumEngine;
+
 public class ChecksumProviderAkamai implements ChecksumProvider {
 
+    @Inject
+    private ChecksumEngine checksumEngine;
+
     @Override
     public String getRemoteArtifactChecksum(URI remoteArtifact, HttpResponse httpResponse) {
         Header etagHeader = httpResponse.getFirstHeader("ETag");
@@ -27,7 +34,7 @@ public class ChecksumProviderAkamai implements ChecksumProvider {
 
     @Override
     public String getLocalArtifactChecksum(URI localArtifact) {
-        return calculateChecksum(new File(localArtifact), "md5");
+        return calculateChecksum(checksumEngine, new File(localArtifact), "md5");
     }
 
 }
@@ -5,11 +5,18 @@ import static com.redhat.repository.validator.internal.Utils.calculateChecksum;
 import java.io.File;
 import java.net.URI;
 
+import javax.inject.Inject;
+
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 
+import com.redhat.repository.validator.internal.ChecksumEngine;
+
 public class ChecksumProviderArtifactory implements ChecksumProvider {
 
+    @Inject
+    private ChecksumEngine checksumEngine;
+
     @Override
     public String getRemoteArtifactChecksum(URI remoteArtifact, HttpResponse httpResponse) {
         Header xchecksumSh1Header = httpResponse.getFirstHeader("X-Checksum-Sha1");
@@ -21,7 +28,7 @@ public class ChecksumProviderArtifactory implements ChecksumProvider {
 
     @Override
     public String getLocalArtifactChecksum(URI localArtifact) {
-        return calculateChecksum(new File(localArtifact), "sha1");
+        return calculateChecksum(checksumEngine, new File(localArtifact), "sha1");
     }
 
 }
@@ -0,0 +1,49 @@
+package com.redhat.repository.validator.impl.remoterepository;
+
+/**
+ * Tracks consecutive failures of one host, after the threshold is reached, requests are rejected for configured time,
+ * then one probe request is allowed, which either closes the circuit breaker, or opens it again.
+ */
+class CircuitBreaker {
+
+    private final int threshold;
+    private final long openMillis;
+    private int failures;
+    private long openedAt = -1;
+    private boolean probing;
+
+    CircuitBreaker(int threshold, long openMillis) {
+        this.threshold = threshold;
+        this.openMillis = openMillis;
+    }
+
+    synchronized boolean allowRequest() {
+        if (openedAt < 0) {
+            return true;
+        }
+        if (!probing && System.currentTimeMillis() - openedAt >= openMillis) {
+            probing = true;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized boolean isOpen() {
+        return openedAt >= 0;
+    }
+
+    synchronized void recordSuccess() {
+        failures = 0;
+        openedAt = -1;
+        probing = false;
+    }
+
+    synchronized void recordFailure() {
+        failures++;
+        if (probing || failures >= threshold) {
+            openedAt = System.currentTimeMillis();
+            probing = false;
+        }
+    }
+
+}
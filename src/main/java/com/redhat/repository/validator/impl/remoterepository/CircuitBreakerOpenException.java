@@ -0,0 +1,25 @@
+package com.redhat.repository.validator.impl.remoterepository;
+
+import java.io.IOException;
+
+public class CircuitBreakerOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String host;
+
+    public CircuitBreakerOpenException(String host) {
+        super("Circuit breaker is open for " + host + ", request was not sent");
+        this.host = host;
+    }
+
+    public CircuitBreakerOpenException(String host, int rejectedRequests) {
+        super("Circuit breaker is open for " + host + ", " + rejectedRequests + " request(s) were not sent");
+        this.host = host;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+}
@@ -0,0 +1,278 @@
+package com.redhat.repository.validator.impl.remoterepository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Executes HEAD requests over non-blocking connections with keep-alive,
+ * so many requests are in flight on a few I/O threads.
+ * The number of in-flight requests per host and the global request rate are limited,
+ * responses are handed over to a separate pool, so callbacks are allowed to block.
+ * Failed requests are retried according to {@link RetryPolicy}, requests to unhealthy hosts are rejected by circuit breaker.
+ */
+public class HttpHeadExecutor implements Closeable {
+
+    public interface Callback {
+
+        void completed(HttpResponse httpResponse);
+
+        void failed(Exception e);
+
+    }
+
+    private static final int IO_THREADS = Math.min(2, Runtime.getRuntime().availableProcessors());
+
+    private final int maxConnPerHost;
+    private final RateLimiter rateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final CloseableHttpAsyncClient httpClient;
+    private final ExecutorService callbackExecutor;
+    private final ScheduledExecutorService retryExecutor;
+    private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<String, Host>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final Object pendingLock = new Object();
+    private int pending;
+
+    public HttpHeadExecutor(int maxConnTotal, int maxConnPerHost, double requestsPerSecond, int callbackThreads) {
+        this(maxConnTotal, maxConnPerHost, requestsPerSecond, callbackThreads, RetryPolicy.NONE);
+    }
+
+    public HttpHeadExecutor(int maxConnTotal, int maxConnPerHost, double requestsPerSecond, int callbackThreads, RetryPolicy retryPolicy) {
+        this.maxConnPerHost = maxConnPerHost;
+        this.rateLimiter = requestsPerSecond > 0 ? RateLimiter.create(requestsPerSecond) : null;
+        this.retryPolicy = retryPolicy;
+        this.httpClient = HttpAsyncClients.custom()
+                .setMaxConnTotal(maxConnTotal)
+                .setMaxConnPerRoute(maxConnPerHost)
+                .setDefaultIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(IO_THREADS).build())
+                .build();
+        this.callbackExecutor = Executors.newFixedThreadPool(callbackThreads);
+        this.retryExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.httpClient.start();
+    }
+
+    /**
+     * Submits HEAD request, blocks while the host has too many requests in flight or the rate limit is exceeded.
+     * The host permit is held until the last attempt is finished, so retries don't add load to failing host.
+     */
+    public void execute(URI uri, Callback callback) throws InterruptedException {
+        execute(uri, new Header[] {}, callback);
+    }
+
+    public void execute(URI uri, Header[] requestHeaders, Callback callback) throws InterruptedException {
+        Host host = getHost(uri);
+        host.permits.acquire();
+        synchronized (pendingLock) {
+            pending++;
+        }
+        try {
+            submit(uri, requestHeaders, host, callback, 0);
+        } catch (RuntimeException e) {
+            host.permits.release();
+            done();
+            throw e;
+        }
+    }
+
+    /**
+     * Hands over already known response (e.g. from cache) to callback pool, without sending any request.
+     */
+    public void dispatch(final HttpResponse httpResponse, final Callback callback) {
+        synchronized (pendingLock) {
+            pending++;
+        }
+        complete(callback, httpResponse, null);
+    }
+
+    private void submit(final URI uri, final Header[] requestHeaders, final Host host, final Callback callback, final int retry) {
+        if (!host.circuitBreaker.allowRequest()) {
+            rejectedCount.incrementAndGet();
+            finish(host, callback, null, new CircuitBreakerOpenException(host.name));
+            return;
+        }
+        if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+        requestCount.incrementAndGet();
+
+        HttpHead httpRequest = new HttpHead(uri);
+        httpRequest.setHeaders(requestHeaders);
+        httpClient.execute(httpRequest, new FutureCallback<HttpResponse>() {
+
+            @Override
+            public void completed(HttpResponse httpResponse) {
+                if (retryPolicy.isRetryable(httpResponse.getStatusLine().getStatusCode())) {
+                    host.circuitBreaker.recordFailure();
+                    if (!retry(uri, requestHeaders, host, callback, retry, getRetryAfterMillis(httpResponse))) {
+                        finish(host, callback, httpResponse, null);
+                    }
+                } else {
+                    host.circuitBreaker.recordSuccess();
+                    finish(host, callback, httpResponse, null);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                host.circuitBreaker.recordFailure();
+                if (!retry(uri, requestHeaders, host, callback, retry, 0)) {
+                    finish(host, callback, null, e);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                // releases the probe, otherwise the circuit breaker would never allow another request
+                host.circuitBreaker.recordFailure();
+                finish(host, callback, null, new IOException("request cancelled"));
+            }
+
+        });
+    }
+
+    private boolean retry(final URI uri, final Header[] requestHeaders, final Host host, final Callback callback, int retry, long retryAfterMillis) {
+        if (retry >= retryPolicy.getMaxRetries() || host.circuitBreaker.isOpen()) {
+            return false;
+        }
+        final int nextRetry = retry + 1;
+        retryCount.incrementAndGet();
+        retryExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    submit(uri, requestHeaders, host, callback, nextRetry);
+                } catch (RuntimeException e) {
+                    finish(host, callback, null, e);
+                }
+            }
+        }, retryPolicy.getDelayMillis(nextRetry, retryAfterMillis), TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    private static long getRetryAfterMillis(HttpResponse httpResponse) {
+        Header header = httpResponse.getFirstHeader("Retry-After");
+        if (header == null || header.getValue() == null) {
+            return 0;
+        }
+        String value = header.getValue().trim();
+        if (NumberUtils.isDigits(value)) {
+            return Long.parseLong(value) * 1000;
+        }
+        Date date = DateUtils.parseDate(value);
+        return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : 0;
+    }
+
+    private Host getHost(URI uri) {
+        String name = uri.getScheme() + "://" + uri.getAuthority();
+        Host host = hosts.get(name);
+        if (host == null) {
+            Host newHost = new Host(name);
+            host = hosts.putIfAbsent(name, newHost);
+            if (host == null) {
+                host = newHost;
+            }
+        }
+        return host;
+    }
+
+    private void finish(Host host, Callback callback, HttpResponse httpResponse, Exception e) {
+        host.permits.release();
+        complete(callback, httpResponse, e);
+    }
+
+    private void complete(final Callback callback, final HttpResponse httpResponse, final Exception e) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (e != null) {
+                        callback.failed(e);
+                    } else {
+                        callback.completed(httpResponse);
+                    }
+                } finally {
+                    done();
+                }
+            }
+        });
+    }
+
+    private void done() {
+        synchronized (pendingLock) {
+            pending--;
+            if (pending == 0) {
+                pendingLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until all submitted requests are completed and their callbacks are finished.
+     */
+    public void awaitCompletion() throws InterruptedException {
+        synchronized (pendingLock) {
+            while (pending > 0) {
+                pendingLock.wait();
+            }
+        }
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            httpClient.close();
+        } finally {
+            retryExecutor.shutdownNow();
+            callbackExecutor.shutdownNow();
+        }
+    }
+
+    private class Host {
+
+        private final String name;
+        private final Semaphore permits = new Semaphore(maxConnPerHost);
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker(retryPolicy.getCircuitBreakerThreshold(), retryPolicy.getCircuitBreakerOpenMillis());
+
+        private Host(String name) {
+            this.name = name;
+        }
+
+    }
+
+}
@@ -1,30 +1,34 @@
 package com.redhat.repository.validator.impl.remoterepository;
 
 import static com.redhat.repository.validator.internal.Utils.relativize;
-import static org.apache.commons.io.FileUtils.listFiles;
 import static org.apache.commons.io.filefilter.FileFilterUtils.and;
-import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.inject.Inject;
 
 import org.apache.commons.io.filefilter.IOFileFilter;
 import org.apache.commons.io.filefilter.SuffixFileFilter;
 import org.apache.commons.lang.builder.ToStringBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.redhat.repository.validator.Incremental;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
 
+@Incremental(remote = true)
 public abstract class RemoteRepositoryAbstractValidator implements Validator {
     
     private static final String[] ARTIFACT_FILE_EXTENSIONS = { "pom", "jar", "war", "ear", "par", "rar", "zip", "aar", "apklib" };
@@ -32,68 +36,139 @@ public abstract class RemoteRepositoryAbstractValidator implements Validator {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     
     protected final int maxConnTotal;
+    protected final int maxConnPerHost;
+    protected final double requestsPerSecond;
+    protected final RetryPolicy retryPolicy;
+    protected RemoteResponseCache responseCache = new RemoteResponseCache();
     protected final String remoteRepositoryUrl;
     protected final IOFileFilter fileFilter;
 
     public RemoteRepositoryAbstractValidator(String remoteRepositoryUrl, IOFileFilter fileFilter, int maxConnTotal) {
+        this(remoteRepositoryUrl, fileFilter, maxConnTotal, maxConnTotal, 0, RetryPolicy.DEFAULT);
+    }
+
+    /**
+     * @param requestsPerSecond global limit of requests rate, zero means unlimited
+     */
+    public RemoteRepositoryAbstractValidator(String remoteRepositoryUrl, IOFileFilter fileFilter, int maxConnTotal, int maxConnPerHost, double requestsPerSecond, RetryPolicy retryPolicy) {
         super();
         this.remoteRepositoryUrl = remoteRepositoryUrl;
         this.fileFilter = fileFilter;
         this.maxConnTotal = maxConnTotal;
+        this.maxConnPerHost = maxConnPerHost;
+        this.requestsPerSecond = requestsPerSecond;
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Inject
+    public void setResponseCache(RemoteResponseCache responseCache) {
+        this.responseCache = responseCache;
     }
 
     @Override
     public final void validate(final ValidatorContext ctx) {
-        final ExecutorService executorService = Executors.newFixedThreadPool(maxConnTotal);
-        final CloseableHttpClient httpClient = HttpClients.custom().setMaxConnTotal(maxConnTotal).build();
+        final List<File> files = new ArrayList<File>(findFiles(ctx));
+        final AtomicReferenceArray<Exception> errors = new AtomicReferenceArray<Exception>(files.size());
+        final URI repoUri = ctx.getValidatedRepository().toURI();
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicReference<String> rejectedHost = new AtomicReference<String>();
 
+        long start = System.currentTimeMillis();
+        HttpHeadExecutor httpExecutor = new HttpHeadExecutor(maxConnTotal, maxConnPerHost, requestsPerSecond, maxConnTotal, retryPolicy);
         try {
-            for (final File file : findFiles(ctx)) {
+            for (int i = 0; i < files.size(); i++) {
+                final int index = i;
+                final File file = files.get(i);
+                final URI localArtifact = file.toURI();
+                final URI remoteArtifact;
                 try {
-                    final URI repoUri = ctx.getValidatedRepository().toURI();
-                    final URI localArtifact = file.toURI();
-                    final URI remoteArtifact = new URI(remoteRepositoryUrl + repoUri.relativize(localArtifact).toString());
-
-                    executorService.execute(new Runnable() {
-                        @Override
-                        public void run() {
-                            try {
-                                logger.trace("validating {}", relativize(ctx, file));
-                                validateArtifact(httpClient, localArtifact, remoteArtifact);
-                            } catch (Exception e) {
-                                ctx.addError(RemoteRepositoryAbstractValidator.this, file, e);
+                    remoteArtifact = new URI(remoteRepositoryUrl + repoUri.relativize(localArtifact).toString());
+                } catch (URISyntaxException e) {
+                    throw new RuntimeException(e);
+                }
+
+                logger.trace("validating {}", relativize(ctx, file));
+                final RemoteResponseCache.Entry cached = responseCache.get(remoteArtifact);
+                HttpHeadExecutor.Callback callback = new HttpHeadExecutor.Callback() {
+
+                    @Override
+                    public void completed(HttpResponse httpResponse) {
+                        try {
+                            if (cached != null && httpResponse.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                                httpResponse = responseCache.revalidated(cached);
+                            } else if (cached == null || !cached.isFresh()) {
+                                responseCache.put(remoteArtifact, httpResponse);
                             }
+                            validateArtifact(localArtifact, remoteArtifact, httpResponse);
+                        } catch (Exception e) {
+                            errors.set(index, e);
                         }
-                    });
+                    }
 
-                } catch (URISyntaxException e) {
-                    throw new RuntimeException(e);
+                    @Override
+                    public void failed(Exception e) {
+                        if (e instanceof CircuitBreakerOpenException) {
+                            // requests rejected by circuit breaker are reported only once per host below
+                            rejected.incrementAndGet();
+                            rejectedHost.compareAndSet(null, ((CircuitBreakerOpenException) e).getHost());
+                        } else {
+                            errors.set(index, requestFailed(remoteArtifact, e));
+                        }
+                    }
+
+                };
+
+                if (cached != null && cached.isFresh()) {
+                    httpExecutor.dispatch(cached.toResponse(), callback);
+                } else if (cached != null) {
+                    httpExecutor.execute(remoteArtifact, cached.getConditionalHeaders(), callback);
+                } else {
+                    httpExecutor.execute(remoteArtifact, callback);
                 }
             }
-
+            httpExecutor.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            logStatistics(httpExecutor, files.size(), start);
+            responseCache.flush();
             try {
-                executorService.shutdown();
-                executorService.awaitTermination(1, TimeUnit.HOURS);
-            } catch (InterruptedException e) {
+                httpExecutor.close();
+            } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         }
-        finally {
-            try {
-                httpClient.close();
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+
+        // errors are registered in order of files, so output doesn't depend on order of responses
+        for (int i = 0; i < files.size(); i++) {
+            Exception error = errors.get(i);
+            if (error != null) {
+                ctx.addError(this, files.get(i), error);
             }
         }
+        if (rejected.get() > 0) {
+            ctx.addError(this, ctx.getValidatedRepository(), new CircuitBreakerOpenException(rejectedHost.get(), rejected.get()));
+        }
+    }
+
+    private void logStatistics(HttpHeadExecutor httpExecutor, int artifactCount, long start) {
+        logger.debug("{} artifacts checked against {} in {} ms", artifactCount, remoteRepositoryUrl, System.currentTimeMillis() - start);
+        if (httpExecutor.getRetryCount() > 0 || httpExecutor.getRejectedCount() > 0) {
+            logger.warn("{} requests sent to {}, {} of them retried, {} requests rejected by circuit breaker",
+                    httpExecutor.getRequestCount(), remoteRepositoryUrl, httpExecutor.getRetryCount(), httpExecutor.getRejectedCount());
+        }
     }
 
     protected Collection<File> findFiles(ValidatorContext ctx) {
         IOFileFilter artifactsFilter = new SuffixFileFilter(ARTIFACT_FILE_EXTENSIONS);
-        Collection<File> files = listFiles(ctx.getValidatedRepository(), and(fileFilter, artifactsFilter), trueFileFilter());
+        Collection<File> files = ctx.getRepositoryIndex().listFiles(and(fileFilter, artifactsFilter));
         return files;
     }
     
-    protected abstract void validateArtifact(CloseableHttpClient httpClient, URI localArtifact, URI remoteArtifact) throws Exception;
+    protected abstract void validateArtifact(URI localArtifact, URI remoteArtifact, HttpResponse httpResponse) throws Exception;
+
+    protected abstract Exception requestFailed(URI remoteArtifact, Exception cause);
     
     @Override
     public String toString() {
@@ -2,16 +2,12 @@ package com.redhat.repository.validator.impl.remoterepository;
 
 import static org.apache.commons.lang3.StringUtils.equalsIgnoreCase;
 
-import java.io.IOException;
 import java.net.URI;
 
 import org.apache.commons.io.filefilter.FileFilterUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.client.methods.RequestBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
 
 public class RemoteRepositoryCollisionValidator extends RemoteRepositoryAbstractValidator {
     
@@ -22,32 +18,39 @@ public class RemoteRepositoryCollisionValidator extends RemoteRepositoryAbstract
     }
 
     public RemoteRepositoryCollisionValidator(String remoteRepositoryUrl, ChecksumProvider checksumProvider, IOFileFilter fileFilter, int maxConnTotal) {
-        super(remoteRepositoryUrl, fileFilter, maxConnTotal);
+        this(remoteRepositoryUrl, checksumProvider, fileFilter, maxConnTotal, maxConnTotal, 0);
+    }
+
+    public RemoteRepositoryCollisionValidator(String remoteRepositoryUrl, ChecksumProvider checksumProvider, IOFileFilter fileFilter, int maxConnTotal, int maxConnPerHost, double requestsPerSecond) {
+        this(remoteRepositoryUrl, checksumProvider, fileFilter, maxConnTotal, maxConnPerHost, requestsPerSecond, RetryPolicy.DEFAULT);
+    }
+
+    public RemoteRepositoryCollisionValidator(String remoteRepositoryUrl, ChecksumProvider checksumProvider, IOFileFilter fileFilter, int maxConnTotal, int maxConnPerHost, double requestsPerSecond, RetryPolicy retryPolicy) {
+        super(remoteRepositoryUrl, fileFilter, maxConnTotal, maxConnPerHost, requestsPerSecond, retryPolicy);
         this.checksumProvider = checksumProvider;
     }
 
     @Override
-    protected void validateArtifact(CloseableHttpClient httpClient, URI localArtifact, URI remoteArtifact) throws Exception {
-        try {
-            HttpUriRequest httpRequest = RequestBuilder.head().setUri(remoteArtifact).build();
-            HttpResponse httpResponse = httpClient.execute(httpRequest);
-            int httpStatusCode = httpResponse.getStatusLine().getStatusCode();
-            if (httpStatusCode == HttpStatus.SC_OK) {
-                String remoteArtifactHash = checksumProvider.getRemoteArtifactChecksum(remoteArtifact, httpResponse);
-                String localArtifactHash = checksumProvider.getLocalArtifactChecksum(localArtifact);
-
-                if (!equalsIgnoreCase(remoteArtifactHash, localArtifactHash)) {
-                    throw new RemoteRepositoryCollisionException("Remote repository [" + remoteRepositoryUrl + "] contains already artifact " + remoteArtifact + " with different content");
-                }
-
-            } else if (httpStatusCode == HttpStatus.SC_NOT_FOUND) {
-                // OK
-            } else {
-                throw new RemoteRepositoryCollisionException("Remote repository [" + remoteRepositoryUrl + "] returned " + httpResponse.getStatusLine().toString() + " for artifact " + remoteArtifact);
+    protected void validateArtifact(URI localArtifact, URI remoteArtifact, HttpResponse httpResponse) throws Exception {
+        int httpStatusCode = httpResponse.getStatusLine().getStatusCode();
+        if (httpStatusCode == HttpStatus.SC_OK) {
+            String remoteArtifactHash = checksumProvider.getRemoteArtifactChecksum(remoteArtifact, httpResponse);
+            String localArtifactHash = checksumProvider.getLocalArtifactChecksum(localArtifact);
+
+            if (!equalsIgnoreCase(remoteArtifactHash, localArtifactHash)) {
+                throw new RemoteRepositoryCollisionException("Remote repository [" + remoteRepositoryUrl + "] contains already artifact " + remoteArtifact + " with different content");
             }
-        } catch (IOException e) {
-            throw new RemoteRepositoryCollisionException("Remote repository [" + remoteRepositoryUrl + "] request failed for artifact " + remoteArtifact, e);
+
+        } else if (httpStatusCode == HttpStatus.SC_NOT_FOUND) {
+            // OK
+        } else {
+            throw new RemoteRepositoryCollisionException("Remote repository [" + remoteRepositoryUrl + "] returned " + httpResponse.getStatusLine().toString() + " for artifact " + remoteArtifact);
         }
     }
 
+    @Override
+    protected Exception requestFailed(URI remoteArtifact, Exception cause) {
+        return new RemoteRepositoryCollisionException("Remote repository [" + remoteRepositoryUrl + "] request failed for artifact " + remoteArtifact, cause);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,267 @@
+package com.redhat.repository.validator.impl.remoterepository;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicHttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.repository.validator.ValidationListener;
+import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.internal.AppendOnlyLog;
+
+/**
+ * Persistent cache of HEAD responses of remote repositories, keyed by artifact url.
+ * Only 200 and 404 responses are cached, released artifacts are immutable, so 200 responses of release paths live long,
+ * 404 responses and responses of snapshot paths expire soon.
+ * Expired response with <code>ETag</code> or <code>Last-Modified</code> header is revalidated by conditional request.
+ * Entries are kept in {@link AppendOnlyLog}.
+ */
+public class RemoteResponseCache implements ValidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteResponseCache.class);
+
+    public static final long DEFAULT_RELEASE_TTL_MILLIS = TimeUnit.DAYS.toMillis(30);
+    public static final long DEFAULT_SHORT_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final AppendOnlyLog<Entry> log;
+    private final long releaseTtlMillis;
+    private final long shortTtlMillis;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong revalidatedCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates disabled cache.
+     */
+    public RemoteResponseCache() {
+        this(null);
+    }
+
+    public RemoteResponseCache(File cacheFile) {
+        this(cacheFile, DEFAULT_RELEASE_TTL_MILLIS, DEFAULT_SHORT_TTL_MILLIS);
+    }
+
+    public RemoteResponseCache(File cacheFile, long releaseTtlMillis, long shortTtlMillis) {
+        this.log = new AppendOnlyLog<Entry>(cacheFile, "remote response cache") {
+
+            @Override
+            protected String getKey(Entry entry) {
+                return entry.url;
+            }
+
+            @Override
+            protected Entry parse(String line) {
+                return Entry.parse(line);
+            }
+
+            @Override
+            protected String format(Entry entry) {
+                return entry.format();
+            }
+
+            @Override
+            protected boolean isValid(Entry entry) {
+                return entry.isFresh() || entry.isRevalidable();
+            }
+
+        };
+        this.releaseTtlMillis = releaseTtlMillis;
+        this.shortTtlMillis = shortTtlMillis;
+    }
+
+    public boolean isEnabled() {
+        return log.isEnabled();
+    }
+
+    /**
+     * Returns cached response (fresh or expired), or null if there is none.
+     */
+    public Entry get(URI uri) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry entry = log.get(uri.toString());
+        if (entry != null && entry.isFresh()) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Stores given response, if it is cacheable.
+     */
+    public void put(URI uri, HttpResponse httpResponse) {
+        if (!isEnabled()) {
+            return;
+        }
+        int statusCode = httpResponse.getStatusLine().getStatusCode();
+        if (statusCode != HttpStatus.SC_OK && statusCode != HttpStatus.SC_NOT_FOUND) {
+            return;
+        }
+        String url = uri.toString();
+        List<Header> headers = new ArrayList<Header>();
+        for (Header header : httpResponse.getAllHeaders()) {
+            if (StringUtils.containsNone(header.getName() + header.getValue(), '\t', '\n', '\r')) {
+                headers.add(header);
+            }
+        }
+        store(new Entry(url, System.currentTimeMillis(), expiresIn(url, statusCode), statusCode,
+                StringUtils.defaultString(httpResponse.getStatusLine().getReasonPhrase()), headers.toArray(new Header[headers.size()])));
+    }
+
+    /**
+     * Marks expired entry as valid again, after the remote repository responded <code>304 Not Modified</code>.
+     */
+    public HttpResponse revalidated(Entry entry) {
+        revalidatedCount.incrementAndGet();
+        Entry refreshed = new Entry(entry.url, System.currentTimeMillis(), expiresIn(entry.url, entry.statusCode), entry.statusCode, entry.reasonPhrase, entry.headers);
+        store(refreshed);
+        return refreshed.toResponse();
+    }
+
+    private long expiresIn(String url, int statusCode) {
+        return statusCode == HttpStatus.SC_OK && !url.contains("-SNAPSHOT") ? releaseTtlMillis : shortTtlMillis;
+    }
+
+    private void store(Entry entry) {
+        log.put(entry, AppendOnlyLog.isPersistable(entry.url + entry.reasonPhrase));
+    }
+
+    /**
+     * Appends new entries to cache file and compacts it, if it contains too many obsolete lines.
+     */
+    public void flush() {
+        log.flush();
+    }
+
+    /**
+     * Rewrites cache file with latest entry of each url, expired entries which can't be revalidated are dropped.
+     */
+    public void compact() {
+        log.compact();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getRevalidatedCount() {
+        return revalidatedCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public void validationStarted(ValidatorContext ctx) {
+        log.reset();
+        hitCount.set(0);
+        revalidatedCount.set(0);
+        missCount.set(0);
+    }
+
+    @Override
+    public void validationFinished(ValidatorContext ctx) {
+        if (isEnabled()) {
+            flush();
+            logger.info("remote response cache: {} hits, {} revalidated, {} misses", hitCount.get(), revalidatedCount.get(), missCount.get());
+        }
+    }
+
+    public static class Entry {
+
+        private final String url;
+        private final long storedAt;
+        private final long expiresIn;
+        private final int statusCode;
+        private final String reasonPhrase;
+        private final Header[] headers;
+
+        private Entry(String url, long storedAt, long expiresIn, int statusCode, String reasonPhrase, Header[] headers) {
+            this.url = url;
+            this.storedAt = storedAt;
+            this.expiresIn = expiresIn;
+            this.statusCode = statusCode;
+            this.reasonPhrase = reasonPhrase;
+            this.headers = headers;
+        }
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() - storedAt < expiresIn;
+        }
+
+        public boolean isRevalidable() {
+            return getConditionalHeaders().length > 0;
+        }
+
+        /**
+         * Returns <code>If-None-Match</code> and <code>If-Modified-Since</code> headers for revalidation of this entry.
+         */
+        public Header[] getConditionalHeaders() {
+            if (statusCode != HttpStatus.SC_OK) {
+                return new Header[] {};
+            }
+            List<Header> conditionalHeaders = new ArrayList<Header>();
+            for (Header header : headers) {
+                if (header.getName().equalsIgnoreCase("ETag")) {
+                    conditionalHeaders.add(new BasicHeader("If-None-Match", header.getValue()));
+                } else if (header.getName().equalsIgnoreCase("Last-Modified")) {
+                    conditionalHeaders.add(new BasicHeader("If-Modified-Since", header.getValue()));
+                }
+            }
+            return conditionalHeaders.toArray(new Header[conditionalHeaders.size()]);
+        }
+
+        public HttpResponse toResponse() {
+            BasicHttpResponse httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, reasonPhrase);
+            httpResponse.setHeaders(headers);
+            return httpResponse;
+        }
+
+        private static Entry parse(String line) {
+            String[] fields = StringUtils.splitPreserveAllTokens(line, '\t');
+            if (fields.length < 5) {
+                return null;
+            }
+            try {
+                Header[] headers = new Header[fields.length - 5];
+                for (int i = 5; i < fields.length; i++) {
+                    int colon = fields[i].indexOf(':');
+                    if (colon < 0) {
+                        return null;
+                    }
+                    headers[i - 5] = new BasicHeader(fields[i].substring(0, colon), fields[i].substring(colon + 1));
+                }
+                return new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), Integer.parseInt(fields[3]), fields[4], headers);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private String format() {
+            StringBuilder line = new StringBuilder();
+            line.append(url).append('\t').append(storedAt).append('\t').append(expiresIn).append('\t').append(statusCode).append('\t').append(reasonPhrase);
+            for (Header header : headers) {
+                line.append('\t').append(header.getName()).append(':').append(header.getValue());
+            }
+            return line.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.redhat.repository.validator.impl.remoterepository;
+
+import java.util.Random;
+
+import org.apache.http.HttpStatus;
+
+/**
+ * Configuration of retries and circuit breaking for requests to remote repository.
+ * Failed requests (I/O errors, 5xx and 429 responses) are retried with jittered exponential backoff,
+ * after given number of consecutive failures the host is considered unhealthy
+ * and requests are rejected without being sent until the circuit breaker closes again.
+ */
+public class RetryPolicy {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 500, 30000, 20, 30000);
+
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0, Integer.MAX_VALUE, 0);
+
+    private final int maxRetries;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final int circuitBreakerThreshold;
+    private final long circuitBreakerOpenMillis;
+    private final Random random = new Random();
+
+    /**
+     * @param maxRetries maximum number of retries of one request
+     * @param initialDelayMillis delay before the first retry, doubled for every next retry
+     * @param maxDelayMillis upper bound of delay, including delay requested by <code>Retry-After</code> header
+     * @param circuitBreakerThreshold number of consecutive failures, which opens circuit breaker for the host
+     * @param circuitBreakerOpenMillis how long are requests to unhealthy host rejected, before one probe request is allowed
+     */
+    public RetryPolicy(int maxRetries, long initialDelayMillis, long maxDelayMillis, int circuitBreakerThreshold, long circuitBreakerOpenMillis) {
+        this.maxRetries = maxRetries;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+        this.circuitBreakerOpenMillis = circuitBreakerOpenMillis;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    public long getCircuitBreakerOpenMillis() {
+        return circuitBreakerOpenMillis;
+    }
+
+    public boolean isRetryable(int httpStatusCode) {
+        return httpStatusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR || httpStatusCode == 429;
+    }
+
+    /**
+     * Returns delay before given retry (starting from 1), randomized between half and full exponential backoff,
+     * but at least <code>retryAfterMillis</code>, and at most maximal delay.
+     */
+    public long getDelayMillis(int retry, long retryAfterMillis) {
+        long backoff = initialDelayMillis << Math.min(retry - 1, 30);
+        if (backoff <= 0 || backoff > maxDelayMillis) {
+            backoff = maxDelayMillis;
+        }
+        long jittered = backoff / 2 + (long) (random.nextDouble() * (backoff - backoff / 2));
+        return Math.min(Math.max(jittered, retryAfterMillis), maxDelayMillis);
+    }
+
+}
@@ -2,15 +2,19 @@ package com.redhat.repository.validator.impl.signature;
 
 import static com.redhat.repository.validator.impl.signature.JarSignatureValidatorMode.VERIFY_JAR_IS_SIGNED;
 import static com.redhat.repository.validator.impl.signature.JarSignatureValidatorMode.VERIFY_JAR_IS_UNSIGNED;
+import static com.redhat.repository.validator.impl.signature.JarSignatureVerificationMethod.IN_PROCESS;
+import static com.redhat.repository.validator.impl.signature.JarSignatureVerificationMethod.JARSIGNER;
 import static com.redhat.repository.validator.internal.Utils.relativize;
-import static org.apache.commons.io.FileUtils.listFiles;
-import static org.apache.commons.io.filefilter.FileFilterUtils.and;
-import static org.apache.commons.io.filefilter.FileFilterUtils.suffixFileFilter;
-import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -20,59 +24,145 @@ import org.apache.commons.io.filefilter.IOFileFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
+import com.redhat.repository.validator.Incremental;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
+@Incremental
 public class JarSignatureValidator implements Validator {
     
     private static final Logger logger = LoggerFactory.getLogger(JarSignatureValidator.class);
 
     @Inject @Named("jarSignatureValidatorFilter")
     private IOFileFilter fileFilter;
+    @Inject
+    private ValidatorSupport validatorSupport;
 
     private final JarSignatureValidatorMode mode;
+    private final JarSignatureVerificationMethod method;
 
     public JarSignatureValidator() {
         this(VERIFY_JAR_IS_UNSIGNED);
     }
 
     public JarSignatureValidator(JarSignatureValidatorMode mode) {
+        this(mode, IN_PROCESS);
+    }
+
+    public JarSignatureValidator(JarSignatureValidatorMode mode, JarSignatureVerificationMethod method) {
         this.mode = mode;
+        this.method = method;
     }
 
     @Override
-    public void validate(ValidatorContext ctx) {
-        Collection<File> files = listFiles(ctx.getValidatedRepository(), and(fileFilter, suffixFileFilter(".jar")), trueFileFilter());
-        for (File file : files) {
-            logger.trace("validating {}", relativize(ctx, file));
-            validateSignature(ctx, file);
+    public void validate(final ValidatorContext ctx) {
+        List<File> files = new ArrayList<File>(ctx.getRepositoryIndex().listFilesByExtension("jar", fileFilter));
+        List<Exception> errors = validatorSupport.mapInOrder(files, 0, new Function<File, Exception>() {
+            @Override
+            public Exception apply(File file) {
+                return validateSignature(ctx, file);
+            }
+        });
+        for (int i = 0; i < files.size(); i++) {
+            reportError(ctx, files.get(i), errors.get(i));
         }
     }
 
-    private void validateSignature(ValidatorContext ctx, File file) {
+    private void reportError(ValidatorContext ctx, File file, Exception error) {
+        if (error != null) {
+            ctx.addError(this, file, error);
+        }
+    }
+
+    private Exception validateSignature(ValidatorContext ctx, File file) {
+        logger.trace("validating {}", relativize(ctx, file));
         File fileRelative = relativize(ctx, file);
+        try {
+            boolean signed = method == JARSIGNER ? isSignedByJarsigner(file, fileRelative) : isSignedInProcess(file, fileRelative);
+            if (signed && mode == VERIFY_JAR_IS_UNSIGNED) {
+                return new JarSignedException(fileRelative);
+            }
+            if (!signed && mode == VERIFY_JAR_IS_SIGNED) {
+                return new JarUnsignedException(fileRelative);
+            }
+            return null;
+        } catch (JarSignatureVerificationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Reads all entries with verification enabled, so any tampered entry throws {@link SecurityException}, 
+     * jar is signed if at least one entry has code signers (same as <code>jarsigner -verify</code>).
+     */
+    private boolean isSignedInProcess(File file, File fileRelative) throws JarSignatureVerificationException {
+        JarFile jarFile = null;
+        try {
+            jarFile = new JarFile(file, true);
+            byte[] buffer = new byte[8192];
+            boolean signed = false;
+            boolean signatureFiles = false;
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (isSignatureFile(entry.getName())) {
+                    signatureFiles = true;
+                }
+                InputStream is = jarFile.getInputStream(entry);
+                try {
+                    while (is.read(buffer) != -1) {
+                        // entry must be read completely before code signers are available
+                    }
+                } finally {
+                    IOUtils.closeQuietly(is);
+                }
+                if (entry.getCodeSigners() != null) {
+                    signed = true;
+                }
+            }
+            if (signatureFiles && !signed) {
+                // jarsigner doesn't report such jar as unsigned either
+                throw new SecurityException("jar contains signature files, but none of its entries is verified, it may be signed with disabled algorithm");
+            }
+            return signed;
+        } catch (IOException e) {
+            throw new JarSignatureVerificationException(fileRelative, e);
+        } catch (SecurityException e) {
+            throw new JarSignatureVerificationException(fileRelative, e);
+        } finally {
+            IOUtils.closeQuietly(jarFile);
+        }
+    }
+
+    private static boolean isSignatureFile(String name) {
+        String upperCaseName = name.toUpperCase(Locale.ENGLISH);
+        return upperCaseName.startsWith("META-INF/") && upperCaseName.endsWith(".SF");
+    }
+
+    private boolean isSignedByJarsigner(File file, File fileRelative) throws JarSignatureVerificationException {
         try {
             ProcessBuilder pb = new ProcessBuilder("jarsigner", "-verify", file.getAbsolutePath());
             Process p = pb.start();
             p.waitFor();
             String output = IOUtils.toString(p.getInputStream());
             if (p.exitValue() == 0 && output.contains("jar is unsigned")) {
-                if (mode == VERIFY_JAR_IS_SIGNED) {
-                    ctx.addError(this, file, new JarUnsignedException(fileRelative));
-                }
+                return false;
             } else if (p.exitValue() == 0 && output.contains("jar verified")) {
-                if (mode == VERIFY_JAR_IS_UNSIGNED) {
-                    ctx.addError(this, file, new JarSignedException(fileRelative));
-                }
+                return true;
             } else {
-                ctx.addError(this, file, new JarSignatureVerificationException(fileRelative, output));
+                throw new JarSignatureVerificationException(fileRelative, output);
             }
         } catch (InterruptedException e) {
-            ctx.addError(this, file, new JarSignatureVerificationException(fileRelative, e));
+            throw new JarSignatureVerificationException(fileRelative, e);
         } catch (IOException e) {
-            ctx.addError(this, file, new JarSignatureVerificationException(fileRelative, e));
+            throw new JarSignatureVerificationException(fileRelative, e);
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.redhat.repository.validator.impl.signature;
+
+public enum JarSignatureVerificationMethod {
+
+    /**
+     * Verifies signatures in-process via {@link java.util.jar.JarFile}.
+     */
+    IN_PROCESS,
+
+    /**
+     * Verifies signatures by forked <code>jarsigner -verify</code> process.
+     */
+    JARSIGNER
+
+}
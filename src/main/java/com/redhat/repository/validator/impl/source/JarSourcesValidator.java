@@ -1,12 +1,10 @@
 package com.redhat.repository.validator.impl.source;
 
 import static com.redhat.repository.validator.internal.Utils.relativize;
-import static org.apache.commons.io.FileUtils.listFiles;
 import static org.apache.commons.io.FilenameUtils.removeExtension;
 import static org.apache.commons.io.filefilter.FileFilterUtils.and;
 import static org.apache.commons.io.filefilter.FileFilterUtils.notFileFilter;
 import static org.apache.commons.io.filefilter.FileFilterUtils.suffixFileFilter;
-import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
 
 import java.io.File;
 import java.util.Collection;
@@ -18,10 +16,12 @@ import org.apache.commons.io.filefilter.IOFileFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.redhat.repository.validator.Incremental;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
 
 @Named
+@Incremental
 public class JarSourcesValidator implements Validator {
 
     private static final Logger logger = LoggerFactory.getLogger(JarSourcesValidator.class);
@@ -32,7 +32,7 @@ public class JarSourcesValidator implements Validator {
 
     @Override
     public void validate(ValidatorContext ctx) {
-        Collection<File> files = listFiles(ctx.getValidatedRepository(), and(fileFilter, excludeUncheckedJarsFilter()), trueFileFilter());
+        Collection<File> files = ctx.getRepositoryIndex().listFiles(and(fileFilter, excludeUncheckedJarsFilter()));
         for (File file : files) {
             logger.trace("validating {}", relativize(ctx, file));
             validateSources(ctx, file);
@@ -46,7 +46,7 @@ public class JarSourcesValidator implements Validator {
             return;
         }
         File sourcesFile = new File(jarDir, removeExtension(jarName) + "-sources.jar");
-        if (!sourcesFile.exists() || !sourcesFile.isFile()) {
+        if (!ctx.getRepositoryIndex().isFile(sourcesFile)) {
             ctx.addError(this, file, new JarSourcesVerificationException(relativize(ctx, file)));
         }
     }
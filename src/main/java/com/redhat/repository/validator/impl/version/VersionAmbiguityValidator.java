@@ -1,6 +1,10 @@
 package com.redhat.repository.validator.impl.version;
 
 import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
@@ -12,12 +16,16 @@ import org.apache.maven.model.Model;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.RunsAfter;
+import com.redhat.repository.validator.ShardableValidator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.DependenciesValidator;
+import com.redhat.repository.validator.internal.Utils;
 import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
-public class VersionAmbiguityValidator implements Validator {
+@RunsAfter(DependenciesValidator.class)
+public class VersionAmbiguityValidator implements ShardableValidator<VersionAmbiguityValidator.PomVersion> {
 
     @Inject @Named("versionAmbiguityValidatorFilter")
     private IOFileFilter fileFilter;
@@ -26,23 +34,44 @@ public class VersionAmbiguityValidator implements Validator {
 
     @Override
     public void validate(ValidatorContext ctx) {
-        ListMultimap<String, File> ga2filesMap = ArrayListMultimap.create();
-        ListMultimap<String, String> ga2versionsMap = ArrayListMultimap.create();
-
-        collectVersions(ctx, ga2filesMap, ga2versionsMap);
-        validateAmbiguity(ctx, ga2filesMap, ga2versionsMap);
+        validateFacts(ctx, collectFacts(ctx));
     }
 
-    private void collectVersions(ValidatorContext ctx, ListMultimap<String, File> ga2filesMap, ListMultimap<String, String> ga2versionsMap) {
+    @Override
+    public List<PomVersion> collectFacts(ValidatorContext ctx) {
+        List<PomVersion> pomVersions = new ArrayList<PomVersion>();
         Iterator<Model> modelIterator = validatorSupport.effectiveModelIterator(ctx, fileFilter);
         while (modelIterator.hasNext()) {
             Model model = modelIterator.next();
             if (model != null) {
                 String ga = model.getGroupId() + ":" + model.getArtifactId();
-                ga2filesMap.put(ga, model.getPomFile());
-                ga2versionsMap.put(ga, model.getVersion());
+                pomVersions.add(new PomVersion(Utils.relativePath(ctx.getValidatedRepository(), model.getPomFile()), ga, model.getVersion()));
             }
         }
+        return pomVersions;
+    }
+
+    @Override
+    public void validateFacts(ValidatorContext ctx, List<PomVersion> pomVersions) {
+        ListMultimap<String, File> ga2filesMap = ArrayListMultimap.create();
+        ListMultimap<String, String> ga2versionsMap = ArrayListMultimap.create();
+
+        collectVersions(ctx, pomVersions, ga2filesMap, ga2versionsMap);
+        validateAmbiguity(ctx, ga2filesMap, ga2versionsMap);
+    }
+
+    private void collectVersions(ValidatorContext ctx, List<PomVersion> pomVersions, ListMultimap<String, File> ga2filesMap, ListMultimap<String, String> ga2versionsMap) {
+        List<PomVersion> sortedPomVersions = new ArrayList<PomVersion>(pomVersions);
+        Collections.sort(sortedPomVersions, new Comparator<PomVersion>() {
+            @Override
+            public int compare(PomVersion v1, PomVersion v2) {
+                return v1.path.compareTo(v2.path);
+            }
+        });
+        for (PomVersion pomVersion : sortedPomVersions) {
+            ga2filesMap.put(pomVersion.ga, new File(ctx.getValidatedRepository(), pomVersion.path));
+            ga2versionsMap.put(pomVersion.ga, pomVersion.version);
+        }
     }
 
     private void validateAmbiguity(ValidatorContext ctx, ListMultimap<String, File> ga2filesMap, ListMultimap<String, String> ga2versionsMap) {
@@ -57,4 +86,20 @@ public class VersionAmbiguityValidator implements Validator {
         }
     }
 
-}
\ No newline at end of file
+    public static class PomVersion implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+        private final String ga;
+        private final String version;
+
+        private PomVersion(String path, String ga, String version) {
+            this.path = path;
+            this.ga = ga;
+            this.version = version;
+        }
+
+    }
+
+}
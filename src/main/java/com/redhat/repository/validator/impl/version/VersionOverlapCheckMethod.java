@@ -0,0 +1,16 @@
+package com.redhat.repository.validator.impl.version;
+
+public enum VersionOverlapCheckMethod {
+
+    /**
+     * Resolves pom of every validated artifact from every remote repository into temporary local repository.
+     */
+    RESOLVE,
+
+    /**
+     * Looks up versions in <code>maven-metadata.xml</code> of remote repositories, fetched once per groupId:artifactId,
+     * artifacts without usable metadata are checked by HEAD request.
+     */
+    METADATA
+
+}
@@ -3,8 +3,12 @@ package com.redhat.repository.validator.impl.version;
 import static com.redhat.repository.validator.internal.Utils.relativize;
 
 import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -15,20 +19,31 @@ import org.apache.maven.model.Model;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.LocalRepositoryManager;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.util.repository.SimpleResolutionErrorPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
+import com.redhat.repository.validator.Incremental;
+import com.redhat.repository.validator.RunsAfter;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.DependenciesValidator;
+import com.redhat.repository.validator.internal.RemoteMetadataCache;
+import com.redhat.repository.validator.internal.TransientLocalRepositoryManager;
 import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
+@RunsAfter(DependenciesValidator.class)
+@Incremental(remote = true)
 public class VersionOverlapValidator implements Validator {
     
     private static final Logger logger = LoggerFactory.getLogger(VersionOverlapValidator.class);
@@ -41,77 +56,112 @@ public class VersionOverlapValidator implements Validator {
     private RepositorySystem repositorySystem;
     @Inject
     private RepositorySystemSession repositorySystemSession;
+    @Inject
+    private RemoteMetadataCache remoteMetadataCache;
 
-    @Override
-    public void validate(ValidatorContext ctx) {
-        Iterator<Model> modelIterator = validatorSupport.effectiveModelIterator(ctx, fileFilter);
-        while (modelIterator.hasNext()) {
-            Model model = modelIterator.next();
-            if (model != null) {
-                logger.trace("validating {}", relativize(ctx, model.getPomFile()));
-                validateVersionOverlap(ctx, model);
-            }
-        }
-    }
+    private final VersionOverlapCheckMethod checkMethod;
+    private final int threads;
+    private final File tempDir = new File("workspace", "temp");
 
-    private void validateVersionOverlap(ValidatorContext ctx, Model model) {
-        File tmpLocalRepository = createTempLocalRepository();
-        RepositorySystemSession tmpSession = createTempSession(tmpLocalRepository);
-        
-        boolean first = true;
-        for (RemoteRepository remoteRepository : ctx.getRemoteRepositories()) {
-            if (first) {
-                first = false;
-                continue; // first remote repository is the validated repository, so we want to skip it
-            }
+    public VersionOverlapValidator() {
+        this(VersionOverlapCheckMethod.RESOLVE);
+    }
 
-            cleanTempLocalRepository(tmpLocalRepository);            
-            
-            ArtifactRequest request = new ArtifactRequest();
-            request.setArtifact(new DefaultArtifact(model.getGroupId(), model.getArtifactId(), "pom", model.getVersion()));
-            request.addRepository(remoteRepository);
-            try {
-                repositorySystem.resolveArtifact(tmpSession, request);
-                ctx.addError(this, model.getPomFile(), new VersionOverlapException(model.getId(), remoteRepository));
-            } catch (ArtifactResolutionException e) {
-                // noop
-            }
-        }
-        
-        deleteTempLocalRepository(tmpLocalRepository);
+    public VersionOverlapValidator(VersionOverlapCheckMethod checkMethod) {
+        this(checkMethod, 0);
     }
 
-    private RepositorySystemSession createTempSession(File tmpLocalRepository) {
-        DefaultRepositorySystemSession tempSession = new DefaultRepositorySystemSession(repositorySystemSession);
-        LocalRepositoryManager tempLocalRepositoryManager = repositorySystem.newLocalRepositoryManager(tempSession, new LocalRepository(tmpLocalRepository));
-        tempSession.setLocalRepositoryManager(tempLocalRepositoryManager);
-        return tempSession;
+    /**
+     * @param threads number of poms validated concurrently, zero means same number as global validation threads
+     */
+    public VersionOverlapValidator(VersionOverlapCheckMethod checkMethod, int threads) {
+        this.checkMethod = checkMethod;
+        this.threads = threads;
     }
 
-    private File createTempLocalRepository() {
-        File tempLocalRepository = new File("workspace", "temp");
+    @Override
+    public void validate(final ValidatorContext ctx) {
+        final Queue<RepositorySystemSession> sessions = new ConcurrentLinkedQueue<RepositorySystemSession>();
+        final AtomicInteger sessionCount = new AtomicInteger();
         try {
-            FileUtils.forceMkdir(tempLocalRepository);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            List<Model> models = new ArrayList<Model>();
+            Iterator<Model> modelIterator = validatorSupport.effectiveModelIterator(ctx, fileFilter);
+            while (modelIterator.hasNext()) {
+                Model model = modelIterator.next();
+                if (model != null) {
+                    models.add(model);
+                }
+            }
+            List<List<Exception>> errors = validatorSupport.mapInOrder(models, threads, new Function<Model, List<Exception>>() {
+                @Override
+                public List<Exception> apply(Model model) {
+                    RepositorySystemSession session = borrowSession(sessions, sessionCount);
+                    try {
+                        return validateVersionOverlap(ctx, model, session);
+                    } finally {
+                        if (session != null) {
+                            sessions.add(session);
+                        }
+                    }
+                }
+            });
+            for (int i = 0; i < models.size(); i++) {
+                for (Exception error : errors.get(i)) {
+                    ctx.addError(this, models.get(i).getPomFile(), error);
+                }
+            }
+        } finally {
+            if (sessionCount.get() > 0) {
+                FileUtils.deleteQuietly(tempDir);
+            }
         }
-        return tempLocalRepository;
     }
 
-    private void cleanTempLocalRepository(File tempLocalRepository) {
-        try {
-            FileUtils.cleanDirectory(tempLocalRepository);
-        } catch (IOException e1) {
-            throw new RuntimeException(e1);
+    private List<Exception> validateVersionOverlap(ValidatorContext ctx, Model model, RepositorySystemSession session) {
+        logger.trace("validating {}", relativize(ctx, model.getPomFile()));
+        List<Exception> errors = new ArrayList<Exception>();
+        Artifact artifact = new DefaultArtifact(model.getGroupId(), model.getArtifactId(), "pom", model.getVersion());
+        List<RemoteRepository> remoteRepositories = ctx.getRemoteRepositories();
+        // first remote repository is the validated repository, so we want to skip it
+        for (RemoteRepository remoteRepository : remoteRepositories.subList(Math.min(1, remoteRepositories.size()), remoteRepositories.size())) {
+            if (exists(session, remoteRepository, artifact)) {
+                errors.add(new VersionOverlapException(model.getId(), remoteRepository));
+            }
         }
+        return errors;
     }
 
-    private void deleteTempLocalRepository(File tempLocalRepository) {
+    private boolean exists(RepositorySystemSession session, RemoteRepository remoteRepository, Artifact artifact) {
+        if (checkMethod == VersionOverlapCheckMethod.METADATA) {
+            return remoteMetadataCache.exists(repositorySystemSession, remoteRepository, artifact);
+        }
+        ArtifactRequest request = new ArtifactRequest();
+        request.setArtifact(artifact);
+        request.addRepository(remoteRepository);
         try {
-            FileUtils.deleteDirectory(tempLocalRepository);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            repositorySystem.resolveArtifact(session, request);
+            return true;
+        } catch (ArtifactResolutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns session not used by other thread, which resolves artifacts only from remote repositories, 
+     * so the result doesn't depend on previously resolved artifacts.
+     */
+    private RepositorySystemSession borrowSession(Queue<RepositorySystemSession> sessions, AtomicInteger sessionCount) {
+        RepositorySystemSession session = sessions.poll();
+        if (session == null && checkMethod == VersionOverlapCheckMethod.RESOLVE) {
+            File localRepositoryDir = new File(tempDir, "version-overlap-" + sessionCount.incrementAndGet());
+            DefaultRepositorySystemSession newSession = new DefaultRepositorySystemSession(repositorySystemSession);
+            LocalRepositoryManager localRepositoryManager = repositorySystem.newLocalRepositoryManager(newSession, new LocalRepository(localRepositoryDir));
+            newSession.setLocalRepositoryManager(new TransientLocalRepositoryManager(localRepositoryManager));
+            newSession.setUpdatePolicy(RepositoryPolicy.UPDATE_POLICY_ALWAYS);
+            newSession.setResolutionErrorPolicy(new SimpleResolutionErrorPolicy(false, false));
+            session = newSession;
         }
+        return session;
     }
 
-}
\ No newline at end of file
+}
@@ -5,60 +5,77 @@ import static org.apache.commons.io.filefilter.FileFilterUtils.and;
 import static org.apache.commons.io.filefilter.FileFilterUtils.nameFileFilter;
 import static org.apache.commons.io.filefilter.FileFilterUtils.notFileFilter;
 import static org.apache.commons.io.filefilter.FileFilterUtils.suffixFileFilter;
-import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.xml.XMLConstants;
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
+import javax.xml.stream.XMLStreamException;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
+import com.google.common.base.Function;
+import com.redhat.repository.validator.Incremental;
 import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.internal.ValidatorSupport;
 
 @Named
+@Incremental
 public class XmlFileValidator implements Validator {
 
     @Inject @Named("xmlFileValidatorFilter")
     private IOFileFilter fileFilter;
+    @Inject
+    private ValidatorSupport validatorSupport;
     private static final Logger logger = LoggerFactory.getLogger(XmlFileValidator.class);
 
+    private final XmlValidatorEngine engine = new XmlValidatorEngine();
+
     @Override
-    public void validate(ValidatorContext ctx) {
-        Collection<File> xmlFiles = FileUtils.listFiles(ctx.getValidatedRepository(), and(fileFilter, excludePomFilesFilter(), includeXmlFileFilter()), trueFileFilter());
-        for (File xmlFile : xmlFiles) {
-            logger.trace("validating {}", relativize(ctx, xmlFile));
-            validateFile(ctx, xmlFile);
+    public void validate(final ValidatorContext ctx) {
+        List<File> xmlFiles = new ArrayList<File>(ctx.getRepositoryIndex().listFiles(and(fileFilter, excludePomFilesFilter(), includeXmlFileFilter())));
+        List<Exception> errors = validatorSupport.mapInOrder(xmlFiles, 0, new Function<File, Exception>() {
+            @Override
+            public Exception apply(File xmlFile) {
+                return validateFile(ctx, xmlFile);
+            }
+        });
+        for (int i = 0; i < xmlFiles.size(); i++) {
+            reportError(ctx, xmlFiles.get(i), errors.get(i));
         }
+    }
 
+    private void reportError(ValidatorContext ctx, File xmlFile, Exception error) {
+        if (error != null) {
+            ctx.addError(this, xmlFile, error);
+        }
     }
 
-    private void validateFile(ValidatorContext ctx, File xmlFile) {
+    private Exception validateFile(ValidatorContext ctx, File xmlFile) {
+        logger.trace("validating {}", relativize(ctx, xmlFile));
         try {
-            Source xmlSource = new StreamSource(xmlFile);
-            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = factory.newSchema();
-            javax.xml.validation.Validator validator = schema.newValidator();
-            validator.validate(xmlSource);
+            engine.validate(xmlFile);
+            return null;
+        } catch (XMLStreamException e) {
+            if (e.getLocation() != null) {
+                return new XmlVerificationException(relativize(ctx, xmlFile), formatException(e));
+            }
+            return new XmlVerificationException(relativize(ctx, xmlFile), e);
         } catch (SAXParseException e) {
-            ctx.addError(this, xmlFile, new XmlVerificationException(relativize(ctx, xmlFile), formatException(e)));
+            return new XmlVerificationException(relativize(ctx, xmlFile), formatException(e));
         } catch (SAXException e) {
-            ctx.addError(this, xmlFile, new XmlVerificationException(relativize(ctx, xmlFile), e));
+            return new XmlVerificationException(relativize(ctx, xmlFile), e);
         } catch (IOException e) {
-            ctx.addError(this, xmlFile, new XmlVerificationException(relativize(ctx, xmlFile), e));
+            return new XmlVerificationException(relativize(ctx, xmlFile), e);
         }
     }
 
@@ -73,4 +90,12 @@ public class XmlFileValidator implements Validator {
     private String formatException(SAXParseException x) {
         return String.format("(%d, %d): %s", x.getLineNumber(), x.getColumnNumber(), x.getMessage());
     }
+
+    private String formatException(XMLStreamException x) {
+        String message = x.getMessage();
+        if (message != null && message.contains("Message: ")) {
+            message = StringUtils.substringAfter(message, "Message: ");
+        }
+        return String.format("(%d, %d): %s", x.getLocation().getLineNumber(), x.getLocation().getColumnNumber(), message);
+    }
 }
@@ -0,0 +1,91 @@
+package com.redhat.repository.validator.impl.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import org.apache.commons.io.IOUtils;
+import org.xml.sax.SAXException;
+
+/**
+ * Checks that xml file is well-formed with StAX parser, and validates it against schema only if it declares some.
+ * Compiled schemas are shared, validators are reused per thread.
+ */
+class XmlValidatorEngine {
+
+    private final XMLInputFactory inputFactory;
+    private final Schema schema;
+    private final ThreadLocal<Validator> validators = new ThreadLocal<Validator>() {
+        @Override
+        protected Validator initialValue() {
+            return schema.newValidator();
+        }
+    };
+
+    XmlValidatorEngine() {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        inputFactory.setXMLResolver(new XMLResolver() {
+            @Override
+            public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) {
+                // external DTDs are not needed for well-formedness check
+                return new ByteArrayInputStream(new byte[0]);
+            }
+        });
+        try {
+            // schema is located via hints in validated documents, loaded grammars are shared by its validators
+            schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema();
+        } catch (SAXException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void validate(File xmlFile) throws XMLStreamException, SAXException, IOException {
+        if (checkWellFormed(xmlFile)) {
+            Validator validator = validators.get();
+            validator.reset();
+            validator.validate(new StreamSource(xmlFile));
+        }
+    }
+
+    /**
+     * Parses whole file and returns true if its root element declares schema location.
+     */
+    private boolean checkWellFormed(File xmlFile) throws XMLStreamException, IOException {
+        boolean schemaDeclared = false;
+        boolean rootElement = true;
+        InputStream is = new FileInputStream(xmlFile);
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(is);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && rootElement) {
+                    rootElement = false;
+                    schemaDeclared = 
+                            reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "schemaLocation") != null || 
+                            reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "noNamespaceSchemaLocation") != null;
+                }
+            }
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+            IOUtils.closeQuietly(is);
+        }
+        return schemaDeclared;
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.redhat.repository.validator.internal;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.redhat.repository.validator.ExceptionVisitor;
+import com.redhat.repository.validator.ValidationError;
+import com.redhat.repository.validator.Validator;
+
+/**
+ * Base of error stores, maintains indexes of records, subclasses decide what records hold and how they turn back into errors.
+ */
+public abstract class AbstractErrorStore<R extends AbstractErrorStore.Record> implements ErrorStore {
+
+    private static final Object NULL_KEY = new Object();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+    // keyed by sequence, every view iterates records in this one order
+    private final ConcurrentNavigableMap<Long, R> errors = new ConcurrentSkipListMap<Long, R>();
+    private final ConcurrentMap<File, ConcurrentNavigableMap<Long, R>> errorsByFile = new ConcurrentHashMap<File, ConcurrentNavigableMap<Long, R>>();
+    private final ConcurrentMap<Object, ConcurrentNavigableMap<Long, R>> errorsByValidator = new ConcurrentHashMap<Object, ConcurrentNavigableMap<Long, R>>();
+    private final ConcurrentMap<Class<? extends Exception>, ConcurrentNavigableMap<Long, R>> errorsByExceptionClass = new ConcurrentHashMap<Class<? extends Exception>, ConcurrentNavigableMap<Long, R>>();
+
+    protected abstract R createRecord(ValidationError error);
+
+    /**
+     * Returns errors of given records, in the same order.
+     */
+    protected abstract List<ValidationError> toErrors(Collection<R> records);
+
+    /**
+     * Returns exception of given record, spooled exception is read again on each call.
+     */
+    protected abstract Exception toException(R record);
+
+    @Override
+    public void add(ValidationError error) {
+        R record = createRecord(error);
+        // claimed only after record is created, so sequences stay gapless and also serve as positions
+        record.sequence = sequence.getAndIncrement();
+        record.message = defaultString(error.getException().getMessage());
+        errors.put(record.sequence, record);
+        size.incrementAndGet();
+        if (error.getFile() != null) {
+            index(errorsByFile, error.getFile(), record);
+        }
+        index(errorsByValidator, error.getValidator() != null ? error.getValidator() : NULL_KEY, record);
+        index(errorsByExceptionClass, error.getException().getClass(), record);
+    }
+
+    private static <K, R extends Record> void index(ConcurrentMap<K, ConcurrentNavigableMap<Long, R>> map, K key, R record) {
+        ConcurrentNavigableMap<Long, R> records = map.get(key);
+        if (records == null) {
+            ConcurrentNavigableMap<Long, R> newRecords = new ConcurrentSkipListMap<Long, R>();
+            records = map.putIfAbsent(key, newRecords);
+            if (records == null) {
+                records = newRecords;
+            }
+        }
+        records.put(record.sequence, record);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public List<ValidationError> getErrors() {
+        return errorsOf(errors);
+    }
+
+    @Override
+    public List<ValidationError> getErrorsFrom(int index) {
+        // stops at first sequence not yet published, so no error is skipped by the next call
+        List<R> records = new ArrayList<R>();
+        long expected = Math.max(index, 0);
+        for (R record : errors.tailMap(expected).values()) {
+            if (record.sequence != expected++) {
+                break;
+            }
+            records.add(record);
+        }
+        return errorsOf(records);
+    }
+
+    @Override
+    public List<ValidationError> getErrors(File file) {
+        return errorsOf(errorsByFile.get(file));
+    }
+
+    @Override
+    public boolean hasErrors(File file) {
+        Map<Long, R> records = errorsByFile.get(file);
+        return records != null && !records.isEmpty();
+    }
+
+    @Override
+    public List<ValidationError> getErrors(Validator validator) {
+        return errorsOf(errorsByValidator.get(validator != null ? validator : NULL_KEY));
+    }
+
+    @Override
+    public List<ValidationError> getErrors(Class<? extends Exception> exceptionType) {
+        List<Map<Long, R>> matching = new ArrayList<Map<Long, R>>();
+        for (Class<?> exceptionClass : errorsByExceptionClass.keySet()) {
+            if (exceptionType.isAssignableFrom(exceptionClass)) {
+                matching.add(errorsByExceptionClass.get(exceptionClass));
+            }
+        }
+        if (matching.size() == 1) {
+            return errorsOf(matching.get(0));
+        }
+
+        Map<Long, R> records = new TreeMap<Long, R>();
+        for (Map<Long, R> map : matching) {
+            records.putAll(map);
+        }
+        return errorsOf(records);
+    }
+
+    @Override
+    public List<ValidationError> getErrorsOfClass(Class<? extends Exception> exceptionClass) {
+        return errorsOf(errorsByExceptionClass.get(exceptionClass));
+    }
+
+    private List<ValidationError> errorsOf(Map<Long, R> records) {
+        return records != null ? errorsOf(records.values()) : Collections.<ValidationError> emptyList();
+    }
+
+    private List<ValidationError> errorsOf(Collection<R> records) {
+        return Collections.unmodifiableList(toErrors(records));
+    }
+
+    @Override
+    public void visitExceptionsOfClass(Class<? extends Exception> exceptionClass, ExceptionVisitor<Exception> visitor) {
+        Map<Long, R> records = errorsByExceptionClass.get(exceptionClass);
+        if (records == null) {
+            return;
+        }
+        List<R> sortedRecords = new ArrayList<R>(records.values());
+        Collections.sort(sortedRecords, new Comparator<R>() {
+            @Override
+            public int compare(R r1, R r2) {
+                int result = r1.message.compareTo(r2.message);
+                return result != 0 ? result : Long.compare(r1.sequence, r2.sequence);
+            }
+        });
+
+        // duplicates (same instance or equal exception) have the same message, so they are looked for only in its group
+        String message = null;
+        Set<Object> visitedKeys = new HashSet<Object>();
+        Set<Exception> visitedExceptions = new HashSet<Exception>();
+        for (R record : sortedRecords) {
+            if (!record.message.equals(message)) {
+                message = record.message;
+                visitedKeys.clear();
+                visitedExceptions.clear();
+            }
+            if (visitedKeys.add(record.getExceptionKey())) {
+                Exception exception = toException(record);
+                if (visitedExceptions.add(exception)) {
+                    visitor.visit(exception);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getExceptionCountOfClass(Class<? extends Exception> exceptionClass) {
+        Map<Long, R> records = errorsByExceptionClass.get(exceptionClass);
+        if (records == null) {
+            return 0;
+        }
+        Set<Object> keys = new HashSet<Object>();
+        for (R record : records.values()) {
+            keys.add(record.getExceptionKey());
+        }
+        return keys.size();
+    }
+
+    @Override
+    public Set<Class<? extends Exception>> getExceptionTypes() {
+        return Collections.unmodifiableSet(new HashSet<Class<? extends Exception>>(errorsByExceptionClass.keySet()));
+    }
+
+    protected abstract static class Record {
+
+        // assigned by store before record is published, message is kept in memory to order spooled exceptions
+        long sequence;
+        String message;
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns object identifying exception of this record, it is the same for records sharing one exception instance.
+         */
+        protected abstract Object getExceptionKey();
+
+    }
+
+}
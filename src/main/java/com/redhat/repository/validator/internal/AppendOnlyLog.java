@@ -0,0 +1,222 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Map of records persisted in append-only file with one tab separated line per record, the last line of each key wins.
+ * File is loaded lazily, new records are appended by {@link #flush()},
+ * which also compacts the file when it contains too many obsolete lines.
+ * Long-running process keeps loaded records between validation runs, unless the file was changed by another process.
+ */
+public abstract class AppendOnlyLog<R> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppendOnlyLog.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int COMPACTION_RATIO = 2;
+    private static final int COMPACTION_MIN_LINES = 1000;
+
+    private final File file;
+    private final String name;
+    private final ConcurrentMap<String, R> records = new ConcurrentHashMap<String, R>();
+    private final Queue<R> pendingRecords = new ConcurrentLinkedQueue<R>();
+    private boolean loaded;
+    private int lineCount;
+    private String fileStamp;
+
+    /**
+     * @param file file of the log, null means disabled log, which keeps nothing
+     * @param name name of the log used in log messages, e.g. <code>hash cache</code>
+     */
+    protected AppendOnlyLog(File file, String name) {
+        this.file = file;
+        this.name = name;
+    }
+
+    protected abstract String getKey(R record);
+
+    /**
+     * Returns record parsed from given line, or null if the line is malformed.
+     */
+    protected abstract R parse(String line);
+
+    /**
+     * Returns line of given record, with fields separated by tab, without line separator.
+     */
+    protected abstract String format(R record);
+
+    /**
+     * Returns true if given record should survive compaction.
+     */
+    protected abstract boolean isValid(R record);
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    public R get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        load();
+        return records.get(key);
+    }
+
+    /**
+     * Stores given record, it is appended to the file only if its key and fields can't break the line format.
+     */
+    public void put(R record, boolean persistable) {
+        if (!isEnabled()) {
+            return;
+        }
+        load();
+        records.put(getKey(record), record);
+        if (persistable) {
+            pendingRecords.add(record);
+        }
+    }
+
+    public static boolean isPersistable(String value) {
+        return StringUtils.containsNone(value, '\t', '\n', '\r');
+    }
+
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        fileStamp = fileStamp();
+        records.clear();
+        lineCount = 0;
+        if (!file.isFile()) {
+            return;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                R record = parse(line);
+                if (record != null) {
+                    records.put(getKey(record), record);
+                }
+            }
+            logger.debug("loaded {} records of {} from {}", records.size(), name, file);
+        } catch (IOException e) {
+            logger.warn("unable to load {} {}: {}", name, file, e.getMessage());
+            records.clear();
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Appends new records to the file and compacts it, if it contains too many obsolete lines.
+     */
+    public synchronized void flush() {
+        if (!isEnabled() || !loaded) {
+            return;
+        }
+        List<R> newRecords = new ArrayList<R>();
+        R record;
+        while ((record = pendingRecords.poll()) != null) {
+            newRecords.add(record);
+        }
+        if (!newRecords.isEmpty()) {
+            Writer writer = null;
+            try {
+                file.getAbsoluteFile().getParentFile().mkdirs();
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), UTF_8));
+                for (R newRecord : newRecords) {
+                    writer.write(format(newRecord));
+                    writer.write('\n');
+                }
+                lineCount += newRecords.size();
+            } catch (IOException e) {
+                logger.warn("unable to write {} {}: {}", name, file, e.getMessage());
+            } finally {
+                IOUtils.closeQuietly(writer);
+            }
+        }
+        fileStamp = fileStamp();
+        if (lineCount > COMPACTION_MIN_LINES && lineCount > COMPACTION_RATIO * records.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the file with the latest valid record of each key, via temporary file moved over the file atomically.
+     */
+    public synchronized void compact() {
+        if (!isEnabled()) {
+            return;
+        }
+        load();
+        List<R> validRecords = new ArrayList<R>();
+        for (R record : records.values()) {
+            if (isValid(record)) {
+                validRecords.add(record);
+            }
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), UTF_8));
+            for (R record : validRecords) {
+                writer.write(format(record));
+                writer.write('\n');
+            }
+            writer.close();
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            fileStamp = fileStamp();
+            logger.debug("compacted {} {} from {} to {} lines", name, file, lineCount, validRecords.size());
+            records.clear();
+            for (R record : validRecords) {
+                records.put(getKey(record), record);
+            }
+            lineCount = validRecords.size();
+        } catch (IOException e) {
+            logger.warn("unable to compact {} {}: {}", name, file, e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(writer);
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Drops records not yet flushed and forces reload, if the file was changed since it was loaded or written by this log.
+     */
+    public synchronized void reset() {
+        loaded = loaded && fileStamp().equals(fileStamp);
+        pendingRecords.clear();
+    }
+
+    private String fileStamp() {
+        return file.length() + ":" + file.lastModified();
+    }
+
+}
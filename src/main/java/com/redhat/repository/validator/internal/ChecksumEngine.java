@@ -0,0 +1,152 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.aether.util.ChecksumUtils;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Calculates checksums of files, all requested digests are computed in a single read pass.
+ */
+@Named
+public class ChecksumEngine {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+    };
+
+    @Inject
+    private HashCache hashCache;
+
+    public ChecksumEngine() {
+    }
+
+    public ChecksumEngine(HashCache hashCache) {
+        this.hashCache = hashCache;
+    }
+
+    /**
+     * Returns map of algorithm names to lower case hex checksums, in order of given algorithms.
+     * If hash cache is enabled, hashes are reused while the file isn't modified, 
+     * only requested hashes not cached yet are calculated and added to cached ones.
+     */
+    public Map<String, String> calc(File file, Collection<String> algorithms) throws IOException {
+        if (hashCache == null || !hashCache.isEnabled() || !HashCache.supports(algorithms)) {
+            return digest(file, algorithms);
+        }
+
+        Set<String> normalizedAlgorithms = new LinkedHashSet<String>();
+        for (String algorithm : algorithms) {
+            normalizedAlgorithms.add(HashCache.normalize(algorithm));
+        }
+
+        HashCache.Key key = hashCache.key(file);
+        Map<String, String> hashes = hashCache.get(key, normalizedAlgorithms);
+        if (hashes == null || !hashes.keySet().containsAll(normalizedAlgorithms)) {
+            Map<String, String> mergedHashes = new LinkedHashMap<String, String>();
+            if (hashes != null) {
+                mergedHashes.putAll(hashes);
+            }
+            mergedHashes.putAll(digest(file, new ArrayList<String>(Sets.difference(normalizedAlgorithms, mergedHashes.keySet()))));
+            hashCache.put(key, mergedHashes);
+            hashes = mergedHashes;
+        }
+
+        Map<String, String> checksums = new LinkedHashMap<String, String>();
+        for (String algorithm : algorithms) {
+            checksums.put(algorithm, hashes.get(HashCache.normalize(algorithm)));
+        }
+        return checksums;
+    }
+
+    public String calc(File file, String algorithm) throws IOException {
+        return calc(file, Collections.singleton(algorithm)).get(algorithm);
+    }
+
+    static Map<String, String> digest(File file, Collection<String> algorithms) throws IOException {
+        List<MessageDigest> digests = new ArrayList<MessageDigest>();
+        for (String algorithm : algorithms) {
+            try {
+                digests.add(MessageDigest.getInstance(algorithm));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+        }
+
+        ByteBuffer buffer = buffers.get();
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            FileChannel channel = fis.getChannel();
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                for (MessageDigest digest : digests) {
+                    buffer.rewind();
+                    digest.update(buffer);
+                }
+                buffer.clear();
+            }
+        } finally {
+            IOUtils.closeQuietly(fis);
+        }
+
+        Map<String, String> checksums = new LinkedHashMap<String, String>();
+        int i = 0;
+        for (String algorithm : algorithms) {
+            checksums.put(algorithm, ChecksumUtils.toHexString(digests.get(i++).digest()));
+        }
+        return checksums;
+    }
+
+    /**
+     * Reads checksum from sidecar file with one read, the format is same as accepted by {@link ChecksumUtils#read(File)}.
+     */
+    public static String readChecksumFile(File checksumFile) throws IOException {
+        String content = new String(Files.readAllBytes(checksumFile.toPath()), UTF_8);
+        String checksum = "";
+        for (String line : content.split("\r?\n|\r")) {
+            line = line.trim();
+            if (line.length() > 0) {
+                checksum = line;
+                break;
+            }
+        }
+        if (checksum.matches(".+= [0-9A-Fa-f]+")) {
+            checksum = checksum.substring(checksum.lastIndexOf(' ') + 1);
+        } else {
+            int spacePos = checksum.indexOf(' ');
+            if (spacePos != -1) {
+                checksum = checksum.substring(0, spacePos);
+            }
+        }
+        return checksum;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.redhat.repository.validator.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sums CPU time of all threads working for one validator. Thread running a validator charges its time to the account
+ * and {@link ValidatorSupport#mapInOrder} charges time of its executor threads to account of the thread which called it,
+ * before results of their items are available.
+ */
+public class CpuTimeAccount {
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private static final ThreadLocal<CpuTimeAccount> currentAccount = new ThreadLocal<CpuTimeAccount>();
+
+    private final AtomicLong cpuTime = new AtomicLong();
+
+    /**
+     * Returns account charged by current thread, or null if current thread doesn't work for any validator.
+     */
+    public static CpuTimeAccount current() {
+        return currentAccount.get();
+    }
+
+    public static boolean isSupported() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported();
+    }
+
+    /**
+     * Calls given callable on current thread and charges CPU time it consumed to this account.
+     */
+    public <V> V call(Callable<V> callable) throws Exception {
+        CpuTimeAccount previousAccount = currentAccount.get();
+        currentAccount.set(this);
+        long start = currentThreadCpuTime();
+        try {
+            return callable.call();
+        } finally {
+            cpuTime.addAndGet(currentThreadCpuTime() - start);
+            currentAccount.set(previousAccount);
+        }
+    }
+
+    /**
+     * Returns charged CPU time in milliseconds.
+     */
+    public long getCpuTime() {
+        return cpuTime.get() / 1000000;
+    }
+
+    private static long currentThreadCpuTime() {
+        return isSupported() ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+}
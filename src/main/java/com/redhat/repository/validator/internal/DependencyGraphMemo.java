@@ -0,0 +1,282 @@
+package com.redhat.repository.validator.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.filter.DependencyFilterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.repository.validator.ValidationListener;
+import com.redhat.repository.validator.ValidatorContext;
+
+/**
+ * Run scoped memo of resolved dependency graphs. 
+ * Graph of a dependency collected under some root is reused for another root, 
+ * when both roots manage all artifacts visited during the collection in the same way.
+ * Only outcome of the resolution is kept, i.e. missing artifacts with paths to them and exception without results, 
+ * so graphs can be garbage collected right after they are resolved.
+ */
+@Named
+public class DependencyGraphMemo implements ValidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGraphMemo.class);
+
+    @Inject
+    private RepositorySystem repositorySystem;
+
+    private final ConcurrentMap<Object, List<Entry>> memo = new ConcurrentHashMap<Object, List<Entry>>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Resolves given dependency (with classpath filter for compile scope) like it is declared in root, 
+     * which manages dependencies with given list and doesn't declare other dependencies.
+     * 
+     * @param context additional values affecting resolution (e.g. repositories declared in root)
+     */
+    public Result resolve(RepositorySystemSession session, Dependency root, Dependency dependency, List<Dependency> managedDependencies, List<RemoteRepository> repositories, Object context) {
+        Object key = createKey(dependency, context);
+        Map<String, String> management = managementSignatures(managedDependencies);
+
+        List<Entry> entries = memo.get(key);
+        if (entries != null) {
+            for (Entry entry : entries) {
+                if (entry.isValidFor(management)) {
+                    hitCount.incrementAndGet();
+                    return new Result(root.getArtifact(), entry, true);
+                }
+            }
+        }
+        missCount.incrementAndGet();
+
+        Set<String> visitedKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        DefaultRepositorySystemSession recordingSession = new DefaultRepositorySystemSession(session);
+        recordingSession.setDependencyManager(new RecordingDependencyManager(session.getDependencyManager(), visitedKeys));
+
+        CollectRequest collectRequest = new CollectRequest(root, Collections.singletonList(dependency), repositories);
+        DependencyRequest dependencyRequest = new DependencyRequest(collectRequest, DependencyFilterUtils.classpathFilter(JavaScopes.COMPILE));
+
+        Entry entry;
+        try {
+            repositorySystem.resolveDependencies(recordingSession, dependencyRequest);
+            entry = new Entry(root.getArtifact(), null, Collections.<Artifact, List<List<Artifact>>> emptyMap(), restrict(management, visitedKeys));
+        } catch (DependencyResolutionException e) {
+            entry = new Entry(root.getArtifact(), (DependencyResolutionException) Utils.detachResults(e), missingArtifactPaths(e), restrict(management, visitedKeys));
+        }
+
+        List<Entry> newEntries = new CopyOnWriteArrayList<Entry>();
+        entries = memo.putIfAbsent(key, newEntries);
+        if (entries == null) {
+            entries = newEntries;
+        }
+        entries.add(entry);
+
+        return new Result(root.getArtifact(), entry, false);
+    }
+
+    /**
+     * Returns key of memoized graphs for given dependency, 
+     * resolutions with same key differ only in management of transitive dependencies.
+     */
+    public Object createKey(Dependency dependency, Object context) {
+        return Arrays.<Object>asList(
+                dependency.getArtifact().toString(), 
+                dependency.getScope(), 
+                dependency.getOptional(), 
+                exclusionsKey(dependency.getExclusions()),
+                context);
+    }
+
+    /**
+     * Returns paths to missing artifacts without root of the graph, which is different for each root reusing them.
+     */
+    private static Map<Artifact, List<List<Artifact>>> missingArtifactPaths(DependencyResolutionException e) {
+        ArtifactResolutionException are = Utils.findCause(e, ArtifactResolutionException.class);
+        if (are == null) {
+            return Collections.emptyMap();
+        }
+        List<Artifact> missingArtifacts = Utils.collectMissingArtifacts(are);
+        DependencyNode graph = e.getResult().getRoot();
+        DependencyPathIndex pathIndex = new DependencyPathIndex(graph, missingArtifacts);
+        Map<Artifact, List<List<Artifact>>> result = new LinkedHashMap<Artifact, List<List<Artifact>>>();
+        for (Artifact missingArtifact : missingArtifacts) {
+            List<List<Artifact>> paths = new ArrayList<List<Artifact>>();
+            for (List<Artifact> path : pathIndex.getPaths(missingArtifact)) {
+                paths.add(new ArrayList<Artifact>(path.subList(1, path.size())));
+            }
+            result.put(missingArtifact, paths);
+        }
+        return result;
+    }
+
+    private static Map<String, String> managementSignatures(List<Dependency> managedDependencies) {
+        Map<String, String> signatures = new HashMap<String, String>();
+        for (Dependency managedDependency : managedDependencies) {
+            String managementKey = RecordingDependencyManager.managementKey(managedDependency);
+            if (!signatures.containsKey(managementKey)) {
+                signatures.put(managementKey, managedDependency.getArtifact().getVersion() + ":" + managedDependency.getScope() + ":" 
+                        + managedDependency.getOptional() + ":" + exclusionsKey(managedDependency.getExclusions()));
+            }
+        }
+        return signatures;
+    }
+
+    private static Map<String, String> restrict(Map<String, String> management, Set<String> keys) {
+        Map<String, String> restricted = new HashMap<String, String>();
+        for (String key : keys) {
+            restricted.put(key, management.get(key));
+        }
+        return restricted;
+    }
+
+    private static String exclusionsKey(Collection<Exclusion> exclusions) {
+        List<String> keys = new ArrayList<String>();
+        for (Exclusion exclusion : exclusions) {
+            keys.add(exclusion.toString());
+        }
+        Collections.sort(keys);
+        return keys.toString();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public void validationStarted(ValidatorContext ctx) {
+        memo.clear();
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    @Override
+    public void validationFinished(ValidatorContext ctx) {
+        logger.info("dependency graph memo: {} hits, {} misses", hitCount.get(), missCount.get());
+        memo.clear();
+    }
+
+    private static class Entry {
+
+        private final Artifact rootArtifact;
+        private final DependencyResolutionException exception;
+        private final Map<Artifact, List<List<Artifact>>> missingArtifactPaths;
+        private final Map<String, String> management;
+
+        private Entry(Artifact rootArtifact, DependencyResolutionException exception, Map<Artifact, List<List<Artifact>>> missingArtifactPaths, Map<String, String> management) {
+            this.rootArtifact = rootArtifact;
+            this.exception = exception;
+            this.missingArtifactPaths = missingArtifactPaths;
+            this.management = management;
+        }
+
+        private boolean isValidFor(Map<String, String> otherManagement) {
+            for (Map.Entry<String, String> managementEntry : management.entrySet()) {
+                String otherSignature = otherManagement.get(managementEntry.getKey());
+                if (managementEntry.getValue() == null ? otherSignature != null : !managementEntry.getValue().equals(otherSignature)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    public static class Result {
+
+        private final Artifact rootArtifact;
+        private final Entry entry;
+        private final boolean memoized;
+        private final DependencyResolutionException exception;
+
+        private Result(Artifact rootArtifact, Entry entry, boolean memoized) {
+            this.rootArtifact = rootArtifact;
+            this.entry = entry;
+            this.memoized = memoized;
+            this.exception = memoized && entry.exception != null ? rebuildException(entry, rootArtifact) : entry.exception;
+        }
+
+        /**
+         * Returns copy of memoized exception, which names given root instead of root of memoized resolution, 
+         * so errors of different roots don't share one exception instance. Cause is shared.
+         */
+        private static DependencyResolutionException rebuildException(Entry entry, Artifact rootArtifact) {
+            String message = StringUtils.replace(entry.exception.getMessage(), entry.rootArtifact.toString(), rootArtifact.toString());
+            DependencyResolutionException rebuilt = new DependencyResolutionException(null, message, entry.exception.getCause());
+            rebuilt.setStackTrace(entry.exception.getStackTrace());
+            return rebuilt;
+        }
+
+        public Artifact getRootArtifact() {
+            return rootArtifact;
+        }
+
+        /**
+         * Returns exception thrown during resolution (without results referencing the graph), 
+         * or null when all artifacts were resolved.
+         */
+        public DependencyResolutionException getException() {
+            return exception;
+        }
+
+        public List<Artifact> getMissingArtifacts() {
+            return new ArrayList<Artifact>(entry.missingArtifactPaths.keySet());
+        }
+
+        /**
+         * Returns paths from root to given missing artifact, each starting with artifact of root and ending with the missing artifact.
+         */
+        public List<List<Artifact>> getPaths(Artifact missingArtifact) {
+            List<List<Artifact>> paths = entry.missingArtifactPaths.get(missingArtifact);
+            if (paths == null) {
+                return Collections.emptyList();
+            }
+            List<List<Artifact>> result = new ArrayList<List<Artifact>>(paths.size());
+            for (List<Artifact> path : paths) {
+                List<Artifact> rootedPath = new ArrayList<Artifact>(path.size() + 1);
+                rootedPath.add(rootArtifact);
+                rootedPath.addAll(path);
+                result.add(rootedPath);
+            }
+            return result;
+        }
+
+        public boolean isMemoized() {
+            return memoized;
+        }
+
+    }
+
+}
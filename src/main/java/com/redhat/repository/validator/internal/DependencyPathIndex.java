@@ -0,0 +1,136 @@
+package com.redhat.repository.validator.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.filter.PatternInclusionsDependencyFilter;
+import org.eclipse.aether.util.graph.visitor.PathRecordingDependencyVisitor;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Paths from root of dependency graph to given artifacts, found by one traversal of the graph for all of them.
+ * Paths are the same as recorded by {@link PathRecordingDependencyVisitor} with {@link PatternInclusionsDependencyFilter}
+ * of each artifact, children of a node matching the artifact aren't searched for it and cycles are cut
+ * at nodes which are already on the path. Matching nodes are kept with pointer to their parent,
+ * so each path is built in time proportional to its length.
+ */
+public class DependencyPathIndex {
+
+    private final Map<Artifact, Target> targets = new LinkedHashMap<Artifact, Target>();
+
+    public DependencyPathIndex(DependencyNode root, Collection<Artifact> artifacts) {
+        ListMultimap<String, Target> targetsByKey = ArrayListMultimap.create();
+        List<Target> wildcardTargets = new ArrayList<Target>();
+        for (Artifact artifact : artifacts) {
+            if (!targets.containsKey(artifact)) {
+                Target target = new Target(artifact);
+                targets.put(artifact, target);
+                if (key(artifact).contains("*")) {
+                    wildcardTargets.add(target);
+                } else {
+                    targetsByKey.put(key(artifact), target);
+                }
+            }
+        }
+        if (root != null && !targets.isEmpty()) {
+            Set<DependencyNode> pathNodes = Collections.newSetFromMap(new IdentityHashMap<DependencyNode, Boolean>());
+            visit(root, null, new HashSet<Target>(targets.values()), targetsByKey, wildcardTargets, pathNodes);
+        }
+    }
+
+    /**
+     * Returns paths from root to given artifact, each starting with artifact of root and ending with the artifact.
+     */
+    public List<List<Artifact>> getPaths(Artifact artifact) {
+        Target target = targets.get(artifact);
+        if (target == null) {
+            return Collections.emptyList();
+        }
+        List<List<Artifact>> paths = new ArrayList<List<Artifact>>(target.matches.size());
+        for (Frame frame : target.matches) {
+            List<Artifact> path = new ArrayList<Artifact>(frame.depth + 1);
+            for (Frame f = frame; f != null; f = f.parent) {
+                path.add(f.node.getArtifact());
+            }
+            Collections.reverse(path);
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    private static void visit(DependencyNode node, Frame parent, Set<Target> searched, ListMultimap<String, Target> targetsByKey, List<Target> wildcardTargets, Set<DependencyNode> pathNodes) {
+        Frame frame = new Frame(node, parent);
+        Set<Target> remaining = searched;
+        for (Target target : candidates(node, searched, targetsByKey, wildcardTargets)) {
+            if (searched.contains(target) && target.filter.accept(node, Collections.<DependencyNode> emptyList())) {
+                target.matches.add(frame);
+                if (remaining == searched) {
+                    remaining = new HashSet<Target>(searched);
+                }
+                remaining.remove(target);
+            }
+        }
+        if (remaining.isEmpty() || !pathNodes.add(node)) {
+            return;
+        }
+        for (DependencyNode child : node.getChildren()) {
+            visit(child, frame, remaining, targetsByKey, wildcardTargets, pathNodes);
+        }
+        pathNodes.remove(node);
+    }
+
+    private static Collection<Target> candidates(DependencyNode node, Set<Target> searched, ListMultimap<String, Target> targetsByKey, List<Target> wildcardTargets) {
+        if (node.getDependency() == null) {
+            // pattern filter accepts nodes without dependency, e.g. root of graph
+            return new ArrayList<Target>(searched);
+        }
+        List<Target> candidates = targetsByKey.get(key(node.getArtifact()));
+        if (wildcardTargets.isEmpty()) {
+            return candidates;
+        }
+        candidates = new ArrayList<Target>(candidates);
+        candidates.addAll(wildcardTargets);
+        return candidates;
+    }
+
+    private static String key(Artifact artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId();
+    }
+
+    private static class Target {
+
+        private final PatternInclusionsDependencyFilter filter;
+        private final List<Frame> matches = new ArrayList<Frame>();
+
+        private Target(Artifact artifact) {
+            this.filter = new PatternInclusionsDependencyFilter(artifact.toString());
+        }
+
+    }
+
+    private static class Frame {
+
+        private final DependencyNode node;
+        private final Frame parent;
+        private final int depth;
+
+        private Frame(DependencyNode node, Frame parent) {
+            this.node = node;
+            this.parent = parent;
+            this.depth = parent != null ? parent.depth + 1 : 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+import com.redhat.repository.validator.ExceptionVisitor;
+import com.redhat.repository.validator.ValidationError;
+import com.redhat.repository.validator.Validator;
+
+/**
+ * Thread safe store of validation errors, indexed by file, by validator and by exception class.
+ * Returned lists are snapshots in order in which errors were added.
+ */
+public interface ErrorStore extends Closeable {
+
+    void add(ValidationError error);
+
+    boolean isEmpty();
+
+    int size();
+
+    List<ValidationError> getErrors();
+
+    /**
+     * Returns errors added after first given count of errors, allows to follow store while errors are added.
+     */
+    List<ValidationError> getErrorsFrom(int index);
+
+    List<ValidationError> getErrors(File file);
+
+    boolean hasErrors(File file);
+
+    List<ValidationError> getErrors(Validator validator);
+
+    List<ValidationError> getErrors(Class<? extends Exception> exceptionType);
+
+    /**
+     * Returns errors with exception of exactly given class, without its subclasses.
+     */
+    List<ValidationError> getErrorsOfClass(Class<? extends Exception> exceptionClass);
+
+    /**
+     * Passes distinct exceptions of exactly given class to visitor, ordered by message. Spooled exceptions
+     * are read one at a time, only exceptions with the same message are kept to drop duplicates.
+     */
+    void visitExceptionsOfClass(Class<? extends Exception> exceptionClass, ExceptionVisitor<Exception> visitor);
+
+    /**
+     * Returns count of distinct exceptions of exactly given class, without reading them from spool.
+     */
+    int getExceptionCountOfClass(Class<? extends Exception> exceptionClass);
+
+    Set<Class<? extends Exception>> getExceptionTypes();
+
+    /**
+     * Releases resources of this store, errors are not available afterwards.
+     */
+    @Override
+    void close();
+
+}
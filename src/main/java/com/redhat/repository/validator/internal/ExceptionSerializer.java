@@ -0,0 +1,210 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.model.building.ModelBuildingResult;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.RemoteRepository;
+
+/**
+ * Serializes validation exceptions, so they can be reused by next run or merged from several shards.
+ * Artifacts, dependency graphs and remote repositories aren't serializable, so they are replaced by plain values,
+ * results of model building are dropped (same as aether exceptions drop their results).
+ */
+public class ExceptionSerializer {
+
+    public static byte[] serialize(Exception e) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ReplacingOutputStream(bytes)) {
+            out.writeObject(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Exception deserialize(byte[] data) throws IOException {
+        try (ObjectInputStream in = new ResolvingInputStream(new ByteArrayInputStream(data))) {
+            return (Exception) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns stream which writes exceptions the same way as {@link #serialize(Exception)},
+     * objects shared by several exceptions are written only once.
+     */
+    public static ObjectOutputStream newOutputStream(OutputStream out) throws IOException {
+        return new ReplacingOutputStream(out);
+    }
+
+    /**
+     * Returns stream which reads exceptions written by {@link #newOutputStream(OutputStream)}.
+     */
+    public static ObjectInputStream newInputStream(InputStream in) throws IOException {
+        return new ResolvingInputStream(in);
+    }
+
+    private static class ReplacingOutputStream extends ObjectOutputStream {
+
+        // shared nodes of dependency graph are written only once
+        private final Map<Object, Object> replacements = new IdentityHashMap<Object, Object>();
+
+        private ReplacingOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof ModelBuildingResult) {
+                return null;
+            }
+            if (!(obj instanceof Artifact || obj instanceof DependencyNode || obj instanceof RemoteRepository)) {
+                return obj;
+            }
+            Object replacement = replacements.get(obj);
+            if (replacement == null) {
+                if (obj instanceof Artifact) {
+                    replacement = new ArtifactData((Artifact) obj);
+                } else if (obj instanceof DependencyNode) {
+                    replacement = new NodeData((DependencyNode) obj);
+                } else {
+                    replacement = new RepositoryData((RemoteRepository) obj);
+                }
+                replacements.put(obj, replacement);
+            }
+            return replacement;
+        }
+
+    }
+
+    private static class ResolvingInputStream extends ObjectInputStream {
+
+        private ResolvingInputStream(InputStream in) throws IOException {
+            super(in);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            if (obj instanceof ArtifactData) {
+                return ((ArtifactData) obj).toArtifact();
+            }
+            if (obj instanceof NodeData) {
+                return ((NodeData) obj).toNode();
+            }
+            if (obj instanceof RepositoryData) {
+                return ((RepositoryData) obj).toRepository();
+            }
+            return obj;
+        }
+
+    }
+
+    private static class ArtifactData implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String groupId;
+        private final String artifactId;
+        private final String classifier;
+        private final String extension;
+        private final String version;
+        private final HashMap<String, String> properties;
+        private transient Artifact artifact;
+
+        private ArtifactData(Artifact artifact) {
+            this.groupId = artifact.getGroupId();
+            this.artifactId = artifact.getArtifactId();
+            this.classifier = artifact.getClassifier();
+            this.extension = artifact.getExtension();
+            this.version = artifact.getVersion();
+            this.properties = new HashMap<String, String>(artifact.getProperties());
+        }
+
+        private Artifact toArtifact() {
+            if (artifact == null) {
+                artifact = new DefaultArtifact(groupId, artifactId, classifier, extension, version, properties, (File) null);
+            }
+            return artifact;
+        }
+
+        private static Artifact toArtifact(Object obj) {
+            return obj instanceof ArtifactData ? ((ArtifactData) obj).toArtifact() : (Artifact) obj;
+        }
+
+    }
+
+    private static class NodeData implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object artifact;
+        private final boolean dependency;
+        private final String scope;
+        private final Boolean optional;
+        // nodes referenced back from their own subgraph are not resolved yet, so children are either nodes or node data
+        private final ArrayList<Object> children;
+        private transient DefaultDependencyNode node;
+
+        private NodeData(DependencyNode node) {
+            this.artifact = node.getArtifact();
+            this.dependency = node.getDependency() != null;
+            this.scope = dependency ? node.getDependency().getScope() : null;
+            this.optional = dependency ? node.getDependency().getOptional() : null;
+            this.children = new ArrayList<Object>(node.getChildren());
+        }
+
+        private DependencyNode toNode() {
+            if (node == null) {
+                Artifact nodeArtifact = artifact != null ? ArtifactData.toArtifact(artifact) : null;
+                node = dependency ? new DefaultDependencyNode(new Dependency(nodeArtifact, scope, optional)) : new DefaultDependencyNode(nodeArtifact);
+                List<DependencyNode> nodeChildren = new ArrayList<DependencyNode>(children.size());
+                for (Object child : children) {
+                    nodeChildren.add(child instanceof NodeData ? ((NodeData) child).toNode() : (DependencyNode) child);
+                }
+                node.setChildren(nodeChildren);
+            }
+            return node;
+        }
+
+    }
+
+    private static class RepositoryData implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+        private final String type;
+        private final String url;
+
+        private RepositoryData(RemoteRepository repository) {
+            this.id = repository.getId();
+            this.type = repository.getContentType();
+            this.url = repository.getUrl();
+        }
+
+        private RemoteRepository toRepository() {
+            return new RemoteRepository.Builder(id, type, url).build();
+        }
+
+    }
+
+}
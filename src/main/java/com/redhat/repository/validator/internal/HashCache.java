@@ -0,0 +1,258 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.repository.validator.ValidationListener;
+import com.redhat.repository.validator.ValidatorContext;
+
+/**
+ * Persistent cache of file hashes, keyed by canonical path, size, last modification time and inode. 
+ * Records are kept in {@link AppendOnlyLog}.
+ */
+public class HashCache implements ValidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashCache.class);
+
+    public static final List<String> ALGORITHMS = Collections.unmodifiableList(Arrays.asList("MD5", "SHA-1", "SHA-256"));
+
+    private final AppendOnlyLog<Record> log;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Creates disabled cache.
+     */
+    public HashCache() {
+        this(null);
+    }
+
+    public HashCache(File cacheFile) {
+        this.log = new AppendOnlyLog<Record>(cacheFile, "hash cache") {
+
+            @Override
+            protected String getKey(Record record) {
+                return record.key.path;
+            }
+
+            @Override
+            protected Record parse(String line) {
+                return Record.parse(line);
+            }
+
+            @Override
+            protected String format(Record record) {
+                return record.format();
+            }
+
+            @Override
+            protected boolean isValid(Record record) {
+                try {
+                    return record.key.equals(key(new File(record.key.path)));
+                } catch (IOException e) {
+                    // file doesn't exist anymore
+                    return false;
+                }
+            }
+
+        };
+    }
+
+    public boolean isEnabled() {
+        return log.isEnabled();
+    }
+
+    /**
+     * Returns true if all given algorithms are stored in cache.
+     */
+    public static boolean supports(Collection<String> algorithms) {
+        for (String algorithm : algorithms) {
+            if (!ALGORITHMS.contains(normalize(algorithm))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Normalizes algorithm name, e.g. <code>sha1</code> to <code>SHA-1</code>.
+     */
+    public static String normalize(String algorithm) {
+        String normalized = algorithm.toUpperCase(Locale.ENGLISH);
+        if (normalized.startsWith("SHA") && !normalized.startsWith("SHA-")) {
+            normalized = "SHA-" + normalized.substring(3);
+        }
+        return normalized;
+    }
+
+    public Key key(File file) throws IOException {
+        Path path = file.toPath().toRealPath();
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        Object fileKey = attrs.fileKey();
+        return new Key(path.toString(), attrs.size(), attrs.lastModifiedTime().toMillis(), fileKey != null ? fileKey.toString() : "-");
+    }
+
+    /**
+     * Returns map of algorithm names from {@link #ALGORITHMS} to hashes, or null if file with given key isn't cached.
+     */
+    public Map<String, String> get(Key key) {
+        return get(key, ALGORITHMS);
+    }
+
+    /**
+     * Returns map of algorithm names from {@link #ALGORITHMS} to hashes calculated so far, or null if file with given key isn't cached.
+     * The map can miss some of given algorithms, such request is counted as miss.
+     */
+    public Map<String, String> get(Key key, Collection<String> algorithms) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Record record = log.get(key.path);
+        Map<String, String> hashes = record != null && record.key.equals(key) ? record.hashes : null;
+        if (hashes != null && hashes.keySet().containsAll(algorithms)) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return hashes;
+    }
+
+    /**
+     * Stores hashes of algorithms from {@link #ALGORITHMS} given in map, replacing hashes stored for the file before.
+     */
+    public void put(Key key, Map<String, String> hashes) {
+        if (!isEnabled()) {
+            return;
+        }
+        Map<String, String> storedHashes = new LinkedHashMap<String, String>();
+        for (String algorithm : ALGORITHMS) {
+            if (hashes.get(algorithm) != null) {
+                storedHashes.put(algorithm, hashes.get(algorithm));
+            }
+        }
+        log.put(new Record(key, Collections.unmodifiableMap(storedHashes)), AppendOnlyLog.isPersistable(key.path));
+    }
+
+    /**
+     * Appends new records to cache file and compacts it, if it contains too many obsolete lines.
+     */
+    public void flush() {
+        log.flush();
+    }
+
+    /**
+     * Rewrites cache file with latest record of each file, records of deleted or modified files are dropped.
+     */
+    public void compact() {
+        log.compact();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public void validationStarted(ValidatorContext ctx) {
+        log.reset();
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    @Override
+    public void validationFinished(ValidatorContext ctx) {
+        if (isEnabled()) {
+            flush();
+            logger.info("hash cache: {} hits, {} misses", hitCount.get(), missCount.get());
+        }
+    }
+
+    public static class Key {
+
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final String inode;
+
+        public Key(String path, long size, long lastModified, String inode) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.inode = inode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return path.equals(other.path) && size == other.size && lastModified == other.lastModified && inode.equals(other.inode);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode();
+        }
+
+    }
+
+    private static class Record {
+
+        private final Key key;
+        private final Map<String, String> hashes;
+
+        private Record(Key key, Map<String, String> hashes) {
+            this.key = key;
+            this.hashes = hashes;
+        }
+
+        private static Record parse(String line) {
+            String[] fields = StringUtils.splitPreserveAllTokens(line, '\t');
+            if (fields.length != 4 + ALGORITHMS.size()) {
+                return null;
+            }
+            try {
+                Key key = new Key(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]);
+                Map<String, String> hashes = new LinkedHashMap<String, String>();
+                for (int i = 0; i < ALGORITHMS.size(); i++) {
+                    if (!fields[4 + i].isEmpty()) {
+                        hashes.put(ALGORITHMS.get(i), fields[4 + i]);
+                    }
+                }
+                return new Record(key, Collections.unmodifiableMap(hashes));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private String format() {
+            StringBuilder line = new StringBuilder();
+            line.append(key.path).append('\t').append(key.size).append('\t').append(key.lastModified).append('\t').append(key.inode);
+            for (String algorithm : ALGORITHMS) {
+                line.append('\t').append(StringUtils.defaultString(hashes.get(algorithm)));
+            }
+            return line.toString();
+        }
+
+    }
+
+}
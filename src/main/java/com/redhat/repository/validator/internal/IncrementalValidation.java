@@ -0,0 +1,592 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.ModelBase;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Profile;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.redhat.repository.validator.Incremental;
+import com.redhat.repository.validator.ValidationError;
+import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.ValidatorContext;
+
+/**
+ * Validation of files changed since previous run, driven by manifest stored in tab separated file.
+ * Manifest contains size, last modification time and hash of each file, artifacts referenced by each pom
+ * (parent, imported boms, dependencies) and serialized errors of each file found by {@link Incremental} validators.
+ * Affected files are changed files, other files in their directories and poms which reference changed artifacts,
+ * directly or transitively, errors of other files are reused. Changes of remote repositories aren't tracked,
+ * so validators depending on them ({@link Incremental#remote()}) always validate whole repository.
+ */
+public class IncrementalValidation {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalValidation.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String FORMAT_VERSION = "1";
+    private static final String ANY = "*";
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)\\}");
+
+    private final File manifestFile;
+    private final ChecksumEngine checksumEngine;
+    private final File configFile;
+
+    /**
+     * Creates disabled incremental validation, whole repository is validated.
+     */
+    public IncrementalValidation() {
+        this(null, null, null);
+    }
+
+    /**
+     * @param configFile user configuration, manifest is reused only if configuration didn't change, can be null
+     */
+    public IncrementalValidation(File manifestFile, ChecksumEngine checksumEngine, File configFile) {
+        this.manifestFile = manifestFile;
+        this.checksumEngine = checksumEngine;
+        this.configFile = configFile;
+    }
+
+    public boolean isEnabled() {
+        return manifestFile != null;
+    }
+
+    /**
+     * Compares repository with manifest of previous run, computes affected files and registers reused errors of other files.
+     */
+    public Run start(ValidatorContext ctx, Validator[] validators) {
+        long start = System.currentTimeMillis();
+        Run run = new Run(ctx, validators, fingerprint(ctx));
+        run.plan(load(run.current.fingerprint));
+        logger.info("incremental validation: {} changed files, {} affected files and directories of {}, {} errors reused, planned in {} ms",
+                run.changedCount, run.scope.size(), ctx.getRepositoryIndex().size(), run.reusedCount, System.currentTimeMillis() - start);
+        return run;
+    }
+
+    public class Run implements ValidationPlan {
+
+        private final ValidatorContext ctx;
+        private final Validator[] validators;
+        private final Map<Validator, String> keys;
+        private final Set<Validator> restrictedValidators = new HashSet<Validator>();
+        private final Set<File> scope = new HashSet<File>();
+        private final Manifest current;
+        private ValidatorContext restrictedCtx;
+        private int changedCount;
+        private int reusedCount;
+
+        private Run(ValidatorContext ctx, Validator[] validators, String fingerprint) {
+            this.ctx = ctx;
+            this.validators = validators;
+            this.current = new Manifest(fingerprint);
+            this.keys = Utils.validatorKeys(validators);
+        }
+
+        private void plan(Manifest previous) {
+            RepositoryIndex index = ctx.getRepositoryIndex();
+            File baseDir = index.getBaseDir();
+
+            Set<String> changed = new LinkedHashSet<String>();
+            for (RepositoryIndex.Entry entry : index.getEntries()) {
+                String path = entry.getRelativePath();
+                FileRecord previousRecord = previous != null ? previous.files.get(path) : null;
+                FileRecord record = entry.isDirectory() ? FileRecord.DIRECTORY : new FileRecord(entry.getSize(), entry.getLastModified(), null);
+                if (previousRecord == null || previousRecord.directory != entry.isDirectory()) {
+                    changed.add(path);
+                } else if (!entry.isDirectory()) {
+                    if (previousRecord.size == entry.getSize() && previousRecord.lastModified == entry.getLastModified()) {
+                        record = previousRecord;
+                    } else {
+                        // modification time changes also when file is rewritten with same content
+                        String sha1 = sha1(entry.getFile());
+                        record = new FileRecord(entry.getSize(), entry.getLastModified(), sha1);
+                        if (sha1 == null || !sha1.equals(previousRecord.sha1)) {
+                            changed.add(path);
+                        }
+                    }
+                }
+                if (isStorable(path)) {
+                    current.files.put(path, record);
+                }
+                if (!entry.isDirectory() && entry.getExtension().equals("pom")) {
+                    PomRecord pomRecord = previous != null && !changed.contains(path) ? previous.poms.get(path) : null;
+                    current.poms.put(path, pomRecord != null ? pomRecord : PomRecord.read(entry));
+                }
+            }
+            if (previous != null) {
+                for (String path : previous.files.keySet()) {
+                    if (!current.files.containsKey(path)) {
+                        changed.add(path);
+                    }
+                }
+            }
+            changedCount = changed.size();
+
+            Set<File> affectedDirs = new HashSet<File>();
+            Set<String> changedArtifacts = new HashSet<String>();
+            for (String path : changed) {
+                File file = new File(baseDir, path);
+                affectedDirs.add(file.getParentFile());
+                if (index.isDirectory(file)) {
+                    affectedDirs.add(file);
+                }
+                PomRecord pomRecord = current.poms.get(path);
+                PomRecord previousPomRecord = previous != null ? previous.poms.get(path) : null;
+                if (pomRecord != null) {
+                    changedArtifacts.add(pomRecord.ga);
+                }
+                if (previousPomRecord != null) {
+                    changedArtifacts.add(previousPomRecord.ga);
+                }
+                RepositoryIndex.Entry entry = new RepositoryIndex.Entry(file, path, false, 0, 0);
+                if (entry.hasGav()) {
+                    changedArtifacts.add(entry.getGroupId() + ":" + entry.getArtifactId());
+                }
+            }
+            for (RepositoryIndex.Entry entry : index.getEntries()) {
+                if (affectedDirs.contains(entry.getFile().getParentFile()) || affectedDirs.contains(entry.getFile())) {
+                    scope.add(entry.getFile());
+                }
+            }
+            for (String path : findReferringPoms(changedArtifacts)) {
+                scope.add(new File(baseDir, path));
+            }
+            if (previous != null) {
+                for (String path : previous.uncached) {
+                    scope.add(new File(baseDir, path));
+                }
+            }
+
+            if (previous != null) {
+                reuseErrors(previous, baseDir);
+            }
+            restrictedCtx = ctx.withRepositoryIndex(index.restrict(scope));
+        }
+
+        /**
+         * Returns poms referencing given artifacts (as groupId:artifactId), directly or transitively.
+         */
+        private Set<String> findReferringPoms(Set<String> artifacts) {
+            ListMultimap<String, String> referrers = ArrayListMultimap.create();
+            for (Map.Entry<String, PomRecord> pomEntry : current.poms.entrySet()) {
+                for (String reference : pomEntry.getValue().references) {
+                    referrers.put(reference, pomEntry.getKey());
+                }
+            }
+
+            Set<String> result = new LinkedHashSet<String>();
+            Set<String> visited = new HashSet<String>(artifacts);
+            Deque<String> queue = new ArrayDeque<String>(artifacts);
+            if (!artifacts.isEmpty()) {
+                for (String path : referrers.get(ANY)) {
+                    if (result.add(path) && visited.add(current.poms.get(path).ga)) {
+                        queue.add(current.poms.get(path).ga);
+                    }
+                }
+            }
+            while (!queue.isEmpty()) {
+                String ga = queue.poll();
+                String anyGroupKey = ANY + ":" + StringUtils.substringAfter(ga, ":");
+                for (String key : Arrays.asList(ga, anyGroupKey)) {
+                    for (String path : referrers.get(key)) {
+                        if (result.add(path) && visited.add(current.poms.get(path).ga)) {
+                            queue.add(current.poms.get(path).ga);
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        private void reuseErrors(Manifest previous, File baseDir) {
+            List<ValidationError> reused = new ArrayList<ValidationError>();
+            for (Validator validator : validators) {
+                String key = keys.get(validator);
+                if (!isIncremental(validator) || !previous.validators.contains(key)) {
+                    continue;
+                }
+                restrictedValidators.add(validator);
+                for (Finding finding : previous.findings.get(key)) {
+                    File file = new File(baseDir, finding.path);
+                    if (!current.files.containsKey(finding.path) || scope.contains(file)) {
+                        continue;
+                    }
+                    try {
+                        Exception exception = ExceptionSerializer.deserialize(BaseEncoding.base64().decode(finding.data));
+                        reused.add(new ValidationError(validator, exception, file));
+                    } catch (IOException | IllegalArgumentException e) {
+                        logger.debug("unable to reuse error of {}: {}", finding.path, e.getMessage());
+                        scope.add(file);
+                    }
+                }
+            }
+            for (ValidationError error : reused) {
+                if (!scope.contains(error.getFile())) {
+                    ctx.addError(error.getValidator(), error.getFile(), error.getException());
+                    reusedCount++;
+                }
+            }
+        }
+
+        /**
+         * Validates affected files, if errors of other files were reused, otherwise whole repository.
+         */
+        @Override
+        public void validate(Validator validator) {
+            validator.validate(restrictedValidators.contains(validator) ? restrictedCtx : ctx);
+        }
+
+        /**
+         * Stores manifest of this run, errors of failed validators aren't complete, so they are not reused by next run.
+         */
+        @Override
+        public void finish(Collection<Validator> failedValidators) {
+            for (Validator validator : validators) {
+                if (isIncremental(validator) && !failedValidators.contains(validator)) {
+                    current.validators.add(keys.get(validator));
+                }
+            }
+
+            List<ValidationError> errors = new ArrayList<ValidationError>(ctx.getErrors());
+            errors.addAll(ctx.getIgnoredErrors());
+            for (ValidationError error : errors) {
+                String key = keys.get(error.getValidator());
+                if (key == null || !current.validators.contains(key)) {
+                    continue;
+                }
+                String path = relativePath(error.getFile());
+                if (path == null || !current.files.containsKey(path)) {
+                    // errors of files outside of validated repository can't be assigned to changes
+                    current.validators.remove(key);
+                    continue;
+                }
+                try {
+                    current.findings.put(key, new Finding(path, BaseEncoding.base64().encode(ExceptionSerializer.serialize(error.getException()))));
+                } catch (IOException e) {
+                    logger.debug("unable to store error of {}: {}", path, e.getMessage());
+                    current.uncached.add(path);
+                }
+            }
+            current.findings.keySet().retainAll(current.validators);
+            save(current);
+        }
+
+        private String relativePath(File file) {
+            return Utils.relativePath(ctx.getValidatedRepository(), file);
+        }
+
+    }
+
+    static boolean isIncremental(Validator validator) {
+        Incremental incremental = AnnotationUtils.findAnnotation(validator.getClass(), Incremental.class);
+        return incremental != null && !incremental.remote();
+    }
+
+    private static boolean isStorable(String value) {
+        return StringUtils.containsNone(value, '\t', '\n', '\r');
+    }
+
+    private String sha1(File file) {
+        try {
+            return checksumEngine.calc(file, "SHA-1");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String fingerprint(ValidatorContext ctx) {
+        Hasher hasher = Hashing.sha1().newHasher();
+        hasher.putString(FORMAT_VERSION, UTF_8);
+        hasher.putString("\n" + ctx.getValidatedRepository().getAbsolutePath(), UTF_8);
+        for (RemoteRepository remoteRepository : ctx.getRemoteRepositories()) {
+            hasher.putString("\n" + remoteRepository.getId() + "=" + remoteRepository.getUrl(), UTF_8);
+        }
+        if (configFile != null && configFile.isFile()) {
+            try {
+                hasher.putBytes(Files.readAllBytes(configFile.toPath()));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private Manifest load(String fingerprint) {
+        if (!manifestFile.isFile()) {
+            logger.info("manifest {} doesn't exist, validating whole repository", manifestFile);
+            return null;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), UTF_8));
+            String[] header = StringUtils.splitPreserveAllTokens(reader.readLine(), '\t');
+            if (header == null || header.length != 3 || !header[0].equals("manifest") || !header[1].equals(FORMAT_VERSION) || !header[2].equals(fingerprint)) {
+                logger.info("manifest {} was created with different configuration, validating whole repository", manifestFile);
+                return null;
+            }
+            Manifest manifest = new Manifest(fingerprint);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                manifest.parse(StringUtils.splitPreserveAllTokens(line, '\t'));
+            }
+            return manifest;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("unable to load manifest {}, validating whole repository: {}", manifestFile, e.getMessage());
+            return null;
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    private void save(Manifest manifest) {
+        File tempFile = new File(manifestFile.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            manifestFile.getAbsoluteFile().getParentFile().mkdirs();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), UTF_8));
+            manifest.format(writer);
+            writer.close();
+            Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("stored manifest of {} files and {} errors to {}", manifest.files.size(), manifest.findings.size(), manifestFile);
+        } catch (IOException e) {
+            logger.warn("unable to store manifest {}: {}", manifestFile, e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(writer);
+            tempFile.delete();
+        }
+    }
+
+    private static class Manifest {
+
+        private final String fingerprint;
+        private final Map<String, FileRecord> files = new LinkedHashMap<String, FileRecord>();
+        private final Map<String, PomRecord> poms = new LinkedHashMap<String, PomRecord>();
+        private final Set<String> validators = new LinkedHashSet<String>();
+        private final ListMultimap<String, Finding> findings = ArrayListMultimap.create();
+        private final Set<String> uncached = new LinkedHashSet<String>();
+
+        private Manifest(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private void parse(String[] columns) {
+            String type = columns[0];
+            if (type.equals("file")) {
+                files.put(columns[1], new FileRecord(Long.parseLong(columns[2]), Long.parseLong(columns[3]), columns[4].equals("-") ? null : columns[4]));
+            } else if (type.equals("dir")) {
+                files.put(columns[1], FileRecord.DIRECTORY);
+            } else if (type.equals("pom")) {
+                poms.put(columns[1], new PomRecord(columns[2], new LinkedHashSet<String>(Arrays.asList(columns).subList(3, columns.length))));
+            } else if (type.equals("validator")) {
+                validators.add(columns[1]);
+            } else if (type.equals("error")) {
+                findings.put(columns[1], new Finding(columns[2], columns[3]));
+            } else if (type.equals("uncached")) {
+                uncached.add(columns[1]);
+            }
+        }
+
+        private void format(Writer writer) throws IOException {
+            writer.write("manifest\t" + FORMAT_VERSION + "\t" + fingerprint + "\n");
+            for (Map.Entry<String, FileRecord> entry : files.entrySet()) {
+                FileRecord record = entry.getValue();
+                if (record.directory) {
+                    writer.write("dir\t" + entry.getKey() + "\n");
+                } else {
+                    writer.write("file\t" + entry.getKey() + "\t" + record.size + "\t" + record.lastModified + "\t" + StringUtils.defaultString(record.sha1, "-") + "\n");
+                }
+            }
+            for (Map.Entry<String, PomRecord> entry : poms.entrySet()) {
+                if (files.containsKey(entry.getKey()) && isStorable(entry.getValue().ga)) {
+                    writer.write("pom\t" + entry.getKey() + "\t" + entry.getValue().ga);
+                    for (String reference : entry.getValue().references) {
+                        if (isStorable(reference)) {
+                            writer.write("\t" + reference);
+                        }
+                    }
+                    writer.write("\n");
+                }
+            }
+            for (String validator : validators) {
+                writer.write("validator\t" + validator + "\n");
+            }
+            for (Map.Entry<String, Finding> entry : findings.entries()) {
+                writer.write("error\t" + entry.getKey() + "\t" + entry.getValue().path + "\t" + entry.getValue().data + "\n");
+            }
+            for (String path : uncached) {
+                writer.write("uncached\t" + path + "\n");
+            }
+        }
+
+    }
+
+    private static class FileRecord {
+
+        private static final FileRecord DIRECTORY = new FileRecord(true, 0, 0, null);
+
+        private final boolean directory;
+        private final long size;
+        private final long lastModified;
+        private final String sha1;
+
+        private FileRecord(long size, long lastModified, String sha1) {
+            this(false, size, lastModified, sha1);
+        }
+
+        private FileRecord(boolean directory, long size, long lastModified, String sha1) {
+            this.directory = directory;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha1 = sha1;
+        }
+
+    }
+
+    /**
+     * Artifact of pom and artifacts referenced by it, as groupId:artifactId, versions are ignored.
+     * Not interpolated groupId is replaced by <code>*</code>, not interpolated artifactId makes the pom affected by any change.
+     */
+    private static class PomRecord {
+
+        private final String ga;
+        private final Set<String> references;
+
+        private PomRecord(String ga, Set<String> references) {
+            this.ga = ga;
+            this.references = references;
+        }
+
+        private static PomRecord read(RepositoryIndex.Entry entry) {
+            String layoutGa = entry.hasGav() ? entry.getGroupId() + ":" + entry.getArtifactId() : ANY + ":" + entry.getFile().getName();
+            Model model;
+            InputStream in = null;
+            try {
+                in = new FileInputStream(entry.getFile());
+                model = new MavenXpp3Reader().read(in, false);
+            } catch (IOException | XmlPullParserException e) {
+                return new PomRecord(layoutGa, new LinkedHashSet<String>());
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+
+            Set<String> references = new LinkedHashSet<String>();
+            Parent parent = model.getParent();
+            if (parent != null) {
+                references.add(key(model, parent.getGroupId(), parent.getArtifactId()));
+            }
+            addReferences(model, model, references);
+            for (Profile profile : model.getProfiles()) {
+                addReferences(model, profile, references);
+            }
+            String groupId = model.getGroupId() != null ? model.getGroupId() : parent != null ? parent.getGroupId() : null;
+            String ga = key(model, groupId, model.getArtifactId());
+            return new PomRecord(ga.contains(ANY) ? layoutGa : ga, references);
+        }
+
+        private static void addReferences(Model model, ModelBase modelBase, Set<String> references) {
+            List<Dependency> dependencies = new ArrayList<Dependency>(modelBase.getDependencies());
+            DependencyManagement dependencyManagement = modelBase.getDependencyManagement();
+            if (dependencyManagement != null) {
+                dependencies.addAll(dependencyManagement.getDependencies());
+            }
+            for (Dependency dependency : dependencies) {
+                references.add(key(model, dependency.getGroupId(), dependency.getArtifactId()));
+            }
+        }
+
+        private static String key(Model model, String groupId, String artifactId) {
+            String interpolatedArtifactId = interpolate(model, artifactId);
+            if (interpolatedArtifactId == null) {
+                return ANY;
+            }
+            String interpolatedGroupId = interpolate(model, groupId);
+            return (interpolatedGroupId != null ? interpolatedGroupId : ANY) + ":" + interpolatedArtifactId;
+        }
+
+        private static String interpolate(Model model, String value) {
+            if (value == null || !value.contains("${")) {
+                return value;
+            }
+            Parent parent = model.getParent();
+            StringBuffer result = new StringBuffer();
+            Matcher matcher = EXPRESSION.matcher(value);
+            while (matcher.find()) {
+                String expression = StringUtils.removeStart(StringUtils.removeStart(matcher.group(1), "project."), "pom.");
+                String replacement;
+                if (expression.equals("groupId")) {
+                    replacement = model.getGroupId() != null ? model.getGroupId() : parent != null ? parent.getGroupId() : null;
+                } else if (expression.equals("artifactId")) {
+                    replacement = model.getArtifactId();
+                } else if (expression.equals("parent.groupId")) {
+                    replacement = parent != null ? parent.getGroupId() : null;
+                } else if (expression.equals("parent.artifactId")) {
+                    replacement = parent != null ? parent.getArtifactId() : null;
+                } else {
+                    replacement = model.getProperties().getProperty(matcher.group(1));
+                }
+                if (replacement == null || replacement.contains("${")) {
+                    return null;
+                }
+                matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+            }
+            matcher.appendTail(result);
+            return result.toString();
+        }
+
+    }
+
+    private static class Finding {
+
+        private final String path;
+        private final String data;
+
+        private Finding(String path, String data) {
+            this.path = path;
+            this.data = data;
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.redhat.repository.validator.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Named;
+
+import org.apache.maven.model.building.ModelCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.repository.validator.ValidationListener;
+import com.redhat.repository.validator.ValidatorContext;
+
+/**
+ * Caches raw parent and imported models, so they are read only once during validation run.
+ * Cache is invalidated by {@link ValidatorSupport} at start of validation run, unless its model cache is resident.
+ */
+@Named
+public class InternalModelCache implements ModelCache, ValidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(InternalModelCache.class);
+
+    private final ConcurrentMap<List<String>, Object> cache = new ConcurrentHashMap<List<String>, Object>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    @Override
+    public void put(String groupId, String artifactId, String version, String tag, Object data) {
+        cache.put(key(groupId, artifactId, version, tag), data);
+    }
+
+    @Override
+    public Object get(String groupId, String artifactId, String version, String tag) {
+        Object data = cache.get(key(groupId, artifactId, version, tag));
+        if (data != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return data;
+    }
+
+    private List<String> key(String groupId, String artifactId, String version, String tag) {
+        return Arrays.asList(groupId, artifactId, version, tag);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    @Override
+    public void validationStarted(ValidatorContext ctx) {
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    @Override
+    public void validationFinished(ValidatorContext ctx) {
+        long hits = hitCount.get();
+        long requests = hits + missCount.get();
+        logger.info("parent model cache: {} entries, {} hits of {} requests ({}%)", cache.size(), hits, requests, requests == 0 ? 100 : hits * 100 / requests);
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.redhat.repository.validator.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Named;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+
+import com.redhat.repository.validator.ValidationListener;
+import com.redhat.repository.validator.ValidatorContext;
+
+/**
+ * Thread safe repository cache (used e.g. for artifact descriptors), which is valid during one validation run.
+ */
+@Named
+public class InternalRepositoryCache implements RepositoryCache, ValidationListener {
+
+    private final ConcurrentMap<Object, Object> cache = new ConcurrentHashMap<Object, Object>();
+
+    @Override
+    public void put(RepositorySystemSession session, Object key, Object data) {
+        if (data != null) {
+            cache.put(key, data);
+        } else {
+            cache.remove(key);
+        }
+    }
+
+    @Override
+    public Object get(RepositorySystemSession session, Object key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public void validationStarted(ValidatorContext ctx) {
+        cache.clear();
+    }
+
+    @Override
+    public void validationFinished(ValidatorContext ctx) {
+        cache.clear();
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.redhat.repository.validator.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.redhat.repository.validator.ValidationError;
+
+/**
+ * Error store which keeps errors in memory.
+ */
+public class MemoryErrorStore extends AbstractErrorStore<MemoryErrorStore.MemoryRecord> {
+
+    @Override
+    protected MemoryRecord createRecord(ValidationError error) {
+        return new MemoryRecord(error);
+    }
+
+    @Override
+    protected List<ValidationError> toErrors(Collection<MemoryRecord> records) {
+        List<ValidationError> result = new ArrayList<ValidationError>();
+        for (MemoryRecord record : records) {
+            result.add(record.error);
+        }
+        return result;
+    }
+
+    @Override
+    protected Exception toException(MemoryRecord record) {
+        return record.error.getException();
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    protected static class MemoryRecord extends AbstractErrorStore.Record {
+
+        private final ValidationError error;
+
+        private MemoryRecord(ValidationError error) {
+            this.error = error;
+        }
+
+        @Override
+        protected Object getExceptionKey() {
+            return error.getException();
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.redhat.repository.validator.internal;
+
+import java.util.Set;
+
+import org.eclipse.aether.collection.DependencyCollectionContext;
+import org.eclipse.aether.collection.DependencyManagement;
+import org.eclipse.aether.collection.DependencyManager;
+import org.eclipse.aether.graph.Dependency;
+
+/**
+ * Dependency manager, which records management keys of all dependencies visited during collection.
+ */
+public class RecordingDependencyManager implements DependencyManager {
+
+    private final DependencyManager delegate;
+    private final Set<String> managementKeys;
+
+    public RecordingDependencyManager(DependencyManager delegate, Set<String> managementKeys) {
+        this.delegate = delegate;
+        this.managementKeys = managementKeys;
+    }
+
+    public static String managementKey(Dependency dependency) {
+        return dependency.getArtifact().getGroupId() + ":" + dependency.getArtifact().getArtifactId() + ":"
+                + dependency.getArtifact().getExtension() + ":" + dependency.getArtifact().getClassifier();
+    }
+
+    @Override
+    public DependencyManagement manageDependency(Dependency dependency) {
+        managementKeys.add(managementKey(dependency));
+        return delegate.manageDependency(dependency);
+    }
+
+    @Override
+    public DependencyManager deriveChildManager(DependencyCollectionContext context) {
+        DependencyManager childDelegate = delegate.deriveChildManager(context);
+        return childDelegate == delegate ? this : new RecordingDependencyManager(childDelegate, managementKeys);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RecordingDependencyManager)) {
+            return false;
+        }
+        RecordingDependencyManager other = (RecordingDependencyManager) obj;
+        return delegate.equals(other.delegate) && managementKeys == other.managementKeys;
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+}
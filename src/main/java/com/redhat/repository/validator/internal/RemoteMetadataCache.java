@@ -0,0 +1,193 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterProvider;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.repository.validator.ValidationListener;
+import com.redhat.repository.validator.ValidatorContext;
+
+/**
+ * Run scoped cache of versions listed in <code>maven-metadata.xml</code> of remote repositories.
+ * Metadata of each groupId:artifactId is fetched at most once per remote repository,
+ * existence of artifacts without usable metadata is checked by single HEAD request, nothing is downloaded into local repository.
+ */
+@Named
+public class RemoteMetadataCache implements ValidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteMetadataCache.class);
+
+    @Inject
+    private TransporterProvider transporterProvider;
+
+    private final ConcurrentMap<List<String>, FutureTask<Set<String>>> versions = new ConcurrentHashMap<List<String>, FutureTask<Set<String>>>();
+    private final AtomicLong metadataRequestCount = new AtomicLong();
+    private final AtomicLong metadataAnswerCount = new AtomicLong();
+    private final AtomicLong existenceRequestCount = new AtomicLong();
+
+    /**
+     * Returns true if given artifact exists in remote repository,
+     * the answer is taken from metadata if they are available, otherwise the artifact is checked directly.
+     */
+    public boolean exists(RepositorySystemSession session, RemoteRepository repository, Artifact artifact) {
+        Set<String> metadataVersions = getVersions(session, repository, artifact.getGroupId(), artifact.getArtifactId());
+        if (metadataVersions != null) {
+            metadataAnswerCount.incrementAndGet();
+            return metadataVersions.contains(artifact.getBaseVersion());
+        }
+        existenceRequestCount.incrementAndGet();
+        return peek(session, repository, artifactPath(artifact));
+    }
+
+    /**
+     * Returns versions listed in metadata of given groupId:artifactId, or null if metadata are not available.
+     */
+    public Set<String> getVersions(final RepositorySystemSession session, final RemoteRepository repository, final String groupId, final String artifactId) {
+        List<String> key = Arrays.asList(repository.getId(), repository.getUrl(), groupId, artifactId);
+        FutureTask<Set<String>> task = versions.get(key);
+        if (task == null) {
+            FutureTask<Set<String>> newTask = new FutureTask<Set<String>>(new Callable<Set<String>>() {
+                @Override
+                public Set<String> call() {
+                    return fetchVersions(session, repository, groupId, artifactId);
+                }
+            });
+            task = versions.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private Set<String> fetchVersions(RepositorySystemSession session, RemoteRepository repository, String groupId, String artifactId) {
+        metadataRequestCount.incrementAndGet();
+        String path = groupId.replace('.', '/') + "/" + artifactId + "/maven-metadata.xml";
+        Transporter transporter = newTransporter(session, repository);
+        if (transporter == null) {
+            return null;
+        }
+        try {
+            GetTask task = new GetTask(URI.create(path));
+            transporter.get(task);
+            Metadata metadata = new MetadataXpp3Reader().read(new ByteArrayInputStream(task.getDataBytes()), false);
+            Versioning versioning = metadata.getVersioning();
+            if (versioning == null || versioning.getVersions().isEmpty()) {
+                return null;
+            }
+            return Collections.unmodifiableSet(new HashSet<String>(versioning.getVersions()));
+        } catch (Exception e) {
+            if (transporter.classify(e) != Transporter.ERROR_NOT_FOUND) {
+                logger.debug("unable to read {} from {}: {}", path, repository.getUrl(), e.getMessage());
+            }
+            return null;
+        } finally {
+            transporter.close();
+        }
+    }
+
+    private boolean peek(RepositorySystemSession session, RemoteRepository repository, String path) {
+        Transporter transporter = newTransporter(session, repository);
+        if (transporter == null) {
+            return false;
+        }
+        try {
+            transporter.peek(new PeekTask(URI.create(path)));
+            return true;
+        } catch (Exception e) {
+            if (transporter.classify(e) != Transporter.ERROR_NOT_FOUND) {
+                logger.debug("unable to check {} in {}: {}", path, repository.getUrl(), e.getMessage());
+            }
+            return false;
+        } finally {
+            transporter.close();
+        }
+    }
+
+    private Transporter newTransporter(RepositorySystemSession session, RemoteRepository repository) {
+        try {
+            return transporterProvider.newTransporter(session, repository);
+        } catch (NoTransporterException e) {
+            logger.debug("unable to access remote repository {}: {}", repository.getUrl(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static String artifactPath(Artifact artifact) {
+        StringBuilder path = new StringBuilder();
+        path.append(artifact.getGroupId().replace('.', '/')).append('/');
+        path.append(artifact.getArtifactId()).append('/');
+        path.append(artifact.getBaseVersion()).append('/');
+        path.append(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+        if (artifact.getClassifier().length() > 0) {
+            path.append('-').append(artifact.getClassifier());
+        }
+        path.append('.').append(artifact.getExtension());
+        return path.toString();
+    }
+
+    public long getMetadataRequestCount() {
+        return metadataRequestCount.get();
+    }
+
+    public long getMetadataAnswerCount() {
+        return metadataAnswerCount.get();
+    }
+
+    public long getExistenceRequestCount() {
+        return existenceRequestCount.get();
+    }
+
+    @Override
+    public void validationStarted(ValidatorContext ctx) {
+        versions.clear();
+        metadataRequestCount.set(0);
+        metadataAnswerCount.set(0);
+        existenceRequestCount.set(0);
+    }
+
+    @Override
+    public void validationFinished(ValidatorContext ctx) {
+        if (metadataRequestCount.get() > 0) {
+            logger.info("remote metadata cache: {} metadata requests, {} answers from metadata, {} existence requests",
+                    metadataRequestCount.get(), metadataAnswerCount.get(), existenceRequestCount.get());
+        }
+        versions.clear();
+    }
+
+}
@@ -0,0 +1,321 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * Snapshot of validated repository content, created by one walk of the file tree and shared by all validators.
+ * Restricted index lists only files in its scope, but lookups of single files and directories still see whole repository.
+ */
+public class RepositoryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryIndex.class);
+
+    private final File baseDir;
+    private final Map<File, Entry> entries;
+    private final ListMultimap<String, Entry> entriesByExtension;
+    private final ListMultimap<File, Entry> entriesByDirectory;
+    private final Set<File> scope;
+
+    public static RepositoryIndex build(File baseDir) {
+        long start = System.currentTimeMillis();
+
+        final List<Entry> entries = new ArrayList<Entry>();
+        final Path basePath = baseDir.toPath();
+        if (baseDir.isDirectory()) {
+            try {
+                Files.walkFileTree(basePath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        if (!dir.equals(basePath)) {
+                            entries.add(createEntry(basePath, dir, attrs));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        entries.add(createEntry(basePath, file, attrs));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        logger.warn("unable to index {}: {}", file, e.getMessage());
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                });
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                return e1.getRelativePath().compareTo(e2.getRelativePath());
+            }
+        });
+
+        RepositoryIndex index = new RepositoryIndex(baseDir, entries);
+        logger.debug("indexed {} entries of repository {} in {} ms", entries.size(), baseDir, System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private static Entry createEntry(Path basePath, Path path, BasicFileAttributes attrs) {
+        String relativePath = FilenameUtils.separatorsToUnix(basePath.relativize(path).toString());
+        return new Entry(path.toFile(), relativePath, attrs.isDirectory(), attrs.size(), attrs.lastModifiedTime().toMillis());
+    }
+
+    public RepositoryIndex(File baseDir, Collection<Entry> entries) {
+        this.baseDir = baseDir;
+        this.entries = new LinkedHashMap<File, Entry>();
+        this.entriesByExtension = ArrayListMultimap.create();
+        this.entriesByDirectory = ArrayListMultimap.create();
+        this.scope = null;
+        for (Entry entry : entries) {
+            this.entries.put(entry.getFile(), entry);
+            this.entriesByDirectory.put(entry.getFile().getParentFile(), entry);
+            if (!entry.isDirectory()) {
+                this.entriesByExtension.put(entry.getExtension(), entry);
+            }
+        }
+    }
+
+    private RepositoryIndex(RepositoryIndex index, Set<File> scope) {
+        this.baseDir = index.baseDir;
+        this.entries = index.entries;
+        this.entriesByExtension = index.entriesByExtension;
+        this.entriesByDirectory = index.entriesByDirectory;
+        this.scope = scope;
+    }
+
+    /**
+     * Returns view of this index sharing its entries, which lists only given files and directories.
+     */
+    public RepositoryIndex restrict(Set<File> scope) {
+        return new RepositoryIndex(this, scope);
+    }
+
+    public boolean isRestricted() {
+        return scope != null;
+    }
+
+    private boolean inScope(File file) {
+        return scope == null || scope.contains(file);
+    }
+
+    public File getBaseDir() {
+        return baseDir;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    public Entry getEntry(File file) {
+        return entries.get(file);
+    }
+
+    public boolean isFile(File file) {
+        Entry entry = entries.get(file);
+        return entry != null && !entry.isDirectory();
+    }
+
+    public boolean isDirectory(File file) {
+        Entry entry = entries.get(file);
+        return entry != null && entry.isDirectory() || baseDir.equals(file);
+    }
+
+    /**
+     * Returns all regular files accepted by given filter, equivalent to <code>FileUtils.listFiles(baseDir, filter, trueFileFilter())</code>.
+     */
+    public List<File> listFiles(IOFileFilter filter) {
+        List<File> result = new ArrayList<File>();
+        for (Entry entry : entries.values()) {
+            if (!entry.isDirectory() && inScope(entry.getFile()) && filter.accept(entry.getFile())) {
+                result.add(entry.getFile());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all regular files with given extension (without dot) and accepted by given filter.
+     */
+    public List<File> listFilesByExtension(String extension, IOFileFilter filter) {
+        List<File> result = new ArrayList<File>();
+        for (Entry entry : entriesByExtension.get(extension)) {
+            if (inScope(entry.getFile()) && filter.accept(entry.getFile())) {
+                result.add(entry.getFile());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the base directory and all files and directories accepted by given filter,
+     * equivalent to <code>FileUtils.listFilesAndDirs(baseDir, filter, filter)</code>,
+     * so content of rejected directories is skipped.
+     */
+    public List<File> listFilesAndDirs(IOFileFilter filter) {
+        List<File> result = new ArrayList<File>();
+        if (baseDir.isDirectory() && inScope(baseDir)) {
+            result.add(baseDir);
+        }
+        Map<File, Boolean> acceptedDirs = new LinkedHashMap<File, Boolean>();
+        acceptedDirs.put(baseDir, Boolean.TRUE);
+        for (Entry entry : entries.values()) {
+            File file = entry.getFile();
+            boolean accepted = isAcceptedDirectory(file.getParentFile(), filter, acceptedDirs) && filter.accept(file);
+            if (entry.isDirectory()) {
+                acceptedDirs.put(file, accepted);
+            }
+            if (accepted && inScope(file)) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    private boolean isAcceptedDirectory(File dir, IOFileFilter filter, Map<File, Boolean> acceptedDirs) {
+        Boolean accepted = acceptedDirs.get(dir);
+        if (accepted == null) {
+            accepted = isAcceptedDirectory(dir.getParentFile(), filter, acceptedDirs) && filter.accept(dir);
+            acceptedDirs.put(dir, accepted);
+        }
+        return accepted;
+    }
+
+    /**
+     * Returns direct children of given directory.
+     */
+    public List<Entry> listDirectory(File dir) {
+        return Collections.unmodifiableList(entriesByDirectory.get(dir));
+    }
+
+    /**
+     * Returns regular files in given directory with given extension (without dot).
+     */
+    public List<File> listDirectory(File dir, String extension) {
+        List<File> result = new ArrayList<File>();
+        for (Entry entry : entriesByDirectory.get(dir)) {
+            if (!entry.isDirectory() && entry.getExtension().equals(extension)) {
+                result.add(entry.getFile());
+            }
+        }
+        return result;
+    }
+
+    public static class Entry {
+
+        private final File file;
+        private final String relativePath;
+        private final boolean directory;
+        private final long size;
+        private final long lastModified;
+        private final String extension;
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+
+        public Entry(File file, String relativePath, boolean directory, long size, long lastModified) {
+            this.file = file;
+            this.relativePath = relativePath;
+            this.directory = directory;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.extension = directory ? "" : FilenameUtils.getExtension(file.getName());
+
+            // layout groupId/as/path/artifactId/version/artifactId-version[-classifier].extension
+            String[] segments = StringUtils.split(relativePath, '/');
+            int n = segments.length;
+            if (!directory && n >= 4 && file.getName().startsWith(segments[n - 3] + "-")) {
+                this.groupId = StringUtils.join(segments, '.', 0, n - 3);
+                this.artifactId = segments[n - 3];
+                this.version = segments[n - 2];
+            } else {
+                this.groupId = null;
+                this.artifactId = null;
+                this.version = null;
+            }
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getRelativePath() {
+            return relativePath;
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public boolean hasGav() {
+            return groupId != null;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getArtifactId() {
+            return artifactId;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        @Override
+        public String toString() {
+            return relativePath;
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.File;
+
+import org.apache.commons.io.filefilter.AbstractFileFilter;
+import org.apache.commons.lang3.ArrayUtils;
+
+import com.redhat.repository.validator.ValidationListener;
+import com.redhat.repository.validator.ValidatorContext;
+
+/**
+ * Accepts files with given names (case insensitive) in root of validated repository, 
+ * the root is updated at start of each validation, so the filter works also for jobs of {@link com.redhat.repository.validator.ValidationServer}.
+ */
+public class RootFileFilter extends AbstractFileFilter implements ValidationListener {
+
+    private final String[] names;
+    private volatile String rootPath;
+
+    public RootFileFilter(File validatedRepository, String... names) {
+        this.names = names;
+        this.rootPath = validatedRepository.getAbsolutePath();
+    }
+
+    @Override
+    public boolean accept(File dir, String name) {
+        return dir.getAbsolutePath().equals(rootPath) && ArrayUtils.contains(names, name.toLowerCase());
+    }
+
+    @Override
+    public void validationStarted(ValidatorContext ctx) {
+        rootPath = ctx.getValidatedRepository().getAbsolutePath();
+    }
+
+    @Override
+    public void validationFinished(ValidatorContext ctx) {
+        // noop
+    }
+
+}
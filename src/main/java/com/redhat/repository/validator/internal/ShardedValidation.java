@@ -0,0 +1,278 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import com.google.common.hash.Hashing;
+import com.redhat.repository.validator.Incremental;
+import com.redhat.repository.validator.ShardableValidator;
+import com.redhat.repository.validator.ValidationError;
+import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.ValidatorContext;
+
+/**
+ * Validation of one shard of repository, files are assigned to shards by hash of groupId and artifactId,
+ * so all versions of an artifact belong to the same shard, files without coordinates belong to first shard.
+ * {@link Incremental} validators validate only files of the shard, {@link ShardableValidator}s collect facts from them
+ * and other validators run only on first shard. Errors and facts are stored in result file,
+ * results of all shards are merged by {@link #merge(ValidatorContext, Validator[], Collection)}.
+ */
+public class ShardedValidation {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedValidation.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String FORMAT = "redhat-repository-validator-shard-1";
+
+    private final int shard;
+    private final int shardCount;
+    private final File resultFile;
+
+    /**
+     * Creates disabled sharded validation, whole repository is validated.
+     */
+    public ShardedValidation() {
+        this.shard = 0;
+        this.shardCount = 1;
+        this.resultFile = null;
+    }
+
+    public ShardedValidation(int shard, int shardCount, File resultFile) {
+        if (shardCount < 1 || shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shard + "/" + shardCount + ", shards are numbered from 0 to count - 1");
+        }
+        this.shard = shard;
+        this.shardCount = shardCount;
+        this.resultFile = resultFile;
+    }
+
+    public boolean isEnabled() {
+        return resultFile != null;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public File getResultFile() {
+        return resultFile;
+    }
+
+    public static int shardOf(RepositoryIndex.Entry entry, int shardCount) {
+        if (!entry.hasGav()) {
+            return 0;
+        }
+        return Hashing.consistentHash(Hashing.murmur3_32().hashString(entry.getGroupId() + ":" + entry.getArtifactId(), UTF_8), shardCount);
+    }
+
+    public Run start(ValidatorContext ctx, Validator[] validators) {
+        Set<File> scope = new HashSet<File>();
+        for (RepositoryIndex.Entry entry : ctx.getRepositoryIndex().getEntries()) {
+            if (shardOf(entry, shardCount) == shard) {
+                scope.add(entry.getFile());
+            }
+        }
+        logger.info("sharded validation: shard {}/{} contains {} files and directories of {}", shard, shardCount, scope.size(), ctx.getRepositoryIndex().size());
+        return new Run(ctx, validators, ctx.withRepositoryIndex(ctx.getRepositoryIndex().restrict(scope)));
+    }
+
+    public class Run implements ValidationPlan {
+
+        private final ValidatorContext ctx;
+        private final ValidatorContext shardCtx;
+        private final Map<Validator, String> keys;
+        private final Map<String, ArrayList<Serializable>> facts = new ConcurrentHashMap<String, ArrayList<Serializable>>();
+
+        private Run(ValidatorContext ctx, Validator[] validators, ValidatorContext shardCtx) {
+            this.ctx = ctx;
+            this.shardCtx = shardCtx;
+            this.keys = Utils.validatorKeys(validators);
+        }
+
+        @Override
+        public void validate(Validator validator) {
+            if (validator instanceof ShardableValidator) {
+                List<? extends Serializable> validatorFacts = ((ShardableValidator<?>) validator).collectFacts(shardCtx);
+                facts.put(keys.get(validator), new ArrayList<Serializable>(validatorFacts));
+            } else if (AnnotationUtils.findAnnotation(validator.getClass(), Incremental.class) != null) {
+                validator.validate(shardCtx);
+            } else if (shard == 0) {
+                validator.validate(ctx);
+            } else {
+                logger.debug("skipping {}, it validates whole repository on first shard", validator);
+            }
+        }
+
+        /**
+         * Stores errors and facts of this shard, facts of failed validators are missing, so they are not validated by merge.
+         */
+        @Override
+        public void finish(Collection<Validator> failedValidators) {
+            List<ValidationError> errors = new ArrayList<ValidationError>(ctx.getErrors());
+            errors.addAll(ctx.getIgnoredErrors());
+
+            File tempFile = new File(resultFile.getPath() + ".tmp");
+            try {
+                resultFile.getAbsoluteFile().getParentFile().mkdirs();
+                try (ObjectOutputStream out = ExceptionSerializer.newOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                    out.writeUTF(FORMAT);
+                    out.writeInt(shard);
+                    out.writeInt(shardCount);
+                    out.writeInt(errors.size());
+                    for (ValidationError error : errors) {
+                        writeError(out, error);
+                    }
+                    out.writeInt(facts.size());
+                    for (Map.Entry<String, ArrayList<Serializable>> entry : facts.entrySet()) {
+                        out.writeObject(entry.getKey());
+                        out.writeObject(entry.getValue());
+                    }
+                }
+                Files.move(tempFile.toPath(), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("stored {} errors and facts of {} validators of shard {}/{} to {}", errors.size(), facts.size(), shard, shardCount, resultFile);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to store results of shard to " + resultFile, e);
+            } finally {
+                tempFile.delete();
+            }
+        }
+
+        private void writeError(ObjectOutputStream out, ValidationError error) throws IOException {
+            Exception exception = error.getException();
+            try {
+                // failure in the middle of shared stream would corrupt it
+                ExceptionSerializer.serialize(exception);
+            } catch (IOException e) {
+                logger.warn("unable to store error {}, storing only its message: {}", exception, e.getMessage());
+                exception = new Exception(exception.toString());
+            }
+            File file = error.getFile();
+            String relativePath = Utils.relativePath(ctx.getValidatedRepository(), file);
+            if (file != null && file.equals(ctx.getValidatedRepository())) {
+                // errors of failed validators
+                relativePath = "";
+            }
+            out.writeObject(keys.get(error.getValidator()));
+            out.writeBoolean(relativePath != null);
+            out.writeObject(relativePath != null ? relativePath : file != null ? file.getPath() : null);
+            out.writeObject(exception);
+        }
+
+    }
+
+    /**
+     * Adds errors of all shards to given context and validates facts of {@link ShardableValidator}s collected by all shards,
+     * validators have to be configured the same way as on shards.
+     */
+    public static void merge(ValidatorContext ctx, Validator[] validators, Collection<File> resultFiles) throws IOException {
+        Map<Validator, String> keys = Utils.validatorKeys(validators);
+        Map<String, Validator> validatorsByKey = new HashMap<String, Validator>();
+        for (Map.Entry<Validator, String> entry : keys.entrySet()) {
+            validatorsByKey.put(entry.getValue(), entry.getKey());
+        }
+
+        Set<Integer> shards = new TreeSet<Integer>();
+        Integer shardCount = null;
+        Map<String, SortedMap<Integer, List<Serializable>>> shardFacts = new HashMap<String, SortedMap<Integer, List<Serializable>>>();
+        for (File resultFile : resultFiles) {
+            try (ObjectInputStream in = ExceptionSerializer.newInputStream(new BufferedInputStream(new FileInputStream(resultFile)))) {
+                if (!FORMAT.equals(in.readUTF())) {
+                    throw new IOException(resultFile + " isn't result of sharded validation or was created by different version");
+                }
+                int shard = in.readInt();
+                int count = in.readInt();
+                if (shardCount != null && shardCount != count) {
+                    throw new IOException(resultFile + " is result of shard " + shard + "/" + count + ", but other results have " + shardCount + " shards");
+                }
+                shardCount = count;
+                if (!shards.add(shard)) {
+                    throw new IOException(resultFile + " is duplicate result of shard " + shard + "/" + count);
+                }
+
+                int errorCount = in.readInt();
+                for (int i = 0; i < errorCount; i++) {
+                    String key = (String) in.readObject();
+                    boolean relative = in.readBoolean();
+                    String path = (String) in.readObject();
+                    Exception exception = (Exception) in.readObject();
+                    Validator validator = key != null ? validatorsByKey.get(key) : null;
+                    if (key != null && validator == null) {
+                        throw new IOException(resultFile + " contains errors of unknown validator " + key + ", all shards have to use the same configuration");
+                    }
+                    File file = path == null ? null : !relative ? new File(path) : path.isEmpty() ? ctx.getValidatedRepository() : new File(ctx.getValidatedRepository(), path);
+                    ctx.addError(validator, file, exception);
+                }
+
+                int factCount = in.readInt();
+                for (int i = 0; i < factCount; i++) {
+                    String key = (String) in.readObject();
+                    @SuppressWarnings("unchecked")
+                    List<Serializable> facts = (List<Serializable>) in.readObject();
+                    if (!shardFacts.containsKey(key)) {
+                        shardFacts.put(key, new TreeMap<Integer, List<Serializable>>());
+                    }
+                    shardFacts.get(key).put(shard, facts);
+                }
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("Unable to read " + resultFile, e);
+            }
+        }
+        if (shardCount == null || shards.size() != shardCount) {
+            throw new IOException("Results of some shards are missing, found shards " + shards + " of " + shardCount);
+        }
+
+        for (Validator validator : validators) {
+            if (!(validator instanceof ShardableValidator)) {
+                continue;
+            }
+            SortedMap<Integer, List<Serializable>> validatorFacts = shardFacts.get(keys.get(validator));
+            if (validatorFacts == null || validatorFacts.size() != shardCount) {
+                logger.warn("{} failed on some shards, facts of other shards are not validated", validator);
+                continue;
+            }
+            List<Serializable> facts = new ArrayList<Serializable>();
+            for (List<Serializable> factsOfShard : validatorFacts.values()) {
+                facts.addAll(factsOfShard);
+            }
+            try {
+                @SuppressWarnings("unchecked")
+                ShardableValidator<Serializable> shardableValidator = (ShardableValidator<Serializable>) validator;
+                shardableValidator.validateFacts(ctx, facts);
+            } catch (RuntimeException e) {
+                logger.error("validator " + validator + " ended with unexpected exception!", e);
+                ctx.addError(null, ctx.getValidatedRepository(), e);
+            }
+        }
+        logger.info("merged results of {} shards: {} errors, {} ignored errors", shardCount, ctx.getErrorCount(), ctx.getIgnoredErrorCount());
+    }
+
+}
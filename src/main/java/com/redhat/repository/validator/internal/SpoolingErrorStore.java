@@ -0,0 +1,168 @@
+package com.redhat.repository.validator.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.MapMaker;
+import com.redhat.repository.validator.ValidationError;
+import com.redhat.repository.validator.Validator;
+
+/**
+ * Error store which appends serialized exceptions to spool file as they are added
+ * and keeps in memory only their offsets with validator, file, exception class and message for indexes and ordering.
+ * Exception added for several files (e.g. shared by all poms with ambiguous version) is spooled only once
+ * and errors returned by one call share the same exception instance. Exceptions which can't be serialized stay in memory.
+ */
+public class SpoolingErrorStore extends AbstractErrorStore<SpoolingErrorStore.SpoolRecord> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolingErrorStore.class);
+
+    private final File spoolFile;
+    private final FileChannel channel;
+    // weak keys are compared by identity
+    private final ConcurrentMap<Exception, Extent> spooledExceptions = new MapMaker().weakKeys().makeMap();
+    private long spoolSize;
+
+    public SpoolingErrorStore(File spoolFile) {
+        this.spoolFile = spoolFile;
+        try {
+            spoolFile.getAbsoluteFile().getParentFile().mkdirs();
+            this.channel = FileChannel.open(spoolFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open error spool " + spoolFile, e);
+        }
+    }
+
+    public File getSpoolFile() {
+        return spoolFile;
+    }
+
+    @Override
+    protected SpoolRecord createRecord(ValidationError error) {
+        Exception exception = error.getException();
+        Extent extent = spooledExceptions.get(exception);
+        if (extent == null) {
+            byte[] data;
+            try {
+                data = ExceptionSerializer.serialize(exception);
+            } catch (IOException e) {
+                logger.debug("unable to spool {}, keeping it in memory: {}", exception, e.getMessage());
+                return new SpoolRecord(error.getValidator(), error.getFile(), exception, null);
+            }
+            extent = append(exception, data);
+        }
+        return new SpoolRecord(error.getValidator(), error.getFile(), null, extent);
+    }
+
+    private synchronized Extent append(Exception exception, byte[] data) {
+        Extent extent = spooledExceptions.get(exception);
+        if (extent != null) {
+            return extent;
+        }
+        extent = new Extent(spoolSize, data.length);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, spoolSize + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write error spool " + spoolFile, e);
+        }
+        spoolSize += data.length;
+        spooledExceptions.put(exception, extent);
+        return extent;
+    }
+
+    @Override
+    protected List<ValidationError> toErrors(Collection<SpoolRecord> records) {
+        Map<Long, Exception> exceptions = new HashMap<Long, Exception>();
+        List<ValidationError> result = new ArrayList<ValidationError>();
+        for (SpoolRecord record : records) {
+            Exception exception = record.exception;
+            if (exception == null) {
+                exception = exceptions.get(record.extent.offset);
+                if (exception == null) {
+                    exception = read(record.extent);
+                    exceptions.put(record.extent.offset, exception);
+                }
+            }
+            result.add(new ValidationError(record.validator, exception, record.file));
+        }
+        return result;
+    }
+
+    @Override
+    protected Exception toException(SpoolRecord record) {
+        return record.exception != null ? record.exception : read(record.extent);
+    }
+
+    private Exception read(Extent extent) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(extent.length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, extent.offset + buffer.position()) < 0) {
+                    throw new IOException("unexpected end of file");
+                }
+            }
+            return ExceptionSerializer.deserialize(buffer.array());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read error spool " + spoolFile, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("unable to close error spool {}: {}", spoolFile, e.getMessage());
+        }
+        spoolFile.delete();
+    }
+
+    protected static class SpoolRecord extends AbstractErrorStore.Record {
+
+        private final Validator validator;
+        private final File file;
+        private final Exception exception;
+        private final Extent extent;
+
+        private SpoolRecord(Validator validator, File file, Exception exception, Extent extent) {
+            this.validator = validator;
+            this.file = file;
+            this.exception = exception;
+            this.extent = extent;
+        }
+
+        @Override
+        protected Object getExceptionKey() {
+            return exception != null ? exception : extent;
+        }
+
+    }
+
+    private static class Extent {
+
+        private final long offset;
+        private final int length;
+
+        private Extent(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.redhat.repository.validator.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferListener;
+import org.eclipse.aether.transfer.TransferResource;
+
+/**
+ * Limits number of concurrent transfers per remote repository, transfer waits in 
+ * {@link #transferInitiated(TransferEvent)} until the repository has free slot. 
+ * Other events are passed to delegate listener.
+ */
+public class ThrottlingTransferListener implements TransferListener {
+
+    private final TransferListener delegate;
+    private final int maxTransfersPerRepository;
+    private final ConcurrentMap<String, Semaphore> repositorySemaphores = new ConcurrentHashMap<String, Semaphore>();
+    private final ConcurrentMap<TransferResource, Semaphore> acquiredSemaphores = new ConcurrentHashMap<TransferResource, Semaphore>();
+
+    public ThrottlingTransferListener(TransferListener delegate, int maxTransfersPerRepository) {
+        this.delegate = delegate;
+        this.maxTransfersPerRepository = maxTransfersPerRepository;
+    }
+
+    @Override
+    public void transferInitiated(TransferEvent event) throws TransferCancelledException {
+        TransferResource resource = event.getResource();
+        if (!resource.getRepositoryUrl().startsWith("file:")) {
+            Semaphore semaphore = getSemaphore(resource.getRepositoryUrl());
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransferCancelledException("Interrupted while waiting for free connection to " + resource.getRepositoryUrl());
+            }
+            acquiredSemaphores.put(resource, semaphore);
+        }
+        delegate.transferInitiated(event);
+    }
+
+    private Semaphore getSemaphore(String repositoryUrl) {
+        Semaphore semaphore = repositorySemaphores.get(repositoryUrl);
+        if (semaphore == null) {
+            Semaphore newSemaphore = new Semaphore(maxTransfersPerRepository, true);
+            semaphore = repositorySemaphores.putIfAbsent(repositoryUrl, newSemaphore);
+            if (semaphore == null) {
+                semaphore = newSemaphore;
+            }
+        }
+        return semaphore;
+    }
+
+    private void release(TransferEvent event) {
+        Semaphore semaphore = acquiredSemaphores.remove(event.getResource());
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+
+    @Override
+    public void transferStarted(TransferEvent event) throws TransferCancelledException {
+        delegate.transferStarted(event);
+    }
+
+    @Override
+    public void transferProgressed(TransferEvent event) throws TransferCancelledException {
+        delegate.transferProgressed(event);
+    }
+
+    @Override
+    public void transferCorrupted(TransferEvent event) throws TransferCancelledException {
+        delegate.transferCorrupted(event);
+    }
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+        release(event);
+        delegate.transferSucceeded(event);
+    }
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+        release(event);
+        delegate.transferFailed(event);
+    }
+
+}
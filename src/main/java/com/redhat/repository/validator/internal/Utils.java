@@ -5,26 +5,30 @@ import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.DependencyCollectionException;
 import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.DependencyResolutionException;
 import org.eclipse.aether.util.ChecksumUtils;
-import org.eclipse.aether.util.filter.PatternInclusionsDependencyFilter;
-import org.eclipse.aether.util.graph.visitor.PathRecordingDependencyVisitor;
 
+import com.redhat.repository.validator.Validator;
 import com.redhat.repository.validator.ValidatorContext;
 
 public class Utils {
@@ -47,6 +51,37 @@ public class Utils {
         return new File(relativePath.toString());
     }
 
+    /**
+     * Returns path of given file relative to given directory with unix separators, or null if the file is outside of the directory.
+     */
+    public static String relativePath(File baseDir, File file) {
+        if (file == null) {
+            return null;
+        }
+        Path basePath = baseDir.getAbsoluteFile().toPath().normalize();
+        Path path = file.getAbsoluteFile().toPath().normalize();
+        if (!path.startsWith(basePath) || path.equals(basePath)) {
+            return null;
+        }
+        return FilenameUtils.separatorsToUnix(basePath.relativize(path).toString());
+    }
+
+    /**
+     * Returns keys of given validators, which stay same between runs with same configuration
+     * (class name and ordinal among validators of the same class).
+     */
+    public static Map<Validator, String> validatorKeys(Validator[] validators) {
+        Map<Validator, String> keys = new HashMap<Validator, String>();
+        Map<Class<?>, Integer> counts = new HashMap<Class<?>, Integer>();
+        for (Validator validator : validators) {
+            Integer count = counts.get(validator.getClass());
+            count = count != null ? count + 1 : 0;
+            counts.put(validator.getClass(), count);
+            keys.put(validator, validator.getClass().getName() + "#" + count);
+        }
+        return keys;
+    }
+
     public static List<Artifact> sortArtifacts(Collection<Artifact> artifacts) {
         List<Artifact> result = new ArrayList<Artifact>(artifacts);
         Collections.sort(result, new Comparator<Artifact>() {
@@ -60,20 +95,7 @@ public class Utils {
         return result;
     }
     
-    public static List<DependencyNode> sortDependencyNodes(Collection<DependencyNode> nodes) {
-        List<DependencyNode> result = new ArrayList<DependencyNode>(nodes);
-        Collections.sort(result, new Comparator<DependencyNode>() {
-            @Override
-            public int compare(DependencyNode n1, DependencyNode n2) {
-                String gav1 = n1.getArtifact().toString();
-                String gav2 = n2.getArtifact().toString();
-                return gav1.compareTo(gav2);
-            }
-        });
-        return result;
-    }
-    
-    public static List<Exception> sortExceptions(Collection<Exception> exceptions) {
+    public static List<Exception> sortExceptions(Collection<? extends Exception> exceptions) {
         Set<Exception> uniqueExceptions = new HashSet<Exception>(exceptions);
         ArrayList<Exception> sortedExceptions = new ArrayList<Exception>(uniqueExceptions);
         Collections.sort(sortedExceptions, new Comparator<Exception>() {
@@ -95,6 +117,21 @@ public class Utils {
         return sortedExceptions;
     }
 
+    /**
+     * Sorts exception types the same way as {@link #sortExceptions(Collection)} sorts exceptions.
+     */
+    public static List<Class<? extends Exception>> sortExceptionTypes(Collection<Class<? extends Exception>> exceptionTypes) {
+        List<Class<? extends Exception>> result = new ArrayList<Class<? extends Exception>>(exceptionTypes);
+        Collections.sort(result, new Comparator<Class<? extends Exception>>() {
+            @Override
+            public int compare(Class<? extends Exception> c1, Class<? extends Exception> c2) {
+                int result = c1.getSimpleName().compareTo(c2.getSimpleName());
+                return result != 0 ? result : c1.getName().compareTo(c2.getName());
+            }
+        });
+        return result;
+    }
+
     public static List<File> sortFiles(Collection<File> files){
         List<File> sorted = new ArrayList<File>(files);
         Collections.sort(sorted, new Comparator<File>() {
@@ -117,13 +154,18 @@ public class Utils {
     }
     
     public static String findPathToDependency(Artifact artifact, DependencyNode root) {
+        return formatDependencyPaths(findPathsToDependency(artifact, root));
+    }
+
+    public static List<List<Artifact>> findPathsToDependency(Artifact artifact, DependencyNode root) {
+        return new DependencyPathIndex(root, Collections.singleton(artifact)).getPaths(artifact);
+    }
+
+    public static String formatDependencyPaths(List<List<Artifact>> paths) {
         StringBuilder pathBuilder = new StringBuilder();
-        PathRecordingDependencyVisitor pathVisitor = new PathRecordingDependencyVisitor(new PatternInclusionsDependencyFilter(artifact.toString()));
-        root.accept(pathVisitor);
-        List<List<DependencyNode>> paths = pathVisitor.getPaths();
-        for (List<DependencyNode> path : paths) {
+        for (List<Artifact> path : paths) {
             for (int i = 0; i < path.size(); i++) {
-                pathBuilder.append(path.get(i).getArtifact());
+                pathBuilder.append(path.get(i));
                 if (i != path.size() - 1) {
                     pathBuilder.append(" > ");
                 }
@@ -141,9 +183,54 @@ public class Utils {
         }
         return missingArtifacts;
     }
+
+    /**
+     * Replaces aether exceptions by copies without results, the same as they are read back by serialization,
+     * so the dependency graph referenced by results can be garbage collected.
+     * Exceptions already without results are returned as they are, so exceptions detached once can be shared.
+     */
+    public static Exception detachResults(Exception e) {
+        if (!(e instanceof DependencyResolutionException || e instanceof ArtifactResolutionException || e instanceof DependencyCollectionException)) {
+            return e;
+        }
+        Throwable cause = e.getCause() instanceof Exception ? detachResults((Exception) e.getCause()) : e.getCause();
+        if (cause == e.getCause() && hasNoResults(e)) {
+            return e;
+        }
+        Exception detached;
+        if (e instanceof DependencyResolutionException) {
+            detached = new DependencyResolutionException(null, e.getMessage(), cause);
+        } else if (e instanceof ArtifactResolutionException) {
+            detached = new ArtifactResolutionException(Collections.<ArtifactResult> emptyList(), e.getMessage(), cause);
+        } else {
+            detached = new DependencyCollectionException(null, e.getMessage(), cause);
+        }
+        detached.setStackTrace(e.getStackTrace());
+        return detached;
+    }
     
+    private static boolean hasNoResults(Exception e) {
+        if (e instanceof DependencyResolutionException) {
+            return ((DependencyResolutionException) e).getResult() == null;
+        } else if (e instanceof ArtifactResolutionException) {
+            return ((ArtifactResolutionException) e).getResults().isEmpty();
+        } else {
+            return ((DependencyCollectionException) e).getResult() == null;
+        }
+    }
+
     public static String calculateChecksum(File file, String algorithm) {
+        return calculateChecksum(null, file, algorithm);
+    }
+
+    /**
+     * Calculates checksum via given engine (and its hash cache), or directly if the engine is null.
+     */
+    public static String calculateChecksum(ChecksumEngine checksumEngine, File file, String algorithm) {
         try {
+            if (checksumEngine != null) {
+                return checksumEngine.calc(file, algorithm);
+            }
             Map<String, Object> checksums = ChecksumUtils.calc(file, Collections.singleton(algorithm));
             return (String) checksums.get(algorithm);
         } catch (IOException e) {
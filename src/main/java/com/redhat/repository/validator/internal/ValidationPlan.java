@@ -0,0 +1,17 @@
+package com.redhat.repository.validator.internal;
+
+import java.util.Collection;
+
+import com.redhat.repository.validator.ValidationExecutor;
+import com.redhat.repository.validator.Validator;
+
+/**
+ * Decides which part of validated repository each validator validates during one run of {@link ValidationExecutor}.
+ */
+public interface ValidationPlan {
+
+    void validate(Validator validator);
+
+    void finish(Collection<Validator> failedValidators);
+
+}
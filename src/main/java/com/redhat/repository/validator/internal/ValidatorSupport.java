@@ -1,11 +1,5 @@
 package com.redhat.repository.validator.internal;
 
-import static org.apache.commons.io.FileUtils.iterateFiles;
-import static org.apache.commons.io.FileUtils.listFiles;
-import static org.apache.commons.io.filefilter.FileFilterUtils.and;
-import static org.apache.commons.io.filefilter.FileFilterUtils.suffixFileFilter;
-import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
-
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -13,6 +7,12 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -32,11 +32,30 @@ import org.eclipse.aether.artifact.ArtifactTypeRegistry;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.artifact.DefaultArtifactType;
 import org.eclipse.aether.graph.Exclusion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.redhat.repository.validator.ValidationListener;
+import com.redhat.repository.validator.ValidationServer;
 import com.redhat.repository.validator.ValidatorContext;
 
 @Named
-public class ValidatorSupport {
+public class ValidatorSupport implements ValidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidatorSupport.class);
+
+    private static final int MODEL_CACHE_SIZE = 10000;
 
     @Inject
     private ModelBuilder modelBuilder;
@@ -44,29 +63,183 @@ public class ValidatorSupport {
     private ModelBuildingRequest modelBuildingRequestTemplate;
     @Inject
     private ArtifactTypeRegistry artifactTypeRegistry;
+    @Inject
+    private InternalModelCache rawModelCache;
+    @Inject @Named("validationTaskExecutor")
+    private ExecutorService validationTaskExecutor;
+    @Value("#{systemProperties['redhat-repository-validator-threads']?:'1'}")
+    private int validationThreads;
+
+    private final Cache<ModelKey, ModelEntry> modelCache = CacheBuilder.newBuilder()
+            .maximumSize(MODEL_CACHE_SIZE)
+            .softValues()
+            .recordStats()
+            .build();
+    private volatile CacheStats modelCacheStatsOnStart = new CacheStats(0, 0, 0, 0, 0, 0);
+    private volatile boolean modelCacheResident;
+    private volatile HashCode modelCacheStamp;
     
-    public static Collection<File> listPomFiles(File dir, IOFileFilter filter) {
-        Collection<File> pomFiles = listFiles(dir, and(filter, suffixFileFilter(".pom")), trueFileFilter());
+    public static Collection<File> listPomFiles(ValidatorContext ctx, IOFileFilter filter) {
+        Collection<File> pomFiles = ctx.getRepositoryIndex().listFilesByExtension("pom", filter);
         return pomFiles;
     }
     
     public ModelBuildingResult buildModel(File pomFile) {
         ModelBuildingResult result = null;
+        try {
+            result = buildModel(pomFile, modelBuildingRequestTemplate.getValidationLevel());
+        } catch (ModelBuildingException e) {
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Keeps model caches between validation runs, as long as pom files of validated repository don't change, see {@link ValidationServer}.
+     */
+    public void setModelCacheResident(boolean modelCacheResident) {
+        this.modelCacheResident = modelCacheResident;
+    }
+
+    /**
+     * Builds effective model of given pom, results (including failures) are cached during validation run.
+     */
+    public ModelBuildingResult buildModel(final File pomFile, final int validationLevel) throws ModelBuildingException {
+        ModelEntry entry;
+        try {
+            entry = modelCache.get(new ModelKey(pomFile, validationLevel), new Callable<ModelEntry>() {
+                @Override
+                public ModelEntry call() {
+                    return doBuildModel(pomFile, validationLevel);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+        if (entry.exception != null) {
+            throw entry.exception;
+        }
+        return entry.result;
+    }
 
+    private ModelEntry doBuildModel(File pomFile, int validationLevel) {
         DefaultModelBuildingRequest request = new DefaultModelBuildingRequest(modelBuildingRequestTemplate);
         request.setPomFile(pomFile);
         request.setModelSource(new FileModelSource(pomFile));
+        request.setValidationLevel(validationLevel);
         try {
-            result = modelBuilder.build(request);
+            return new ModelEntry(modelBuilder.build(request), null);
         } catch (ModelBuildingException e) {
-            result = null;
+            return new ModelEntry(null, e);
         }
-        
-        return result;
+    }
+
+    /**
+     * Applies function to all items using calling thread and up to threads - 1 threads of shared validation task executor,
+     * results are returned in order of items, so output of validators doesn't depend on number of threads.
+     * Calling thread also takes items not yet taken by executor threads, so it never waits for executor busy with other validators.
+     * 
+     * @param threads maximal number of threads, zero means same number as global validation threads
+     */
+    public <T, R> List<R> mapInOrder(Collection<T> items, int threads, final Function<? super T, R> function) {
+        int effectiveThreads = threads > 0 ? threads : validationThreads;
+        final List<FutureTask<R>> tasks = new ArrayList<FutureTask<R>>(items.size());
+        final CpuTimeAccount cpuTimeAccount = CpuTimeAccount.current();
+        final Thread callingThread = Thread.currentThread();
+        for (final T item : items) {
+            final Callable<R> callable = new Callable<R>() {
+                @Override
+                public R call() {
+                    return function.apply(item);
+                }
+            };
+            tasks.add(new FutureTask<R>(new Callable<R>() {
+                @Override
+                public R call() throws Exception {
+                    // executor threads charge CPU time to validator of calling thread before result is available,
+                    // calling thread is charged already
+                    boolean charge = cpuTimeAccount != null && Thread.currentThread() != callingThread;
+                    return charge ? cpuTimeAccount.call(callable) : callable.call();
+                }
+            }));
+        }
+        final AtomicInteger next = new AtomicInteger();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = next.getAndIncrement(); i < tasks.size(); i = next.getAndIncrement()) {
+                    tasks.get(i).run();
+                }
+            }
+        };
+        try {
+            try {
+                for (int i = 1; i < Math.min(effectiveThreads, tasks.size()); i++) {
+                    validationTaskExecutor.execute(worker);
+                }
+            } catch (RejectedExecutionException e) {
+                logger.debug("validation task executor rejected worker, remaining items are processed by calling thread");
+            }
+            worker.run();
+            List<R> results = new ArrayList<R>(tasks.size());
+            for (FutureTask<R> task : tasks) {
+                results.add(task.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            next.set(tasks.size());
+            for (FutureTask<R> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    @Override
+    public void validationStarted(ValidatorContext ctx) {
+        HashCode stamp = modelCacheResident ? pomFilesStamp(ctx) : null;
+        if (stamp != null && stamp.equals(modelCacheStamp)) {
+            logger.info("model cache kept from previous validation run, pom files of {} didn't change", ctx.getValidatedRepository());
+        } else {
+            modelCache.invalidateAll();
+            rawModelCache.invalidateAll();
+        }
+        modelCacheStamp = stamp;
+        modelCacheStatsOnStart = modelCache.stats();
+    }
+
+    @Override
+    public void validationFinished(ValidatorContext ctx) {
+        CacheStats stats = modelCache.stats().minus(modelCacheStatsOnStart);
+        logger.info("model cache: {} hits of {} requests ({}%), {} evictions", 
+                stats.hitCount(), stats.requestCount(), Math.round(stats.hitRate() * 100), stats.evictionCount());
+        if (!modelCacheResident) {
+            modelCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns hash of paths, sizes and modification times of all pom files in validated repository.
+     */
+    private static HashCode pomFilesStamp(ValidatorContext ctx) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putString(ctx.getValidatedRepository().getAbsolutePath(), Charsets.UTF_8);
+        for (RepositoryIndex.Entry entry : ctx.getRepositoryIndex().getEntries()) {
+            if (!entry.isDirectory() && "pom".equals(entry.getExtension())) {
+                hasher.putString(entry.getRelativePath(), Charsets.UTF_8).putLong(entry.getSize()).putLong(entry.getLastModified());
+            }
+        }
+        return hasher.hash();
     }
     
     public Iterator<ModelBuildingResult> modelIterator(final ValidatorContext ctx, IOFileFilter filter) {
-        final Iterator<File> fileIterator = iterateFiles(ctx.getValidatedRepository(), and(filter, suffixFileFilter(".pom")), trueFileFilter());
+        final Iterator<File> fileIterator = listPomFiles(ctx, filter).iterator();
         final Iterator<ModelBuildingResult> modelIterator = new Iterator<ModelBuildingResult>() {
 
             @Override
@@ -148,6 +321,44 @@ public class ValidatorSupport {
                 exclusions);
 
         return result;
-    }    
+    }
+
+    private static class ModelKey {
+
+        private final File pomFile;
+        private final int validationLevel;
+
+        private ModelKey(File pomFile, int validationLevel) {
+            this.pomFile = pomFile;
+            this.validationLevel = validationLevel;
+        }
+
+        @Override
+        public int hashCode() {
+            return pomFile.hashCode() * 31 + validationLevel;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ModelKey)) {
+                return false;
+            }
+            ModelKey other = (ModelKey) obj;
+            return pomFile.equals(other.pomFile) && validationLevel == other.validationLevel;
+        }
+
+    }
+
+    private static class ModelEntry {
+
+        private final ModelBuildingResult result;
+        private final ModelBuildingException exception;
+
+        private ModelEntry(ModelBuildingResult result, ModelBuildingException exception) {
+            this.result = result;
+            this.exception = exception;
+        }
+
+    }
 
 }
\ No newline at end of file
@@ -61,6 +61,13 @@ public class TestAppRunner {
         System.clearProperty("redhat-repository-validator-validatedRepository");
         System.clearProperty("redhat-repository-validator-localRepository");
         System.clearProperty("redhat-repository-validator-remoteRepositories");
+        System.clearProperty("redhat-repository-validator-threads");
+        System.clearProperty("redhat-repository-validator-hashCache");
+        System.clearProperty("redhat-repository-validator-remoteResponseCache");
+        System.clearProperty("redhat-repository-validator-incremental");
+        System.clearProperty("redhat-repository-validator-shard");
+        System.clearProperty("redhat-repository-validator-errorSpool");
+        System.clearProperty("redhat-repository-validator-config");
     }
 
     @Test
@@ -81,6 +88,18 @@ public class TestAppRunner {
         assertOutputContains("Unrecognized option");
     }
 
+    @Test
+    public void shouldPrintInvalidShard() {
+        appRunner.run("--shard", "4/4");
+        assertOutputContains("Invalid shard `4/4`");
+    }
+
+    @Test
+    public void shouldPrintShardCombinedWithIncremental() {
+        appRunner.run("--shard", "0/2", "--incremental");
+        assertOutputContains("Option --shard can't be combined");
+    }
+
     @Test(expected = BeanDefinitionStoreException.class)
     public void shouldPrintUnhandledException1() {
         appRunner.run("-c", "file-does-not-exist.xml");
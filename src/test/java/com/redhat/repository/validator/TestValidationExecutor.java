@@ -0,0 +1,121 @@
+package com.redhat.repository.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.Test;
+import org.springframework.core.annotation.Order;
+
+public class TestValidationExecutor {
+
+    private static final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+    private final ValidatorContext ctx = new ValidatorContext(new File("target/repos/executor-repo"), new File(""), Collections.<RemoteRepository>emptyList());
+
+    @Test
+    public void shouldRespectOrderAndRunsAfterWithMultipleThreads() {
+        executed.clear();
+
+        ValidationExecutor validationExecutor = new ValidationExecutor(new ValidatorD(), new ValidatorC(), new ValidatorB(), new ValidatorA());
+        validationExecutor.setThreads(4);
+        validationExecutor.execute(ctx);
+
+        assertEquals(4, executed.size());
+        assertTrue(executed.indexOf("A") < executed.indexOf("B"));
+        assertTrue(executed.indexOf("B") < executed.indexOf("C"));
+        assertTrue(executed.indexOf("A") < executed.indexOf("C"));
+    }
+
+    @Test
+    public void shouldRunSequentiallyInTopologicalOrder() {
+        executed.clear();
+
+        ValidationExecutor validationExecutor = new ValidationExecutor(new ValidatorC(), new ValidatorB(), new ValidatorA());
+        validationExecutor.execute(ctx);
+
+        assertEquals("[A, B, C]", executed.toString());
+    }
+
+    @Test
+    public void shouldRunLastAfterAllOtherValidators() {
+        executed.clear();
+
+        ValidationExecutor validationExecutor = new ValidationExecutor(new ValidatorLast(), new ValidatorD(), new ValidatorC(), new ValidatorB(), new ValidatorA());
+        validationExecutor.setThreads(4);
+        validationExecutor.execute(ctx);
+
+        assertEquals(5, executed.size());
+        assertEquals("Last", executed.get(4));
+    }
+
+    @Test
+    public void shouldRegisterUnexpectedException() {
+        ValidationExecutor validationExecutor = new ValidationExecutor(new ValidatorFailing());
+        validationExecutor.setThreads(2);
+        validationExecutor.execute(ctx);
+
+        assertEquals(1, ctx.getExceptions(IllegalStateException.class).size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldDetectCycle() {
+        new ValidationExecutor(new ValidatorCycle1(), new ValidatorCycle2());
+    }
+
+    private static abstract class RecordingValidator implements Validator {
+
+        @Override
+        public void validate(ValidatorContext ctx) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            executed.add(getClass().getSimpleName().substring("Validator".length()));
+        }
+
+    }
+
+    @Order(1)
+    private static class ValidatorA extends RecordingValidator {
+    }
+
+    @Order(2)
+    private static class ValidatorB extends RecordingValidator {
+    }
+
+    @RunsAfter(ValidatorB.class)
+    private static class ValidatorC extends RecordingValidator {
+    }
+
+    private static class ValidatorD extends RecordingValidator {
+    }
+
+    @RunsLast
+    private static class ValidatorLast extends RecordingValidator {
+    }
+
+    private static class ValidatorFailing implements Validator {
+
+        @Override
+        public void validate(ValidatorContext ctx) {
+            throw new IllegalStateException();
+        }
+
+    }
+
+    @RunsAfter(ValidatorCycle2.class)
+    private static class ValidatorCycle1 extends RecordingValidator {
+    }
+
+    @RunsAfter(ValidatorCycle1.class)
+    private static class ValidatorCycle2 extends RecordingValidator {
+    }
+
+}
@@ -9,7 +9,12 @@ import com.redhat.repository.validator.filter.FilenameBasedExceptionFilter;
 import com.redhat.repository.validator.impl.source.JarSourcesVerificationException;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 
@@ -31,4 +36,50 @@ public class TestValidatorContext {
         assertEquals("Non-filtered exception", exception, ctx.getExceptions().get(0));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldIndexErrorsAddedConcurrently() throws InterruptedException {
+        final ValidatorContext ctx = new ValidatorContext(new File(""), new File(""), Collections.<RemoteRepository>emptyList());
+        final Validator validator = new Validator() {
+            @Override
+            public void validate(ValidatorContext ctx) {
+            }
+        };
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            final File file = new File("file-" + (i % 10) + ".jar");
+            final boolean even = i % 2 == 0;
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.addError(even ? validator : null, file, even ? new IllegalStateException() : new JarSourcesVerificationException(file));
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+
+        assertEquals(1000, ctx.getErrors().size());
+        assertEquals(100, ctx.getErrors(new File("file-3.jar")).size());
+        assertEquals(500, ctx.getErrors(validator).size());
+        assertEquals(500, ctx.getErrors((Validator) null).size());
+        assertEquals(500, ctx.getExceptions(JarSourcesVerificationException.class).size());
+        assertEquals(1000, ctx.getExceptions(Exception.class).size());
+        assertEquals(0, ctx.getErrors(new File("other.jar")).size());
+    }
+
+    @Test
+    public void shouldKeepInsertionOrderForSuperType() {
+        ValidatorContext ctx = new ValidatorContext(new File(""), new File(""), Collections.<RemoteRepository>emptyList());
+        List<Exception> expected = new ArrayList<Exception>();
+        for (int i = 0; i < 10; i++) {
+            Exception e = i % 3 == 0 ? new IllegalStateException() : new IllegalArgumentException();
+            expected.add(e);
+            ctx.addError(null, new File(""), e);
+        }
+
+        assertEquals(expected, ctx.getExceptions(RuntimeException.class));
+        assertEquals(expected, ctx.getExceptions());
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.redhat.repository.validator.impl;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Base of timing harnesses, they reproduce performance claims on synthetic repositories and print measured times.
+ * They are not executed by default build (surefire includes only <code>Test*</code> and <code>*Test</code> classes),
+ * run them explicitly, e.g. <code>mvn test -Dtest=DependencyCollectionBenchmark</code>.
+ */
+public abstract class AbstractBenchmark extends AbstractTest {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+    private static final int GC_RUNS = 3;
+
+    // keeps result of measured callable reachable during measurement of retained heap
+    private Object retained;
+
+    /**
+     * Runs given callable few times to warm up JVM, then prints and returns minimal time of measured runs in milliseconds.
+     */
+    protected long measure(String name, Callable<?> callable) throws Exception {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            callable.call();
+        }
+        long min = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            callable.call();
+            long time = (System.nanoTime() - start) / 1000000;
+            min = Math.min(min, time);
+            total += time;
+        }
+        System.out.println(String.format("%-60s min %6d ms, avg %6d ms", name, min, total / MEASURED_RUNS));
+        return min;
+    }
+
+    /**
+     * Prints and returns heap retained by object returned from given callable in bytes, i.e. difference of used heap after full collections.
+     */
+    protected long measureRetainedHeap(String name, Callable<?> callable) throws Exception {
+        long before = usedHeap();
+        retained = callable.call();
+        long after = usedHeap();
+        retained = null;
+        long size = Math.max(after - before, 0);
+        System.out.println(String.format("%-60s retained %8d KiB", name, size / 1024));
+        return size;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_RUNS; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
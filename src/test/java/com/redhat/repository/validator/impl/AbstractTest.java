@@ -31,6 +31,8 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import com.redhat.repository.validator.AppConfig;
 import com.redhat.repository.validator.ValidationExecutor;
 import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.remoterepository.RemoteResponseCache;
+import com.redhat.repository.validator.internal.HashCache;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration
@@ -153,6 +155,18 @@ public abstract class AbstractTest {
             return new LocalRepository(repoLocalDir);
         }
 
+        @Bean
+        @Override
+        public HashCache hashCache() {
+            return new HashCache(new File(reposDir, "hash-cache.tsv"));
+        }
+
+        @Bean
+        @Override
+        public RemoteResponseCache remoteResponseCache() {
+            return new RemoteResponseCache();
+        }
+
     }
 
     public static class TestFileFilter implements IOFileFilter {
@@ -0,0 +1,87 @@
+package com.redhat.repository.validator.impl;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+
+import org.apache.maven.model.Model;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.filter.DependencyFilterUtils;
+import org.junit.Test;
+
+/**
+ * Compares resolving dependencies of a deep graph by collecting it twice (collectDependencies followed by
+ * resolveDependencies with the same CollectRequest, as DependenciesValidator did before) and by resolving
+ * the root of already collected graph.
+ */
+public class DependencyCollectionBenchmark extends AbstractBenchmark {
+
+    private static final int DEPTH = 200;
+    private static final int LEAVES_PER_LEVEL = 3;
+
+    @Inject
+    private RepositorySystem repositorySystem;
+    @Inject
+    private RepositorySystemSession repositorySystemSession;
+
+    @Test
+    public void compareCollectingTwiceAndOnce() throws Exception {
+        final Model root = createDeepGraph();
+        final DependencyFilter filter = DependencyFilterUtils.classpathFilter(JavaScopes.COMPILE);
+
+        long twice = measure("collect twice, depth " + DEPTH, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                CollectRequest collectRequest = collectRequest(root);
+                repositorySystem.collectDependencies(repositorySystemSession, collectRequest);
+                repositorySystem.resolveDependencies(repositorySystemSession, new DependencyRequest(collectRequest, filter));
+                return null;
+            }
+        });
+        long once = measure("collect once, depth " + DEPTH, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                CollectResult collectResult = repositorySystem.collectDependencies(repositorySystemSession, collectRequest(root));
+                repositorySystem.resolveDependencies(repositorySystemSession, new DependencyRequest(collectResult.getRoot(), filter));
+                return null;
+            }
+        });
+        System.out.println(String.format("collect once takes %d%% of collect twice", once * 100 / Math.max(twice, 1)));
+    }
+
+    /**
+     * Creates chain of artifacts, each depending on the next one and on few leaf artifacts, returns its first artifact.
+     */
+    private Model createDeepGraph() {
+        Model next = null;
+        for (int level = DEPTH - 1; level >= 0; level--) {
+            TestUtil.PomBuilder builder = pom().artifactId("level-" + level);
+            if (next != null) {
+                builder.dependency(next);
+            }
+            for (int leaf = 0; leaf < LEAVES_PER_LEVEL; leaf++) {
+                builder.dependency(pom().artifactId("leaf-" + level + "-" + leaf).create(repoFooDir));
+            }
+            next = builder.create(repoFooDir);
+        }
+        return next;
+    }
+
+    private CollectRequest collectRequest(Model root) {
+        CollectRequest collectRequest = new CollectRequest();
+        collectRequest.setRoot(new Dependency(new DefaultArtifact(root.getGroupId(), root.getArtifactId(), "jar", root.getVersion()), JavaScopes.COMPILE));
+        collectRequest.setRepositories(remoteRepos.subList(0, 1));
+        return collectRequest;
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.redhat.repository.validator.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.resolution.DependencyResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.junit.Test;
+
+/**
+ * Compares heap retained by errors about missing dependencies of many roots with large graphs, 
+ * when the graphs are kept with the errors (as DependencyNotFoundException did before) and when the errors keep only paths.
+ * Graphs are built in memory the same way as aether builds them, each root has its own nodes of artifacts shared with other roots.
+ */
+public class DependencyNotFoundHeapBenchmark extends AbstractBenchmark {
+
+    private static final int ROOTS = 2000;
+    private static final int CHILDREN = 20;
+    private static final int GRANDCHILDREN = 24;
+
+    @Test
+    public void compareRetainedHeap() throws Exception {
+        long withGraphs = measureRetainedHeap(ROOTS + " roots, errors with graphs", new Callable<Object>() {
+            @Override
+            public Object call() {
+                List<Object> errors = new ArrayList<Object>();
+                for (int i = 0; i < ROOTS; i++) {
+                    DependencyNode root = createGraph(i);
+                    errors.add(new Object[] { root, createException(i, root) });
+                }
+                return errors;
+            }
+        });
+        long withPaths = measureRetainedHeap(ROOTS + " roots, errors with paths", new Callable<Object>() {
+            @Override
+            public Object call() {
+                List<Object> errors = new ArrayList<Object>();
+                for (int i = 0; i < ROOTS; i++) {
+                    DependencyNode root = createGraph(i);
+                    errors.add(createException(i, root));
+                }
+                return errors;
+            }
+        });
+        System.out.println(String.format("errors with paths retain %d%% of heap retained by errors with graphs", withPaths * 100 / Math.max(withGraphs, 1)));
+    }
+
+    /**
+     * Creates graph of root with children, each with grandchildren, the last grandchild of the last child is missing.
+     */
+    private static DependencyNode createGraph(int index) {
+        DefaultDependencyNode root = new DefaultDependencyNode(new Dependency(artifact("root-" + index), JavaScopes.COMPILE));
+        List<DependencyNode> children = new ArrayList<DependencyNode>();
+        for (int i = 0; i < CHILDREN; i++) {
+            DefaultDependencyNode child = new DefaultDependencyNode(new Dependency(artifact("child-" + i), JavaScopes.COMPILE));
+            List<DependencyNode> grandchildren = new ArrayList<DependencyNode>();
+            for (int j = 0; j < GRANDCHILDREN; j++) {
+                grandchildren.add(new DefaultDependencyNode(new Dependency(artifact("grandchild-" + i + "-" + j), JavaScopes.COMPILE)));
+            }
+            child.setChildren(grandchildren);
+            children.add(child);
+        }
+        root.setChildren(children);
+        return root;
+    }
+
+    /**
+     * Creates exception like the one thrown by aether, its results reference the graph.
+     */
+    private static DependencyNotFoundException createException(int index, DependencyNode root) {
+        List<DependencyNode> children = root.getChildren();
+        List<DependencyNode> grandchildren = children.get(children.size() - 1).getChildren();
+        DependencyNode missingNode = grandchildren.get(grandchildren.size() - 1);
+        Artifact missingArtifact = missingNode.getArtifact();
+
+        ArtifactResult artifactResult = new ArtifactResult(new ArtifactRequest(missingNode));
+        artifactResult.addException(new ArtifactNotFoundException(missingArtifact, null));
+        ArtifactResolutionException are = new ArtifactResolutionException(Collections.singletonList(artifactResult));
+        DependencyResult dependencyResult = new DependencyResult(new DependencyRequest(root, null));
+        dependencyResult.setArtifactResults(Collections.singletonList(artifactResult));
+        DependencyResolutionException e = new DependencyResolutionException(dependencyResult, are);
+
+        return new DependencyNotFoundException(e, missingArtifact, artifact("root-" + index), root);
+    }
+
+    private static Artifact artifact(String artifactId) {
+        return new DefaultArtifact("com.acme", artifactId, "jar", "1.0");
+    }
+
+}
@@ -6,9 +6,12 @@ import static com.redhat.repository.validator.impl.TestUtil.pom;
 import static com.redhat.repository.validator.impl.TestUtil.toArtifactFile;
 import static org.apache.commons.io.filefilter.FileFilterUtils.nameFileFilter;
 import static org.apache.commons.io.filefilter.FileFilterUtils.notFileFilter;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
@@ -18,6 +21,7 @@ import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.Profile;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
 import org.eclipse.aether.transfer.ArtifactNotFoundException;
 import org.junit.Test;
@@ -27,6 +31,7 @@ import org.springframework.test.context.ContextConfiguration;
 
 import com.google.common.io.Files;
 import com.redhat.repository.validator.impl.UnknownArtifactTypeException;
+import com.redhat.repository.validator.internal.Utils;
 
 @ContextConfiguration
 public class TestDependenciesValidator extends AbstractTest {
@@ -433,6 +438,23 @@ public class TestDependenciesValidator extends AbstractTest {
         assertExpectedException(ArtifactNotFoundException.class, "Could not find artifact com.acme:bar-api:jar:1.0");
     }
 
+    @Test
+    public void shouldKeepOnlyPathToMissingDependency() {
+        Model barApi = pom().artifactId("bar-api").model();
+        Model fooApi = pom().artifactId("foo-api").dependency(barApi).create(repoFooDir);
+        pom().artifactId("foo-impl").dependency(fooApi).create(repoFooDir);
+
+        fileFilter = nameFileFilter("foo-impl-1.0.pom");
+        validationExecutor.execute(ctx);
+
+        List<DependencyNotFoundException> exceptions = ctx.getExceptions(DependencyNotFoundException.class);
+        assertEquals(1, exceptions.size());
+        DependencyNotFoundException e = exceptions.get(0);
+        assertEquals("com.acme:foo-impl:pom:1.0", e.getRootArtifact().toString());
+        assertEquals("com.acme:foo-impl:pom:1.0 > com.acme:foo-api:jar:1.0 > com.acme:bar-api:jar:1.0", Utils.formatDependencyPaths(e.getPaths()));
+        assertTrue(((ArtifactResolutionException) e.getCause()).getResults().isEmpty());
+    }
+
     @Test
     public void shouldFindMissingDependencyFromCentral() {
         Model lang = pom().groupId("commons-lang").artifactId("commons-lang").version("999").model();
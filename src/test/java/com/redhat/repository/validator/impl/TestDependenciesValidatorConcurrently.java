@@ -0,0 +1,61 @@
+package com.redhat.repository.validator.impl;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.maven.model.Model;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.ValidationExecutor;
+import com.redhat.repository.validator.Validator;
+
+@ContextConfiguration
+public class TestDependenciesValidatorConcurrently extends AbstractTest {
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public ValidationExecutor validationExecutor(Validator[] validators) {
+            return new ValidationExecutor(dependenciesValidatorConcurrently());
+        }
+
+        @Bean
+        public DependenciesValidator dependenciesValidatorConcurrently() {
+            return new DependenciesValidator(4);
+        }
+
+        @Bean
+        public IOFileFilter dependenciesValidatorFilter() {
+            return new TestFileFilter();
+        }
+
+    }
+
+    @Test
+    public void shouldReportMissingDependenciesInPomOrder() {
+        Model fooApi = pom().artifactId("foo-api").model();
+        for (int i = 0; i < 10; i++) {
+            pom().artifactId("foo-impl-" + i).dependency(fooApi).create(repoFooDir);
+        }
+        pom().artifactId("foo-bar").create(repoFooDir);
+
+        validationExecutor.execute(ctx);
+
+        List<DependencyNotFoundException> exceptions = ctx.getExceptions(DependencyNotFoundException.class);
+        assertEquals(10, exceptions.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("foo-api", exceptions.get(i).getMissingArtifact().getArtifactId());
+            assertEquals("foo-impl-" + i, exceptions.get(i).getValidatedArtifact().getArtifactId());
+        }
+        assertEquals(10, ctx.getErrors().size());
+        assertLocalRepoContains(pom().artifactId("foo-bar").model());
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.redhat.repository.validator.impl;
+
+import static com.redhat.repository.validator.internal.Utils.formatDependencyPaths;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.resolution.DependencyResult;
+import org.junit.Test;
+
+public class TestDependencyNotFoundException {
+
+    private final Artifact root = new DefaultArtifact("com.acme:root:1.0");
+    private final Artifact fooImpl = new DefaultArtifact("com.acme:foo-impl:1.0");
+    private final Artifact fooApi = new DefaultArtifact("com.acme:foo-api:1.0");
+
+    @Test
+    public void shouldNotRetainDependencyGraph() throws InterruptedException {
+        WeakReference<DependencyNode> graph = new WeakReference<DependencyNode>(node(root, node(fooImpl, node(fooApi))));
+        DependencyNotFoundException e = createException(graph.get());
+
+        for (int i = 0; i < 50 && graph.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("dependency graph is still reachable", graph.get());
+        assertEquals(root, e.getRootArtifact());
+        assertEquals("com.acme:root:jar:1.0 > com.acme:foo-impl:jar:1.0 > com.acme:foo-api:jar:1.0", formatDependencyPaths(e.getPaths()));
+    }
+
+    private DependencyNotFoundException createException(DependencyNode graph) {
+        DependencyNode missingNode = graph.getChildren().get(0).getChildren().get(0);
+        ArtifactResult artifactResult = new ArtifactResult(new ArtifactRequest(missingNode));
+        ArtifactResolutionException are = new ArtifactResolutionException(Collections.singletonList(artifactResult));
+        DependencyResult dependencyResult = new DependencyResult(new DependencyRequest(graph, null));
+        dependencyResult.setRoot(graph);
+        DependencyResolutionException dre = new DependencyResolutionException(dependencyResult, are);
+        return new DependencyNotFoundException(dre, fooApi, root, graph);
+    }
+
+    private static DefaultDependencyNode node(Artifact artifact, DependencyNode... children) {
+        DefaultDependencyNode node = new DefaultDependencyNode(new Dependency(artifact, "compile"));
+        node.setChildren(new ArrayList<DependencyNode>(Arrays.asList(children)));
+        return node;
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.redhat.repository.validator.impl;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static com.redhat.repository.validator.internal.ValidatorSupport.listPomFiles;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.FileFilterUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.maven.model.Model;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.Incremental;
+import com.redhat.repository.validator.ValidationError;
+import com.redhat.repository.validator.ValidationExecutor;
+import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.internal.ChecksumEngine;
+import com.redhat.repository.validator.internal.IncrementalValidation;
+
+@ContextConfiguration
+public class TestIncrementalValidation extends AbstractTest {
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public ValidationExecutor validationExecutor(DependenciesValidator dependenciesValidator) {
+            return new ValidationExecutor(dependenciesValidator, recordingValidator());
+        }
+
+        @Bean
+        public RecordingValidator recordingValidator() {
+            return new RecordingValidator();
+        }
+
+        @Bean
+        public IncrementalValidation incrementalValidation(ChecksumEngine checksumEngine) {
+            return new IncrementalValidation(new File(reposDir, "incremental-manifest.tsv"), checksumEngine, null);
+        }
+
+        @Bean
+        public IOFileFilter dependenciesValidatorFilter() {
+            return new TestFileFilter();
+        }
+
+    }
+
+    @Incremental
+    public static class RecordingValidator implements Validator {
+
+        private final List<String> validatedFiles = new ArrayList<String>();
+
+        @Override
+        public void validate(ValidatorContext ctx) {
+            validatedFiles.clear();
+            for (File pomFile : listPomFiles(ctx, FileFilterUtils.trueFileFilter())) {
+                validatedFiles.add(pomFile.getName());
+                ctx.addError(this, pomFile, new Exception("recorded " + pomFile.getName()));
+            }
+        }
+
+    }
+
+    @Inject
+    private RecordingValidator recordingValidator;
+
+    @Test
+    public void shouldReuseErrorsOfUnchangedFiles() throws IOException {
+        Model fooApi = pom().artifactId("foo-api").model();
+        pom().artifactId("foo-impl").dependency(fooApi).create(repoFooDir);
+        pom().artifactId("foo-bar").create(repoFooDir);
+
+        ValidatorContext firstCtx = execute();
+        assertEquals(1, firstCtx.getExceptions(DependencyNotFoundException.class).size());
+        assertEquals(2, recordingValidator.validatedFiles.size());
+
+        // local repository is emptied before each run
+        FileUtils.cleanDirectory(repoLocalDir);
+
+        ValidatorContext secondCtx = execute();
+        assertTrue(recordingValidator.validatedFiles.isEmpty());
+        assertEquals(3, secondCtx.getErrors().size());
+        List<ValidationError> reused = secondCtx.getErrors(recordingValidator);
+        assertEquals(2, reused.size());
+        for (int i = 0; i < reused.size(); i++) {
+            assertEquals(firstCtx.getErrors(recordingValidator).get(i).getFile(), reused.get(i).getFile());
+            assertEquals("recorded " + reused.get(i).getFile().getName(), reused.get(i).getException().getMessage());
+        }
+    }
+
+    @Test
+    public void shouldAlwaysValidateWholeRepositoryByRemoteDependentValidators() throws IOException {
+        Model fooApi = pom().artifactId("foo-api").model();
+        pom().artifactId("foo-impl").dependency(fooApi).create(repoFooDir);
+        pom().artifactId("foo-bar").create(repoFooDir);
+        execute();
+        FileUtils.cleanDirectory(repoLocalDir);
+
+        ValidatorContext secondCtx = execute();
+        assertTrue(recordingValidator.validatedFiles.isEmpty());
+        assertLocalRepoContains("com/acme/foo-bar/1.0/foo-bar-1.0.jar");
+        List<DependencyNotFoundException> exceptions = secondCtx.getExceptions(DependencyNotFoundException.class);
+        assertEquals(1, exceptions.size());
+        assertEquals("foo-api", exceptions.get(0).getMissingArtifact().getArtifactId());
+        assertEquals("foo-impl", exceptions.get(0).getValidatedArtifact().getArtifactId());
+        assertEquals(1, exceptions.get(0).getPaths().size());
+    }
+
+    @Test
+    public void shouldValidateFilesAffectedByChanges() {
+        Model fooApi = pom().artifactId("foo-api").model();
+        pom().artifactId("foo-impl").dependency(fooApi).create(repoFooDir);
+        pom().artifactId("foo-bar").create(repoFooDir);
+
+        ValidatorContext firstCtx = execute();
+        assertEquals(1, firstCtx.getExceptions(DependencyNotFoundException.class).size());
+
+        pom().artifactId("foo-api").create(repoFooDir);
+
+        ValidatorContext secondCtx = execute();
+        assertEquals(2, recordingValidator.validatedFiles.size());
+        assertTrue(recordingValidator.validatedFiles.contains("foo-api-1.0.pom"));
+        assertTrue(recordingValidator.validatedFiles.contains("foo-impl-1.0.pom"));
+        assertEquals(0, secondCtx.getExceptions(DependencyNotFoundException.class).size());
+    }
+
+    private ValidatorContext execute() {
+        ValidatorContext validatorContext = new ValidatorContext(repoFooDir, distributionDir, remoteRepos);
+        validationExecutor.execute(validatorContext);
+        return validatorContext;
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.redhat.repository.validator.impl;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.maven.model.Model;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.ValidationExecutor;
+import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.distribution.DistributionValidator;
+import com.redhat.repository.validator.internal.ChecksumEngine;
+import com.redhat.repository.validator.internal.IncrementalValidation;
+
+@ContextConfiguration
+public class TestIncrementalValidationWithDistribution extends AbstractTest {
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public ValidationExecutor validationExecutor(DependenciesValidator dependenciesValidator, DistributionValidator distributionValidator) {
+            return new ValidationExecutor(dependenciesValidator, distributionValidator);
+        }
+
+        @Bean
+        public IncrementalValidation incrementalValidation(ChecksumEngine checksumEngine) {
+            return new IncrementalValidation(new File(reposDir, "incremental-manifest.tsv"), checksumEngine, null);
+        }
+
+        @Bean
+        public IOFileFilter dependenciesValidatorFilter() {
+            return new TestFileFilter();
+        }
+
+        @Bean
+        public IOFileFilter distributionValidatorFilter() {
+            return trueFileFilter();
+        }
+
+    }
+
+    @Test
+    public void shouldNotFindRedundantFilesOfUnchangedPoms() throws IOException {
+        Model barPom = pom().artifactId("bar").create(repoBarDir, "target/test-classes/empty-signed.jar");
+        pom().artifactId("foo").dependency(barPom).create(repoFooDir);
+        FileUtils.copyFile(new File(repoFooDir, "com/acme/foo/1.0/foo-1.0.jar"), new File(distributionDir, "foo-1.0.jar"));
+        FileUtils.copyFile(new File(repoBarDir, "com/acme/bar/1.0/bar-1.0.jar"), new File(distributionDir, "bar-1.0.jar"));
+
+        validationExecutor.execute(ctx);
+        assertSuccess();
+
+        // local repository is emptied before each run, so it contains only dependencies resolved by the second run
+        FileUtils.cleanDirectory(repoLocalDir);
+
+        ctx = new ValidatorContext(repoFooDir, distributionDir, remoteRepos);
+        validationExecutor.execute(ctx);
+        assertSuccess();
+        assertLocalRepoContains(barPom);
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.redhat.repository.validator.impl;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.FileFilterUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.maven.model.Model;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.ValidationError;
+import com.redhat.repository.validator.ValidationExecutor;
+import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.distribution.DistributionValidator;
+import com.redhat.repository.validator.impl.version.VersionAmbiguityException;
+import com.redhat.repository.validator.impl.version.VersionAmbiguityValidator;
+import com.redhat.repository.validator.internal.ShardedValidation;
+
+@ContextConfiguration
+public class TestShardedValidation extends AbstractTest {
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public ValidationExecutor validationExecutor(DependenciesValidator dependenciesValidator, VersionAmbiguityValidator versionAmbiguityValidator, DistributionValidator distributionValidator) {
+            return new ValidationExecutor(dependenciesValidator, versionAmbiguityValidator, distributionValidator);
+        }
+
+        @Bean
+        public IOFileFilter dependenciesValidatorFilter() {
+            return new TestFileFilter();
+        }
+
+        @Bean
+        public IOFileFilter versionAmbiguityValidatorFilter() {
+            return FileFilterUtils.trueFileFilter();
+        }
+
+        @Bean
+        public IOFileFilter distributionValidatorFilter() {
+            return FileFilterUtils.trueFileFilter();
+        }
+
+    }
+
+    private final File shard0File = new File(reposDir, "shard-0-of-2.bin");
+    private final File shard1File = new File(reposDir, "shard-1-of-2.bin");
+
+    @After
+    public void disableShardedValidation() {
+        validationExecutor.setShardedValidation(new ShardedValidation());
+    }
+
+    @Test
+    public void shouldMergeShardsIntoSameResultsAsSingleRun() throws IOException {
+        Model fooApi = pom().artifactId("foo-api").model();
+        pom().artifactId("foo-impl").dependency(fooApi).create(repoFooDir);
+        pom().artifactId("foo-bar").version("1.0").create(repoFooDir);
+        pom().artifactId("foo-bar").version("2.0").create(repoFooDir);
+        for (int i = 0; i < 8; i++) {
+            pom().artifactId("foo-" + i).version("1." + i).create(repoFooDir);
+            pom().artifactId("foo-" + i).version("2." + i).create(repoFooDir);
+        }
+
+        ValidatorContext singleCtx = execute(new ShardedValidation());
+        execute(new ShardedValidation(0, 2, shard0File));
+        execute(new ShardedValidation(1, 2, shard1File));
+        ValidatorContext mergedCtx = new ValidatorContext(repoFooDir, distributionDir, remoteRepos);
+        ShardedValidation.merge(mergedCtx, validationExecutor.getValidators(), Arrays.asList(shard1File, shard0File));
+
+        assertEquals(1, mergedCtx.getExceptions(DependencyNotFoundException.class).size());
+        assertEquals(18, mergedCtx.getExceptions(VersionAmbiguityException.class).size());
+        assertEquals(describe(singleCtx), describe(mergedCtx));
+    }
+
+    @Test
+    public void shouldValidateDistributionAgainstDependenciesOfAllShards() throws IOException {
+        for (int i = 0; i < 8; i++) {
+            Model barPom = pom().artifactId("bar-" + i).create(repoBarDir);
+            File barJar = uniqueJar(repoBarDir, barPom);
+            Model fooPom = pom().artifactId("foo-" + i).dependency(barPom).create(repoFooDir);
+            File fooJar = uniqueJar(repoFooDir, fooPom);
+            FileUtils.copyFileToDirectory(barJar, distributionDir);
+            FileUtils.copyFileToDirectory(fooJar, distributionDir);
+        }
+
+        ValidatorContext singleCtx = execute(new ShardedValidation());
+        // each shard runs on its own node with empty local repository
+        FileUtils.cleanDirectory(repoLocalDir);
+        execute(new ShardedValidation(0, 2, shard0File));
+        FileUtils.cleanDirectory(repoLocalDir);
+        execute(new ShardedValidation(1, 2, shard1File));
+        ValidatorContext mergedCtx = new ValidatorContext(repoFooDir, distributionDir, remoteRepos);
+        ShardedValidation.merge(mergedCtx, validationExecutor.getValidators(), Arrays.asList(shard0File, shard1File));
+
+        assertTrue(describe(singleCtx).toString(), singleCtx.isSuccess());
+        assertEquals(describe(singleCtx), describe(mergedCtx));
+    }
+
+    @Test
+    public void shouldRejectIncompleteShards() {
+        pom().artifactId("foo-api").create(repoFooDir);
+
+        execute(new ShardedValidation(0, 2, shard0File));
+        try {
+            ShardedValidation.merge(new ValidatorContext(repoFooDir, distributionDir, remoteRepos), validationExecutor.getValidators(), Arrays.asList(shard0File));
+            fail("merge of incomplete shards should fail");
+        } catch (IOException e) {
+            assertEquals("Results of some shards are missing, found shards [0] of 2", e.getMessage());
+        }
+    }
+
+    private ValidatorContext execute(ShardedValidation shardedValidation) {
+        ValidatorContext validatorContext = new ValidatorContext(repoFooDir, distributionDir, remoteRepos);
+        validationExecutor.setShardedValidation(shardedValidation);
+        validationExecutor.execute(validatorContext);
+        return validatorContext;
+    }
+
+    private static File uniqueJar(File repoDir, Model model) throws IOException {
+        File jar = new File(repoDir, "com/acme/" + model.getArtifactId() + "/1.0/" + model.getArtifactId() + "-1.0.jar");
+        FileUtils.writeStringToFile(jar, model.getArtifactId());
+        TestUtil.createChecksums(jar);
+        return jar;
+    }
+
+    private static List<String> describe(ValidatorContext ctx) {
+        List<String> errors = new ArrayList<String>();
+        for (ValidationError error : ctx.getErrors()) {
+            errors.add(error.getException().getClass().getSimpleName() + " " + error.getFile() + " " + error.getException().getMessage());
+        }
+        Collections.sort(errors);
+        return errors;
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.redhat.repository.validator.impl;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.maven.model.Model;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.ReportingExecutor;
+import com.redhat.repository.validator.ValidationExecutor;
+import com.redhat.repository.validator.ValidationServer;
+
+@ContextConfiguration
+public class TestValidationServer extends AbstractTest {
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public ValidationExecutor validationExecutor(DependenciesValidator dependenciesValidator) {
+            return new ValidationExecutor(dependenciesValidator);
+        }
+
+        @Bean
+        public ReportingExecutor reportingExecutor() {
+            return new ReportingExecutor();
+        }
+
+        @Bean
+        public IOFileFilter dependenciesValidatorFilter() {
+            return new TestFileFilter();
+        }
+
+    }
+
+    @Inject
+    private ApplicationContext appCtx;
+
+    private ValidationServer server;
+    private InetSocketAddress address;
+
+    @Before
+    public void startServer() throws IOException {
+        server = appCtx.getAutowireCapableBeanFactory().createBean(ValidationServer.class);
+        address = server.start(0);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void shouldStreamResultsOfEachJob() throws IOException {
+        Model fooApi = pom().artifactId("foo-api").model();
+        pom().artifactId("foo-impl").dependency(fooApi).create(repoFooDir);
+
+        List<String> lines = submit("repository=" + URLEncoder.encode(repoFooDir.getAbsolutePath(), "UTF-8"));
+        assertTrue(lines.get(0).startsWith("job 1 queued: "));
+        assertTrue(lines.get(1).startsWith("error\tDependencyNotFoundException\tcom/acme/foo-impl/1.0/foo-impl-1.0.pom\t"));
+        assertTrue(lines.get(2).startsWith("job 1 finished: FAILURE, 1 errors, 0 ignored errors"));
+
+        pom().artifactId("foo-api").create(repoFooDir);
+
+        lines = submit("repository=" + URLEncoder.encode(repoFooDir.getAbsolutePath(), "UTF-8"));
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).startsWith("job 2 finished: SUCCESS, 0 errors"));
+
+        // models are kept from previous job, local repository is empty again
+        lines = submit("repository=" + URLEncoder.encode(repoFooDir.getAbsolutePath(), "UTF-8"));
+        assertTrue(lines.get(1).startsWith("job 3 finished: SUCCESS, 0 errors"));
+        assertEquals(0, repoLocalDir.list().length);
+    }
+
+    @Test
+    public void shouldRejectOtherMethodsThanPost() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), "/validate?repository=foo").openConnection();
+        assertEquals(405, connection.getResponseCode());
+        assertEquals("POST", connection.getHeaderField("Allow"));
+        connection.disconnect();
+    }
+
+    @Test
+    public void shouldRefuseToStartOnNonEmptyLocalRepository() throws IOException {
+        server.stop();
+        File userFile = new File(repoLocalDir, "user-file.txt");
+        FileUtils.write(userFile, "foo");
+        ValidationServer anotherServer = appCtx.getAutowireCapableBeanFactory().createBean(ValidationServer.class);
+        try {
+            anotherServer.start(0);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("isn't empty directory"));
+        } finally {
+            anotherServer.stop();
+        }
+        assertTrue(userFile.exists());
+    }
+
+    @Test
+    public void shouldRejectJobWithoutRepository() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), "/validate").openConnection();
+        connection.setRequestMethod("POST");
+        assertEquals(400, connection.getResponseCode());
+        connection.disconnect();
+    }
+
+    private List<String> submit(String query) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), "/validate?" + query).openConnection();
+        connection.setRequestMethod("POST");
+        InputStream in = connection.getInputStream();
+        try {
+            assertEquals(200, connection.getResponseCode());
+            return IOUtils.readLines(in, "UTF-8");
+        } finally {
+            IOUtils.closeQuietly(in);
+            connection.disconnect();
+        }
+    }
+
+}
@@ -2,6 +2,10 @@ package com.redhat.repository.validator.impl.bom;
 
 import static com.redhat.repository.validator.impl.TestUtil.dependency;
 import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static com.redhat.repository.validator.internal.Utils.formatDependencyPaths;
+import static org.junit.Assert.assertEquals;
+
+import javax.inject.Inject;
 
 import org.apache.commons.io.filefilter.FileFilterUtils;
 import org.apache.commons.io.filefilter.IOFileFilter;
@@ -13,10 +17,14 @@ import org.springframework.test.context.ContextConfiguration;
 
 import com.redhat.repository.validator.impl.AbstractTest;
 import com.redhat.repository.validator.impl.bom.BomDependencyNotFoundException;
+import com.redhat.repository.validator.internal.DependencyGraphMemo;
 
 @ContextConfiguration
 public class TestBomDependencyNotFoundValidator extends AbstractTest {
 
+    @Inject
+    private DependencyGraphMemo dependencyGraphMemo;
+
     @Configuration
     public static class TestConfiguration {
 
@@ -109,4 +117,41 @@ public class TestBomDependencyNotFoundValidator extends AbstractTest {
         assertLocalRepoContains(barImpl);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldReuseDependencyGraphOfOtherBom() {
+        Model barApi = pom().artifactId("bar-api").model();
+        Model barImpl = pom().artifactId("bar-impl").dependency(barApi).create(repoBarDir);
+
+        pom().artifactId("foo-bom-1").packaging("pom").dependencyManagement(barImpl).create(repoFooDir);
+        pom().artifactId("foo-bom-2").packaging("pom").dependencyManagement(barImpl).create(repoFooDir);
+
+        validationExecutor.execute(ctx);
+
+        assertEquals(2, ctx.getExceptions(BomDependencyNotFoundException.class).size());
+        for (BomDependencyNotFoundException e : ctx.getExceptions(BomDependencyNotFoundException.class)) {
+            assertEquals("bar-api", e.getMissingArtifact().getArtifactId());
+            assertEquals(e.getValidatedArtifact().getArtifactId(), e.getRootArtifact().getArtifactId());
+            assertEquals(e.getRootArtifact() + " > com.acme:bar-impl:jar:1.0 > com.acme:bar-api:jar:1.0", formatDependencyPaths(e.getPaths()));
+        }
+        assertEquals(1, dependencyGraphMemo.getHitCount());
+    }
+
+    @Test
+    public void shouldNotReuseDependencyGraphOfBomWithDifferentManagement() {
+        Model barApi = pom().artifactId("bar-api").create(repoBarDir);
+        Model barApi2 = pom().artifactId("bar-api").version("2.0").model();
+        Model barImpl = pom().artifactId("bar-impl").dependency(barApi).create(repoBarDir);
+
+        pom().artifactId("foo-bom-1").packaging("pom").dependencyManagement(barImpl).create(repoFooDir);
+        pom().artifactId("foo-bom-2").packaging("pom").dependencyManagement(barImpl).dependencyManagement(barApi2).create(repoFooDir);
+
+        validationExecutor.execute(ctx);
+
+        assertExpectedException(BomDependencyNotFoundException.class, "com.acme:bar-api:jar:2.0");
+        for (BomDependencyNotFoundException e : ctx.getExceptions(BomDependencyNotFoundException.class)) {
+            assertEquals("foo-bom-2", e.getValidatedArtifact().getArtifactId());
+        }
+        assertEquals(0, dependencyGraphMemo.getHitCount());
+    }
+
+}
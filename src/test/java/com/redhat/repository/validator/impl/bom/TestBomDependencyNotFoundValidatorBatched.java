@@ -0,0 +1,115 @@
+package com.redhat.repository.validator.impl.bom;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.apache.commons.io.filefilter.FileFilterUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.maven.model.Model;
+import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.ExceptionVisitor;
+import com.redhat.repository.validator.ValidationExecutor;
+import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.impl.AbstractTest;
+import com.redhat.repository.validator.internal.DependencyGraphMemo;
+
+@ContextConfiguration
+public class TestBomDependencyNotFoundValidatorBatched extends AbstractTest {
+
+    @Inject
+    private DependencyGraphMemo dependencyGraphMemo;
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public ValidationExecutor validationExecutor(Validator[] validators) {
+            return new ValidationExecutor(bomDependencyNotFoundValidatorBatched());
+        }
+
+        @Bean
+        public BomDependencyNotFoundValidator bomDependencyNotFoundValidatorBatched() {
+            return new BomDependencyNotFoundValidator(true, 4);
+        }
+
+        @Bean
+        public IOFileFilter bomDependencyNotFoundValidatorFilter() {
+            return FileFilterUtils.trueFileFilter();
+        }
+
+    }
+
+    @Test
+    public void shouldReportMissingDependencyForEveryBom() {
+        Model barApi = pom().artifactId("bar-api").model();
+        Model barImpl = pom().artifactId("bar-impl").dependency(barApi).create(repoBarDir);
+        Model baz = pom().artifactId("baz").model();
+        Model qux = pom().artifactId("qux").create(repoBarDir);
+
+        pom().artifactId("foo-bom-1").packaging("pom").dependencyManagement(barImpl).dependencyManagement(qux).create(repoFooDir);
+        pom().artifactId("foo-bom-2").packaging("pom").dependencyManagement(qux).dependencyManagement(baz).create(repoFooDir);
+        pom().artifactId("foo-bom-3").packaging("pom").dependencyManagement(baz).dependencyManagement(barImpl).create(repoFooDir);
+
+        validationExecutor.execute(ctx);
+
+        List<BomDependencyNotFoundException> exceptions = ctx.getExceptions(BomDependencyNotFoundException.class);
+        assertEquals(4, exceptions.size());
+        assertMissing(exceptions.get(0), "foo-bom-1", "bar-api");
+        assertMissing(exceptions.get(1), "foo-bom-2", "baz");
+        assertMissing(exceptions.get(2), "foo-bom-3", "baz");
+        assertMissing(exceptions.get(3), "foo-bom-3", "bar-api");
+        // each bom has its own resolution exception, wrapping cause shared via memo
+        assertNotSame(exceptions.get(1).getCause(), exceptions.get(2).getCause());
+        assertSame(exceptions.get(1).getCause().getCause(), exceptions.get(2).getCause().getCause());
+        assertEquals(3, dependencyGraphMemo.getHitCount());
+        assertLocalRepoContains(qux);
+    }
+
+    @Test
+    public void shouldReportFailedCollectionForEveryBom() {
+        Model bar = pom().artifactId("bar").version("[5.0,6.0)").model();
+        pom().artifactId("foo-bom-1").packaging("pom").dependencyManagement(bar).create(repoFooDir);
+        pom().artifactId("foo-bom-2").packaging("pom").dependencyManagement(bar).create(repoFooDir);
+
+        validationExecutor.execute(ctx);
+
+        List<DependencyResolutionException> exceptions = ctx.getExceptions(DependencyResolutionException.class);
+        assertEquals(1, dependencyGraphMemo.getHitCount());
+        assertEquals(2, exceptions.size());
+        assertNotSame(exceptions.get(0), exceptions.get(1));
+        assertSame(exceptions.get(0).getCause(), exceptions.get(1).getCause());
+        assertTrue(exceptions.get(0).getMessage().contains("foo-bom-1"));
+        assertTrue(exceptions.get(1).getMessage().contains("foo-bom-2"));
+        assertFalse(exceptions.get(1).getMessage().contains("foo-bom-1"));
+
+        final List<Exception> visited = new ArrayList<Exception>();
+        ctx.visitExceptionsOfClass(DependencyResolutionException.class, new ExceptionVisitor<DependencyResolutionException>() {
+            @Override
+            public void visit(DependencyResolutionException exception) {
+                visited.add(exception);
+            }
+        });
+        assertEquals(2, visited.size());
+    }
+
+    private void assertMissing(BomDependencyNotFoundException e, String bomArtifactId, String missingArtifactId) {
+        assertEquals(bomArtifactId, e.getValidatedArtifact().getArtifactId());
+        assertEquals(missingArtifactId, e.getMissingArtifact().getArtifactId());
+        assertEquals(bomArtifactId, e.getRootArtifact().getArtifactId());
+    }
+
+}
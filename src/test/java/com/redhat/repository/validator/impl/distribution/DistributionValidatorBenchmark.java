@@ -0,0 +1,72 @@
+package com.redhat.repository.validator.impl.distribution;
+
+import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.AbstractBenchmark;
+
+/**
+ * Measures DistributionValidator on repositories of doubling size, each artifact with identical file in distribution,
+ * time per file stays about the same when misnomer and corrupted files are found in linear time.
+ */
+@ContextConfiguration
+public class DistributionValidatorBenchmark extends AbstractBenchmark {
+
+    private static final int[] SIZES = { 1000, 2000, 4000, 8000 };
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public IOFileFilter distributionValidatorFilter() {
+            return trueFileFilter();
+        }
+
+    }
+
+    @Inject
+    private DistributionValidator distributionValidator;
+
+    @Test
+    public void measureScaling() throws Exception {
+        for (int size : SIZES) {
+            createFiles(size);
+            long time = measure(size + " repository and distribution files", new Callable<Void>() {
+                @Override
+                public Void call() {
+                    ValidatorContext ctx = new ValidatorContext(repoFooDir, distributionDir, remoteRepos);
+                    distributionValidator.validate(ctx);
+                    assertTrue(ctx.isSuccess());
+                    return null;
+                }
+            });
+            System.out.println(String.format("%d files: %d us per file", size, time * 1000 / size));
+        }
+    }
+
+    private void createFiles(int size) throws IOException {
+        FileUtils.cleanDirectory(repoFooDir);
+        FileUtils.cleanDirectory(distributionDir);
+        for (int i = 0; i < size; i++) {
+            String name = "foo-" + i + "-1.0.jar";
+            String content = "foo-" + i;
+            FileUtils.writeStringToFile(new File(repoFooDir, "com/acme/foo-" + i + "/1.0/" + name), content);
+            FileUtils.writeStringToFile(new File(distributionDir, name), content);
+        }
+    }
+
+}
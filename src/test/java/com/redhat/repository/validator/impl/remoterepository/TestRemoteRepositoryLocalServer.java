@@ -0,0 +1,280 @@
+package com.redhat.repository.validator.impl.remoterepository;
+
+import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.redhat.repository.validator.ValidationError;
+import com.redhat.repository.validator.ValidatorContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestRemoteRepositoryLocalServer {
+
+    private final File repoDir = new File("target/repos/http-repo").getAbsoluteFile();
+    private final Map<String, String> etags = new ConcurrentHashMap<String, String>();
+    private final Map<String, Queue<Integer>> failures = new ConcurrentHashMap<String, Queue<Integer>>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String serverUrl;
+
+    @Before
+    public void init() throws IOException {
+        FileUtils.deleteQuietly(repoDir);
+        FileUtils.forceMkdir(repoDir);
+
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                int current = inFlight.incrementAndGet();
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                int status = 500;
+                try {
+                    Thread.sleep(5);
+                    String path = exchange.getRequestURI().getPath().substring(1);
+                    String etag = etags.get(path);
+                    Integer failure = failures.containsKey(path) ? failures.get(path).poll() : null;
+                    if (failure != null) {
+                        exchange.getResponseHeaders().add("Retry-After", "1");
+                        status = failure;
+                    } else if (path.contains("broken")) {
+                        status = 503;
+                    } else if (etag != null && ("\"" + etag + "\"").equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        notModified.incrementAndGet();
+                        status = 304;
+                    } else if (etag != null) {
+                        exchange.getResponseHeaders().add("ETag", "\"" + etag + "\"");
+                        status = 200;
+                    } else {
+                        status = 404;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    // request is finished before client sees the response, otherwise next request may be counted as concurrent
+                    inFlight.decrementAndGet();
+                    exchange.sendResponseHeaders(status, -1);
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+        serverUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void destroy() {
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+            server = null;
+        }
+    }
+
+    @Test
+    public void collisionValidatorShouldReportDifferentContentInFileOrder() throws IOException {
+        publish(createFile("com/acme/a/1.0/a-1.0.jar"));
+        etags.put("com/acme/b/1.0/b-1.0.jar", "0-0");
+        createFile("com/acme/b/1.0/b-1.0.jar");
+        createFile("com/acme/c/1.0/c-1.0.jar");
+        createFile("com/acme/d/1.0/d-1.0-broken.jar");
+
+        ValidatorContext ctx = validate(new RemoteRepositoryCollisionValidator(serverUrl, new ChecksumProviderNginx()));
+
+        List<ValidationError> errors = ctx.getErrors();
+        assertEquals(2, errors.size());
+        assertEquals("Remote repository [" + serverUrl + "] contains already artifact " + serverUrl + "com/acme/b/1.0/b-1.0.jar with different content",
+                errors.get(0).getException().getMessage());
+        assertEquals("Remote repository [" + serverUrl + "] returned HTTP/1.1 503 Service Unavailable for artifact " + serverUrl + "com/acme/d/1.0/d-1.0-broken.jar",
+                errors.get(1).getException().getMessage());
+        assertTrue(errors.get(1).getException() instanceof RemoteRepositoryCollisionException);
+    }
+
+    @Test
+    public void compareValidatorShouldReportMissingArtifact() throws IOException {
+        publish(createFile("com/acme/a/1.0/a-1.0.pom"));
+        createFile("com/acme/b/1.0/b-1.0.pom");
+
+        ValidatorContext ctx = validate(new RemoteRepositoryCompareValidator(serverUrl, new ChecksumProviderNginx()));
+
+        assertEquals(1, ctx.getExceptions().size());
+        assertEquals("Remote repository [" + serverUrl + "] doesn't contain artifact " + serverUrl + "com/acme/b/1.0/b-1.0.pom",
+                ctx.getExceptions(RemoteRepositoryCompareException.class).get(0).getMessage());
+    }
+
+    @Test
+    public void shouldRespectConnectionLimitPerHost() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            publish(createFile("com/acme/foo-" + i + "/1.0/foo-" + i + "-1.0.jar"));
+        }
+
+        ValidatorContext ctx = validate(new RemoteRepositoryCompareValidator(serverUrl, new ChecksumProviderNginx(), trueFileFilter(), 20, 3, 0));
+
+        assertTrue(ctx.isSuccess());
+        assertEquals(50, requests.get());
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void shouldReportFailedRequest() throws IOException {
+        createFile("com/acme/a/1.0/a-1.0.jar");
+        String unavailableUrl = serverUrl;
+        destroy();
+
+        ValidatorContext ctx = validate(new RemoteRepositoryCompareValidator(unavailableUrl, new ChecksumProviderNginx()));
+
+        assertEquals(1, ctx.getExceptions().size());
+        assertEquals("Remote repository [" + unavailableUrl + "] request failed for artifact " + unavailableUrl + "com/acme/a/1.0/a-1.0.jar",
+                ctx.getExceptions(RemoteRepositoryCompareException.class).get(0).getMessage());
+    }
+
+    @Test
+    public void shouldRetryTransientFailures() throws IOException {
+        publish(createFile("com/acme/a/1.0/a-1.0.jar"));
+        publish(createFile("com/acme/b/1.0/b-1.0.jar"));
+        fail("com/acme/a/1.0/a-1.0.jar", 503, 502);
+
+        ValidatorContext ctx = validate(new RemoteRepositoryCompareValidator(serverUrl, new ChecksumProviderNginx(), trueFileFilter(), 20, 20, 0, new RetryPolicy(3, 10, 100, 10, 1000)));
+
+        assertTrue(ctx.isSuccess());
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    public void shouldHonorRetryAfter() throws IOException {
+        publish(createFile("com/acme/a/1.0/a-1.0.jar"));
+        fail("com/acme/a/1.0/a-1.0.jar", 429);
+
+        long start = System.currentTimeMillis();
+        ValidatorContext ctx = validate(new RemoteRepositoryCompareValidator(serverUrl, new ChecksumProviderNginx(), trueFileFilter(), 20, 20, 0, new RetryPolicy(3, 10, 5000, 10, 1000)));
+
+        assertTrue(ctx.isSuccess());
+        assertEquals(2, requests.get());
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+    }
+
+    @Test
+    public void shouldReportErrorWhenRetriesAreExhausted() throws IOException {
+        publish(createFile("com/acme/a/1.0/a-1.0.jar"));
+        fail("com/acme/a/1.0/a-1.0.jar", 500, 500, 500);
+
+        ValidatorContext ctx = validate(new RemoteRepositoryCompareValidator(serverUrl, new ChecksumProviderNginx(), trueFileFilter(), 20, 20, 0, new RetryPolicy(2, 10, 100, 10, 1000)));
+
+        assertEquals(3, requests.get());
+        assertEquals("Remote repository [" + serverUrl + "] returned HTTP/1.1 500 Internal Server Error for artifact " + serverUrl + "com/acme/a/1.0/a-1.0.jar",
+                ctx.getExceptions(RemoteRepositoryCompareException.class).get(0).getMessage());
+    }
+
+    @Test
+    public void shouldStopSendingRequestsToUnhealthyHost() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            createFile("com/acme/foo-" + i + "/1.0/foo-" + i + "-1.0-broken.jar");
+        }
+
+        ValidatorContext ctx = validate(new RemoteRepositoryCompareValidator(serverUrl, new ChecksumProviderNginx(), trueFileFilter(), 1, 1, 0, new RetryPolicy(1, 10, 100, 3, 60000)));
+
+        assertEquals(3, requests.get());
+        assertEquals(2, ctx.getExceptions(RemoteRepositoryCompareException.class).size());
+        assertEquals(1, ctx.getExceptions(CircuitBreakerOpenException.class).size());
+        assertEquals("Circuit breaker is open for " + serverUrl.replaceAll("/$", "") + ", 8 request(s) were not sent",
+                ctx.getExceptions(CircuitBreakerOpenException.class).get(0).getMessage());
+    }
+
+    @Test
+    public void shouldReuseCachedResponses() throws IOException {
+        File cacheFile = new File(repoDir.getParentFile(), "remote-response-cache.tsv");
+        FileUtils.deleteQuietly(cacheFile);
+        publish(createFile("com/acme/a/1.0/a-1.0.jar"));
+        publish(createFile("com/acme/b/1.0/b-1.0.jar"));
+        createFile("com/acme/c/1.0/c-1.0.jar");
+
+        RemoteRepositoryCompareValidator validator = new RemoteRepositoryCompareValidator(serverUrl, new ChecksumProviderNginx());
+        validator.setResponseCache(new RemoteResponseCache(cacheFile));
+        ValidatorContext ctx = validate(validator);
+        assertEquals(3, requests.get());
+        assertEquals(1, ctx.getExceptions().size());
+
+        RemoteResponseCache responseCache = new RemoteResponseCache(cacheFile);
+        validator.setResponseCache(responseCache);
+        ctx = validate(validator);
+        assertEquals(3, requests.get());
+        assertEquals(3, responseCache.getHitCount());
+        assertEquals("Remote repository [" + serverUrl + "] doesn't contain artifact " + serverUrl + "com/acme/c/1.0/c-1.0.jar",
+                ctx.getExceptions(RemoteRepositoryCompareException.class).get(0).getMessage());
+    }
+
+    @Test
+    public void shouldRevalidateExpiredResponses() throws IOException {
+        File cacheFile = new File(repoDir.getParentFile(), "remote-response-cache.tsv");
+        FileUtils.deleteQuietly(cacheFile);
+        publish(createFile("com/acme/a/1.0/a-1.0.jar"));
+        publish(createFile("com/acme/b/1.0/b-1.0.jar"));
+        createFile("com/acme/c/1.0/c-1.0.jar");
+
+        RemoteRepositoryCollisionValidator validator = new RemoteRepositoryCollisionValidator(serverUrl, new ChecksumProviderNginx());
+        validator.setResponseCache(new RemoteResponseCache(cacheFile, 0, 0));
+        validate(validator);
+
+        RemoteResponseCache responseCache = new RemoteResponseCache(cacheFile, 0, 0);
+        validator.setResponseCache(responseCache);
+        ValidatorContext ctx = validate(validator);
+        assertTrue(ctx.isSuccess());
+        assertEquals(6, requests.get());
+        assertEquals(2, notModified.get());
+        assertEquals(2, responseCache.getRevalidatedCount());
+    }
+
+    private void fail(String path, Integer... statuses) {
+        failures.put(path, new ConcurrentLinkedQueue<Integer>(Arrays.asList(statuses)));
+    }
+
+    private File createFile(String path) throws IOException {
+        File file = new File(repoDir, path);
+        FileUtils.write(file, path);
+        return file;
+    }
+
+    private void publish(File file) {
+        String path = repoDir.toURI().relativize(file.toURI()).toString();
+        etags.put(path, new ChecksumProviderNginx().getLocalArtifactChecksum(file.toURI()));
+    }
+
+    private ValidatorContext validate(RemoteRepositoryAbstractValidator validator) {
+        ValidatorContext ctx = new ValidatorContext(repoDir, new File(""), Collections.<RemoteRepository>emptyList());
+        validator.validate(ctx);
+        return ctx;
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.redhat.repository.validator.impl.signature;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static com.redhat.repository.validator.impl.signature.JarSignatureValidatorMode.VERIFY_JAR_IS_UNSIGNED;
+import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.inject.Inject;
+
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.junit.Test;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.AbstractBenchmark;
+
+/**
+ * Compares verification of jar signatures in-process and by forked <code>jarsigner -verify</code>.
+ */
+@ContextConfiguration
+public class JarSignatureBenchmark extends AbstractBenchmark {
+
+    private static final int JARS = 30;
+    private static final int ENTRIES_PER_JAR = 100;
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public IOFileFilter jarSignatureValidatorFilter() {
+            return trueFileFilter();
+        }
+
+    }
+
+    @Inject
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Test
+    public void compareInProcessAndJarsigner() throws Exception {
+        createJars();
+        long inProcess = measure(JARS + " jars in-process", validation(JarSignatureVerificationMethod.IN_PROCESS));
+        long jarsigner = measure(JARS + " jars by jarsigner", validation(JarSignatureVerificationMethod.JARSIGNER));
+        System.out.println(String.format("in-process verification is %d times faster than jarsigner", jarsigner / Math.max(inProcess, 1)));
+    }
+
+    private Callable<Void> validation(JarSignatureVerificationMethod method) {
+        final JarSignatureValidator validator = new JarSignatureValidator(VERIFY_JAR_IS_UNSIGNED, method);
+        beanFactory.autowireBean(validator);
+        return new Callable<Void>() {
+            @Override
+            public Void call() {
+                ValidatorContext ctx = new ValidatorContext(repoFooDir, distributionDir, remoteRepos);
+                validator.validate(ctx);
+                assertTrue(ctx.isSuccess());
+                return null;
+            }
+        };
+    }
+
+    private void createJars() throws IOException {
+        for (int i = 0; i < JARS; i++) {
+            pom().artifactId("foo-" + i).create(repoFooDir);
+            File jar = new File(repoFooDir, "com/acme/foo-" + i + "/1.0/foo-" + i + "-1.0.jar");
+            try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+                for (int j = 0; j < ENTRIES_PER_JAR; j++) {
+                    jos.putNextEntry(new JarEntry("com/acme/foo/Foo" + j + ".class"));
+                    jos.write(new byte[1024 + j]);
+                    jos.closeEntry();
+                }
+            }
+        }
+    }
+
+}
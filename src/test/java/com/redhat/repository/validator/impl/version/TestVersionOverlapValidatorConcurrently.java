@@ -0,0 +1,62 @@
+package com.redhat.repository.validator.impl.version;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.ValidationExecutor;
+import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.impl.AbstractTest;
+
+@ContextConfiguration
+public class TestVersionOverlapValidatorConcurrently extends AbstractTest {
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public ValidationExecutor validationExecutor(Validator[] validators) {
+            return new ValidationExecutor(versionOverlapValidatorConcurrently());
+        }
+
+        @Bean
+        public VersionOverlapValidator versionOverlapValidatorConcurrently() {
+            return new VersionOverlapValidator(VersionOverlapCheckMethod.RESOLVE, 4);
+        }
+
+        @Bean
+        public IOFileFilter versionOverlapValidatorFilter() {
+            return trueFileFilter();
+        }
+
+    }
+
+    @Test
+    public void shouldReportVersionOverlapInPomOrder() {
+        for (int i = 0; i < 10; i++) {
+            pom().artifactId("foo-" + i).create(repoFooDir);
+            pom().artifactId("foo-" + i).create(i % 2 == 0 ? repoBarDir : repoBazDir);
+        }
+
+        validationExecutor.execute(ctx);
+
+        List<VersionOverlapException> exceptions = ctx.getExceptions(VersionOverlapException.class);
+        assertEquals(10, exceptions.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("com.acme:foo-" + i + ":jar:1.0", exceptions.get(i).getGav());
+            assertEquals(i % 2 == 0 ? "bar" : "baz", exceptions.get(i).getRemoteRepository().getId());
+        }
+        assertFalse(new File("workspace", "temp").exists());
+    }
+
+}
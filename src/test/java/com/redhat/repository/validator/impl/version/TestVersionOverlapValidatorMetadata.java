@@ -0,0 +1,101 @@
+package com.redhat.repository.validator.impl.version;
+
+import static com.redhat.repository.validator.impl.TestUtil.pom;
+import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.inject.Inject;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.redhat.repository.validator.ValidationExecutor;
+import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.impl.AbstractTest;
+import com.redhat.repository.validator.internal.RemoteMetadataCache;
+
+@ContextConfiguration
+public class TestVersionOverlapValidatorMetadata extends AbstractTest {
+
+    @Inject
+    private RemoteMetadataCache remoteMetadataCache;
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public ValidationExecutor validationExecutor(Validator[] validators) {
+            return new ValidationExecutor(versionOverlapValidatorMetadata());
+        }
+
+        @Bean
+        public VersionOverlapValidator versionOverlapValidatorMetadata() {
+            return new VersionOverlapValidator(VersionOverlapCheckMethod.METADATA);
+        }
+
+        @Bean
+        public IOFileFilter versionOverlapValidatorFilter() {
+            return trueFileFilter();
+        }
+
+    }
+
+    @Test
+    public void shouldSuccess() {
+        pom().version("1.1").create(repoFooDir);
+        pom().version("1.2").create(repoBarDir);
+        pom().version("1.3").create(repoBazDir);
+
+        validationExecutor.execute(ctx);
+
+        assertSuccess();
+    }
+
+    @Test
+    public void shouldFindVersionOverlapWithoutMetadata() {
+        pom().create(repoFooDir);
+        pom().create(repoBarDir);
+        pom().create(repoBazDir);
+
+        validationExecutor.execute(ctx);
+
+        assertExpectedException(VersionOverlapException.class, "Artifact com.acme:foo:jar:1.0 has overlap with remote repository: bar");
+        assertExpectedException(VersionOverlapException.class, "Artifact com.acme:foo:jar:1.0 has overlap with remote repository: baz");
+    }
+
+    @Test
+    public void shouldFindVersionOverlapFromMetadata() throws IOException {
+        pom().version("1.0").create(repoFooDir);
+        pom().version("1.1").create(repoFooDir);
+        pom().version("1.2").create(repoFooDir);
+        metadata(repoBarDir, "1.0", "1.2");
+        metadata(repoBazDir, "2.0");
+
+        validationExecutor.execute(ctx);
+
+        assertEquals(2, ctx.getExceptions().size());
+        assertExpectedException(VersionOverlapException.class, "Artifact com.acme:foo:jar:1.0 has overlap with remote repository: bar");
+        assertExpectedException(VersionOverlapException.class, "Artifact com.acme:foo:jar:1.2 has overlap with remote repository: bar");
+        // metadata of com.acme:foo are fetched once per remote repository (bar, baz and central)
+        assertEquals(3, remoteMetadataCache.getMetadataRequestCount());
+        assertEquals(6, remoteMetadataCache.getMetadataAnswerCount());
+    }
+
+    private void metadata(File repoDir, String... versions) throws IOException {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<metadata><groupId>com.acme</groupId><artifactId>foo</artifactId><versioning><versions>");
+        for (String version : versions) {
+            xml.append("<version>").append(version).append("</version>");
+        }
+        xml.append("</versions></versioning></metadata>");
+        FileUtils.write(new File(repoDir, "com/acme/foo/maven-metadata.xml"), xml.toString());
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.redhat.repository.validator.impl.xml;
 
 import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
+import static org.junit.Assert.assertEquals;
 
 import java.io.File;
 import java.io.IOException;
@@ -61,4 +62,15 @@ public class TestXmlFileValidator extends AbstractTest {
         assertExpectedException(XmlVerificationException.class, "Xml file settings-not-valid.xml has following errors (183, 5): Element type \"profiles\" must be followed by either attribute specifications, \">\" or \"/>\".");
     }
 
+    @Test
+    public void xmlWithoutSchema_shouldCheckOnlyWellFormedness() throws IOException {
+        FileUtils.writeStringToFile(new File(repoFooDir, "com/acme/foo/maven-metadata.xml"), "<?xml version=\"1.0\"?>\n<metadata><groupId>com.acme</groupId></metadata>");
+        FileUtils.writeStringToFile(new File(repoFooDir, "com/acme/bar/maven-metadata.xml"), "<?xml version=\"1.0\"?>\n<metadata><groupId>com.acme</metadata>");
+
+        validationExecutor.execute(ctx);
+
+        assertEquals(1, ctx.getExceptions(XmlVerificationException.class).size());
+        assertExpectedException(XmlVerificationException.class, "Xml file com/acme/bar/maven-metadata.xml has following errors (2, 30): The element type \"groupId\" must be terminated by the matching end-tag \"</groupId>\".");
+    }
+
 }
@@ -0,0 +1,132 @@
+package com.redhat.repository.validator.impl.xml;
+
+import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.junit.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+import org.xml.sax.SAXParseException;
+
+import com.redhat.repository.validator.ValidatorContext;
+import com.redhat.repository.validator.impl.AbstractBenchmark;
+
+/**
+ * Compares XmlFileValidator with validation which creates new schema and validator for each file on one thread
+ * (as XmlFileValidator did before), on thousands of small files declaring local schema 
+ * and on thousands of <code>maven-metadata.xml</code> files without schema, which are only checked to be well-formed.
+ */
+@ContextConfiguration
+public class XmlFileValidatorBenchmark extends AbstractBenchmark {
+
+    private static final int FILES = 3000;
+
+    @Configuration
+    public static class TestConfiguration {
+
+        @Bean
+        public IOFileFilter xmlFileValidatorFilter() {
+            return trueFileFilter();
+        }
+
+    }
+
+    @Inject
+    private XmlFileValidator xmlFileValidator;
+
+    @Test
+    public void compareSharedSchemaAndSchemaPerFile() throws Exception {
+        final Collection<File> xmlFiles = createFiles();
+        compareWithSchemaPerFile(FILES + " xml files", repoFooDir, xmlFiles);
+    }
+
+    @Test
+    public void compareWellFormednessCheckAndSchemaPerFile() throws Exception {
+        final Collection<File> xmlFiles = createMetadataFiles();
+        compareWithSchemaPerFile(FILES + " maven-metadata.xml files", repoBarDir, xmlFiles);
+    }
+
+    private void compareWithSchemaPerFile(String name, final File repoDir, final Collection<File> xmlFiles) throws Exception {
+        long perFile = measure(name + ", schema per file", new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                for (File xmlFile : xmlFiles) {
+                    try {
+                        SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema().newValidator().validate(new StreamSource(xmlFile));
+                    } catch (SAXParseException e) {
+                        // file without schema, reported by previous XmlFileValidator as undeclared root element after parsing it
+                    }
+                }
+                return null;
+            }
+        });
+        long shared = measure(name + ", XmlFileValidator", new Callable<Void>() {
+            @Override
+            public Void call() {
+                ValidatorContext ctx = new ValidatorContext(repoDir, distributionDir, remoteRepos);
+                xmlFileValidator.validate(ctx);
+                assertTrue(ctx.isSuccess());
+                return null;
+            }
+        });
+        System.out.println(String.format("XmlFileValidator takes %d%% of schema per file", shared * 100 / Math.max(perFile, 1)));
+    }
+
+    private Collection<File> createFiles() throws IOException {
+        File xsd = new File(reposDir, "item.xsd");
+        FileUtils.writeStringToFile(xsd,
+                  "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\n"
+                + "  <xs:element name=\"item\">\n"
+                + "    <xs:complexType>\n"
+                + "      <xs:sequence>\n"
+                + "        <xs:element name=\"name\" type=\"xs:string\"/>\n"
+                + "        <xs:element name=\"size\" type=\"xs:int\"/>\n"
+                + "      </xs:sequence>\n"
+                + "    </xs:complexType>\n"
+                + "  </xs:element>\n"
+                + "</xs:schema>\n");
+        for (int i = 0; i < FILES; i++) {
+            FileUtils.writeStringToFile(new File(repoFooDir, "com/acme/foo-" + i + "/1.0/foo-" + i + ".xml"),
+                      "<item xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\"" + xsd.toURI() + "\">\n"
+                    + "  <name>foo-" + i + "</name>\n"
+                    + "  <size>" + i + "</size>\n"
+                    + "</item>\n");
+        }
+        return FileUtils.listFiles(repoFooDir, new String[] { "xml" }, true);
+    }
+
+    private Collection<File> createMetadataFiles() throws IOException {
+        for (int i = 0; i < FILES; i++) {
+            FileUtils.writeStringToFile(new File(repoBarDir, "com/acme/bar-" + i + "/maven-metadata.xml"),
+                      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                    + "<metadata>\n"
+                    + "  <groupId>com.acme</groupId>\n"
+                    + "  <artifactId>bar-" + i + "</artifactId>\n"
+                    + "  <versioning>\n"
+                    + "    <latest>1.1</latest>\n"
+                    + "    <release>1.1</release>\n"
+                    + "    <versions>\n"
+                    + "      <version>1.0</version>\n"
+                    + "      <version>1.1</version>\n"
+                    + "    </versions>\n"
+                    + "    <lastUpdated>20140101000000</lastUpdated>\n"
+                    + "  </versioning>\n"
+                    + "</metadata>\n");
+        }
+        return FileUtils.listFiles(repoBarDir, new String[] { "xml" }, true);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.redhat.repository.validator.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.aether.util.ChecksumUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestChecksumEngine {
+
+    private final File dir = new File("target/checksum-engine");
+    private final File file = new File(dir, "data.bin");
+
+    @Before
+    public void init() throws IOException {
+        FileUtils.deleteQuietly(dir);
+        byte[] data = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(data);
+        FileUtils.writeByteArrayToFile(file, data);
+    }
+
+    @Test
+    public void shouldCalculateSameChecksumsAsChecksumUtils() throws IOException {
+        Map<String, String> checksums = new ChecksumEngine().calc(file, Arrays.asList("MD5", "SHA-1", "SHA-256"));
+        Map<String, Object> expected = ChecksumUtils.calc(file, Arrays.asList("MD5", "SHA-1", "SHA-256"));
+
+        assertEquals(Arrays.asList("MD5", "SHA-1", "SHA-256"), Arrays.asList(checksums.keySet().toArray()));
+        for (String algorithm : expected.keySet()) {
+            assertEquals(expected.get(algorithm), checksums.get(algorithm));
+        }
+    }
+
+    @Test
+    public void shouldReadChecksumFileFormats() throws IOException {
+        assertChecksumFile("\n  d41d8cd98f00b204e9800998ecf8427e\n");
+        assertChecksumFile("d41d8cd98f00b204e9800998ecf8427e  data.bin");
+        assertChecksumFile("MD5 (data.bin) = d41d8cd98f00b204e9800998ecf8427e");
+    }
+
+    private void assertChecksumFile(String content) throws IOException {
+        File checksumFile = new File(dir, "data.bin.md5");
+        FileUtils.writeStringToFile(checksumFile, content);
+        assertEquals(ChecksumUtils.read(checksumFile), ChecksumEngine.readChecksumFile(checksumFile));
+        assertEquals("d41d8cd98f00b204e9800998ecf8427e", ChecksumEngine.readChecksumFile(checksumFile));
+    }
+
+}
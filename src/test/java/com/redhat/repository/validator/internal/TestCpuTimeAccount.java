@@ -0,0 +1,80 @@
+package com.redhat.repository.validator.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class TestCpuTimeAccount {
+
+    @Test
+    public void shouldBeCurrentOnlyDuringCall() throws Exception {
+        final CpuTimeAccount account = new CpuTimeAccount();
+        assertNull(CpuTimeAccount.current());
+        assertEquals("foo", account.call(new Callable<String>() {
+            @Override
+            public String call() {
+                assertSame(account, CpuTimeAccount.current());
+                return "foo";
+            }
+        }));
+        assertNull(CpuTimeAccount.current());
+    }
+
+    @Test
+    public void shouldSumCpuTimeOfAllThreads() throws Exception {
+        assumeTrue(CpuTimeAccount.isSupported());
+        CpuTimeAccount account = new CpuTimeAccount();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        long consumed;
+        try {
+            Callable<Long> work = new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return burnCpu(100);
+                }
+            };
+            consumed = account.call(work);
+            for (int i = 0; i < 2; i++) {
+                consumed += executor.submit(chargedTo(account, work)).get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long consumedMillis = consumed / 1000000;
+        assertTrue("charged " + account.getCpuTime() + " ms of " + consumedMillis + " ms", account.getCpuTime() >= consumedMillis - 1);
+        assertTrue(consumedMillis > 0);
+    }
+
+    private static Callable<Long> chargedTo(final CpuTimeAccount account, final Callable<Long> callable) {
+        return new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return account.call(callable);
+            }
+        };
+    }
+
+    /**
+     * Returns CPU time in nanoseconds consumed by current thread while burning.
+     */
+    private static long burnCpu(long millis) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long start = threadMXBean.getCurrentThreadCpuTime();
+        long end = System.nanoTime() + millis * 1000000;
+        while (System.nanoTime() < end) {
+            // busy wait
+        }
+        return threadMXBean.getCurrentThreadCpuTime() - start;
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.redhat.repository.validator.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.filter.PatternInclusionsDependencyFilter;
+import org.eclipse.aether.util.graph.visitor.PathRecordingDependencyVisitor;
+import org.junit.Test;
+
+public class TestDependencyPathIndex {
+
+    private final Artifact fooApi = new DefaultArtifact("com.acme:foo-api:1.0");
+    private final Artifact barApi = new DefaultArtifact("com.acme:bar-api:1.0");
+    private final Artifact bazApi = new DefaultArtifact("com.acme:baz-api:1.0");
+
+    @Test
+    public void shouldFindSamePathsAsPathRecordingVisitor() {
+        DefaultDependencyNode fooApiNode = node(fooApi);
+        DefaultDependencyNode barApiNode = node(barApi, fooApiNode);
+        DefaultDependencyNode bazApiNode = node(bazApi, barApiNode);
+        DefaultDependencyNode fooImplNode = node(new DefaultArtifact("com.acme:foo-impl:1.0"), fooApiNode, barApiNode);
+        DefaultDependencyNode root = node(new DefaultArtifact("com.acme:root:1.0"), fooImplNode, bazApiNode, node(fooApi, node(barApi)));
+
+        List<Artifact> artifacts = Arrays.asList(fooApi, barApi, bazApi, new DefaultArtifact("com.acme:unknown:1.0"));
+        DependencyPathIndex index = new DependencyPathIndex(root, artifacts);
+        for (Artifact artifact : artifacts) {
+            assertEquals(artifact.toString(), recordPaths(artifact, root), index.getPaths(artifact));
+        }
+        assertEquals(3, index.getPaths(barApi).size());
+        assertEquals("com.acme:root:jar:1.0 > com.acme:foo-impl:jar:1.0 > com.acme:foo-api:jar:1.0", Utils.formatDependencyPaths(index.getPaths(fooApi).subList(0, 1)));
+    }
+
+    @Test
+    public void shouldCutCycles() {
+        DefaultDependencyNode fooApiNode = node(fooApi);
+        DefaultDependencyNode barApiNode = node(barApi, fooApiNode);
+        fooApiNode.setChildren(new ArrayList<DependencyNode>(Arrays.<DependencyNode> asList(barApiNode)));
+        DefaultDependencyNode root = node(new DefaultArtifact("com.acme:root:1.0"), fooApiNode);
+
+        DependencyPathIndex index = new DependencyPathIndex(root, Arrays.asList(bazApi, barApi));
+        assertTrue(index.getPaths(bazApi).isEmpty());
+        assertEquals(recordPaths(barApi, root), index.getPaths(barApi));
+    }
+
+    @Test
+    public void shouldMatchRootWithoutDependency() {
+        DefaultDependencyNode root = new DefaultDependencyNode(new DefaultArtifact("com.acme:root:1.0"));
+        root.setChildren(new ArrayList<DependencyNode>(Arrays.<DependencyNode> asList(node(fooApi))));
+
+        DependencyPathIndex index = new DependencyPathIndex(root, Arrays.asList(fooApi));
+        assertEquals(recordPaths(fooApi, root), index.getPaths(fooApi));
+        assertEquals("com.acme:root:jar:1.0", Utils.formatDependencyPaths(index.getPaths(fooApi)));
+    }
+
+    private static DefaultDependencyNode node(Artifact artifact, DependencyNode... children) {
+        DefaultDependencyNode node = new DefaultDependencyNode(new Dependency(artifact, "compile"));
+        node.setChildren(new ArrayList<DependencyNode>(Arrays.asList(children)));
+        return node;
+    }
+
+    private static List<List<Artifact>> recordPaths(Artifact artifact, DependencyNode root) {
+        PathRecordingDependencyVisitor visitor = new PathRecordingDependencyVisitor(new PatternInclusionsDependencyFilter(artifact.toString()));
+        root.accept(visitor);
+        List<List<Artifact>> paths = new ArrayList<List<Artifact>>();
+        for (List<DependencyNode> path : visitor.getPaths()) {
+            List<Artifact> artifacts = new ArrayList<Artifact>();
+            for (DependencyNode node : path) {
+                artifacts.add(node.getArtifact());
+            }
+            paths.add(artifacts);
+        }
+        return paths;
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.redhat.repository.validator.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestHashCache {
+
+    private final File dir = new File("target/hash-cache");
+    private final File cacheFile = new File(dir, "hash-cache.tsv");
+    private final File file = new File(dir, "foo.jar");
+
+    @Before
+    public void init() throws IOException {
+        FileUtils.deleteQuietly(dir);
+        FileUtils.writeStringToFile(file, "foo");
+    }
+
+    @Test
+    public void shouldReuseHashesFromPreviousRun() throws IOException {
+        HashCache hashCache = new HashCache(cacheFile);
+        ChecksumEngine checksumEngine = new ChecksumEngine(hashCache);
+        hashCache.validationStarted(null);
+        String sha1 = checksumEngine.calc(file, "sha1");
+        hashCache.validationFinished(null);
+        assertEquals(1, hashCache.getMissCount());
+
+        HashCache hashCache2 = new HashCache(cacheFile);
+        ChecksumEngine checksumEngine2 = new ChecksumEngine(hashCache2);
+        hashCache2.validationStarted(null);
+        String sha1Cached = checksumEngine2.calc(file, "SHA-1");
+        hashCache2.validationFinished(null);
+
+        assertEquals(1, hashCache2.getHitCount());
+        assertEquals(0, hashCache2.getMissCount());
+        assertEquals(sha1, sha1Cached);
+    }
+
+    @Test
+    public void shouldCalculateOnlyHashesNotCachedYet() throws IOException {
+        HashCache hashCache = new HashCache(cacheFile);
+        ChecksumEngine checksumEngine = new ChecksumEngine(hashCache);
+        checksumEngine.calc(file, "sha1");
+        assertEquals(Collections.singleton("SHA-1"), hashCache.get(hashCache.key(file), Collections.<String> emptySet()).keySet());
+
+        Map<String, String> checksums = checksumEngine.calc(file, Arrays.asList("SHA-1", "MD5"));
+        hashCache.flush();
+        assertEquals(ChecksumEngine.digest(file, Arrays.asList("SHA-1", "MD5")), checksums);
+        assertEquals(2, hashCache.getMissCount());
+
+        HashCache hashCache2 = new HashCache(cacheFile);
+        Map<String, String> hashes = hashCache2.get(hashCache2.key(file), Arrays.asList("MD5", "SHA-1"));
+        assertEquals(checksums.get("MD5"), hashes.get("MD5"));
+        assertEquals(checksums.get("SHA-1"), hashes.get("SHA-1"));
+        assertFalse(hashes.containsKey("SHA-256"));
+        assertEquals(1, hashCache2.getHitCount());
+    }
+
+    @Test
+    public void shouldIgnoreModifiedFile() throws IOException {
+        HashCache hashCache = new HashCache(cacheFile);
+        ChecksumEngine checksumEngine = new ChecksumEngine(hashCache);
+        String md5 = checksumEngine.calc(file, "md5");
+
+        FileUtils.writeStringToFile(file, "foo-modified");
+        String md5Modified = checksumEngine.calc(file, "md5");
+
+        assertFalse(md5.equals(md5Modified));
+        assertEquals(ChecksumEngine.digest(file, Arrays.asList("MD5")).get("MD5"), md5Modified);
+        assertEquals(2, hashCache.getMissCount());
+    }
+
+    @Test
+    public void shouldCompactCacheFile() throws IOException {
+        HashCache hashCache = new HashCache(cacheFile);
+        ChecksumEngine checksumEngine = new ChecksumEngine(hashCache);
+        File bar = new File(dir, "bar.jar");
+        FileUtils.writeStringToFile(bar, "bar");
+        for (int i = 0; i < 3; i++) {
+            FileUtils.writeStringToFile(file, "foo" + i);
+            file.setLastModified((i + 1) * 1000000L);
+            checksumEngine.calc(file, "sha1");
+            checksumEngine.calc(bar, "sha1");
+            hashCache.flush();
+        }
+        assertEquals(4, FileUtils.readLines(cacheFile).size());
+
+        FileUtils.deleteQuietly(bar);
+        hashCache.compact();
+
+        assertEquals(1, FileUtils.readLines(cacheFile).size());
+        assertTrue(FileUtils.readFileToString(cacheFile).startsWith(file.getCanonicalPath() + "\t"));
+    }
+
+    @Test
+    public void shouldDoNothingWhenDisabled() throws IOException {
+        HashCache hashCache = new HashCache();
+        new ChecksumEngine(hashCache).calc(file, "sha1");
+        hashCache.flush();
+
+        assertNull(hashCache.get(hashCache.key(file)));
+        assertEquals(0, hashCache.getMissCount());
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.redhat.repository.validator.internal;
+
+import static org.apache.commons.io.filefilter.FileFilterUtils.nameFileFilter;
+import static org.apache.commons.io.filefilter.FileFilterUtils.notFileFilter;
+import static org.apache.commons.io.filefilter.FileFilterUtils.trueFileFilter;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestRepositoryIndex {
+
+    private final File repoDir = new File("target/repos/index-repo").getAbsoluteFile();
+
+    @Before
+    public void init() throws IOException {
+        FileUtils.deleteQuietly(repoDir);
+        FileUtils.touch(new File(repoDir, "com/acme/foo/1.0/foo-1.0.pom"));
+        FileUtils.touch(new File(repoDir, "com/acme/foo/1.0/foo-1.0.jar"));
+        FileUtils.touch(new File(repoDir, "com/acme/foo/1.0/foo-1.0.jar.sha1"));
+        FileUtils.touch(new File(repoDir, "com/acme/bar/2.0/bar-2.0.pom"));
+        FileUtils.touch(new File(repoDir, "readme.txt"));
+        FileUtils.forceMkdir(new File(repoDir, "com/acme/empty"));
+    }
+
+    @Test
+    public void shouldListSameFilesAsFileUtils() {
+        RepositoryIndex index = RepositoryIndex.build(repoDir);
+
+        assertSameFiles(FileUtils.listFiles(repoDir, trueFileFilter(), trueFileFilter()), index.listFiles(trueFileFilter()));
+        assertSameFiles(FileUtils.listFiles(repoDir, new String[] { "pom" }, true), index.listFilesByExtension("pom", trueFileFilter()));
+        assertSameFiles(FileUtils.listFilesAndDirs(repoDir, trueFileFilter(), trueFileFilter()), index.listFilesAndDirs(trueFileFilter()));
+    }
+
+    @Test
+    public void shouldSkipContentOfRejectedDirectories() {
+        RepositoryIndex index = RepositoryIndex.build(repoDir);
+        IOFileFilter filter = notFileFilter(nameFileFilter("foo"));
+
+        assertSameFiles(FileUtils.listFilesAndDirs(repoDir, filter, filter), index.listFilesAndDirs(filter));
+        assertFalse(index.listFilesAndDirs(filter).contains(new File(repoDir, "com/acme/foo/1.0/foo-1.0.pom")));
+    }
+
+    @Test
+    public void shouldParseCoordinatesFromLayout() {
+        RepositoryIndex index = RepositoryIndex.build(repoDir);
+
+        RepositoryIndex.Entry entry = index.getEntry(new File(repoDir, "com/acme/foo/1.0/foo-1.0.jar"));
+        assertEquals("com.acme", entry.getGroupId());
+        assertEquals("foo", entry.getArtifactId());
+        assertEquals("1.0", entry.getVersion());
+        assertEquals("jar", entry.getExtension());
+
+        assertFalse(index.getEntry(new File(repoDir, "readme.txt")).hasGav());
+        assertNull(index.getEntry(new File(repoDir, "missing.txt")));
+    }
+
+    @Test
+    public void shouldQueryDirectories() {
+        RepositoryIndex index = RepositoryIndex.build(repoDir);
+
+        assertTrue(index.isDirectory(new File(repoDir, "com/acme/empty")));
+        assertTrue(index.listDirectory(new File(repoDir, "com/acme/empty")).isEmpty());
+        assertEquals(3, index.listDirectory(new File(repoDir, "com/acme/foo/1.0")).size());
+        assertEquals(1, index.listDirectory(new File(repoDir, "com/acme/foo/1.0"), "pom").size());
+        assertTrue(index.isFile(new File(repoDir, "com/acme/foo/1.0/foo-1.0.jar.sha1")));
+        assertFalse(index.isFile(new File(repoDir, "com/acme/foo/1.0")));
+    }
+
+    @Test
+    public void shouldListOnlyFilesInScopeOfRestrictedIndex() {
+        File fooPom = new File(repoDir, "com/acme/foo/1.0/foo-1.0.pom");
+        File fooJar = new File(repoDir, "com/acme/foo/1.0/foo-1.0.jar");
+        RepositoryIndex index = RepositoryIndex.build(repoDir).restrict(new HashSet<File>(Arrays.asList(fooPom, fooJar)));
+
+        assertTrue(index.isRestricted());
+        assertSameFiles(Arrays.asList(fooPom, fooJar), index.listFiles(trueFileFilter()));
+        assertSameFiles(Arrays.asList(fooPom), index.listFilesByExtension("pom", trueFileFilter()));
+        assertSameFiles(Arrays.asList(fooPom, fooJar), index.listFilesAndDirs(trueFileFilter()));
+        assertEquals(3, index.listDirectory(new File(repoDir, "com/acme/foo/1.0")).size());
+        assertTrue(index.isFile(new File(repoDir, "com/acme/bar/2.0/bar-2.0.pom")));
+    }
+
+    @Test
+    public void shouldHandleMissingDirectory() {
+        RepositoryIndex index = RepositoryIndex.build(new File(repoDir, "missing"));
+
+        assertEquals(0, index.size());
+        assertTrue(index.listFilesAndDirs(trueFileFilter()).isEmpty());
+    }
+
+    private void assertSameFiles(Collection<File> expected, Collection<File> actual) {
+        List<File> expectedList = Utils.sortFiles(new ArrayList<File>(expected));
+        List<File> actualList = Utils.sortFiles(new ArrayList<File>(actual));
+        assertEquals(expectedList, actualList);
+    }
+
+}
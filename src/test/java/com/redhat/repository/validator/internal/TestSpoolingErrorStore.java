@@ -0,0 +1,172 @@
+package com.redhat.repository.validator.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.redhat.repository.validator.ExceptionVisitor;
+import com.redhat.repository.validator.ValidationError;
+import com.redhat.repository.validator.Validator;
+import com.redhat.repository.validator.ValidatorContext;
+
+public class TestSpoolingErrorStore {
+
+    private final File dir = new File("target/error-spool");
+    private final File spoolFile = new File(dir, "errors.spool");
+    private final File fooFile = new File(dir, "foo.pom");
+    private final File barFile = new File(dir, "bar.pom");
+    private final Validator fooValidator = new TestValidator();
+    private final Validator barValidator = new TestValidator();
+
+    private SpoolingErrorStore store;
+
+    @Before
+    public void init() {
+        FileUtils.deleteQuietly(dir);
+        store = new SpoolingErrorStore(spoolFile);
+    }
+
+    @After
+    public void close() {
+        store.close();
+    }
+
+    @Test
+    public void shouldReadSpooledErrors() {
+        Exception shared = new IllegalStateException("shared");
+        store.add(new ValidationError(fooValidator, new IllegalArgumentException("foo"), fooFile));
+        store.add(new ValidationError(fooValidator, shared, fooFile));
+        store.add(new ValidationError(barValidator, shared, barFile));
+
+        List<ValidationError> errors = store.getErrors();
+        assertEquals(3, store.size());
+        assertEquals(3, errors.size());
+        assertEquals("foo", errors.get(0).getException().getMessage());
+        assertSame(fooValidator, errors.get(0).getValidator());
+        assertEquals(fooFile, errors.get(0).getFile());
+        assertEquals("shared", errors.get(1).getException().getMessage());
+        assertSame(errors.get(1).getException(), errors.get(2).getException());
+        assertTrue(spoolFile.length() > 0);
+    }
+
+    @Test
+    public void shouldIndexSpooledErrors() {
+        store.add(new ValidationError(fooValidator, new IllegalArgumentException("foo"), fooFile));
+        store.add(new ValidationError(barValidator, new IllegalStateException("bar"), barFile));
+        store.add(new ValidationError(barValidator, new IllegalStateException("baz"), fooFile));
+
+        assertEquals(2, store.getErrors(fooFile).size());
+        assertTrue(store.hasErrors(barFile));
+        assertFalse(store.hasErrors(new File(dir, "baz.pom")));
+        assertEquals(2, store.getErrors(barValidator).size());
+        assertEquals(1, store.getErrors(IllegalArgumentException.class).size());
+        assertEquals(2, store.getExceptionTypes().size());
+
+        List<ValidationError> errors = store.getErrorsFrom(1);
+        assertEquals(2, errors.size());
+        assertEquals("bar", errors.get(0).getException().getMessage());
+        assertEquals("baz", errors.get(1).getException().getMessage());
+        assertTrue(store.getErrorsFrom(3).isEmpty());
+    }
+
+    @Test
+    public void shouldReadOnlyErrorsOfExactClass() {
+        store.add(new ValidationError(fooValidator, new IllegalArgumentException("foo"), fooFile));
+        store.add(new ValidationError(barValidator, new NumberFormatException("bar"), barFile));
+
+        assertEquals(2, store.getErrors(IllegalArgumentException.class).size());
+        List<ValidationError> errors = store.getErrorsOfClass(IllegalArgumentException.class);
+        assertEquals(1, errors.size());
+        assertEquals("foo", errors.get(0).getException().getMessage());
+        assertTrue(store.getErrorsOfClass(IllegalStateException.class).isEmpty());
+    }
+
+    @Test
+    public void shouldVisitDistinctExceptionsOrderedByMessage() {
+        Exception shared = new IllegalStateException("bar");
+        store.add(new ValidationError(fooValidator, new IllegalStateException("baz"), fooFile));
+        store.add(new ValidationError(fooValidator, shared, fooFile));
+        store.add(new ValidationError(barValidator, shared, barFile));
+        store.add(new ValidationError(barValidator, new IllegalStateException("foo"), barFile));
+        store.add(new ValidationError(barValidator, new IllegalArgumentException("abc"), barFile));
+
+        final List<String> messages = new ArrayList<String>();
+        store.visitExceptionsOfClass(IllegalStateException.class, new ExceptionVisitor<Exception>() {
+            @Override
+            public void visit(Exception exception) {
+                messages.add(exception.getMessage());
+            }
+        });
+        assertEquals(Arrays.asList("bar", "baz", "foo"), messages);
+        assertEquals(3, store.getExceptionCountOfClass(IllegalStateException.class));
+        assertEquals(0, store.getExceptionCountOfClass(NumberFormatException.class));
+    }
+
+    @Test
+    public void shouldKeepSameOrderInAllViewsWhenAddedConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 200; i++) {
+            final ValidationError error = new ValidationError(i % 2 == 0 ? fooValidator : barValidator, new IllegalStateException(Integer.toString(i)), i % 3 == 0 ? fooFile : barFile);
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    store.add(error);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<String> all = messages(store.getErrors());
+        assertEquals(200, all.size());
+        assertEquals(all, messages(store.getErrorsFrom(0)));
+        assertEquals(all, messages(store.getErrorsOfClass(IllegalStateException.class)));
+        assertOrderedAsIn(all, messages(store.getErrors(fooValidator)));
+        assertOrderedAsIn(all, messages(store.getErrors(barFile)));
+    }
+
+    private static List<String> messages(List<ValidationError> errors) {
+        List<String> messages = new ArrayList<String>();
+        for (ValidationError error : errors) {
+            messages.add(error.getException().getMessage());
+        }
+        return messages;
+    }
+
+    private static void assertOrderedAsIn(List<String> all, List<String> subset) {
+        List<String> expected = new ArrayList<String>(all);
+        expected.retainAll(subset);
+        assertEquals(expected, subset);
+    }
+
+    @Test
+    public void shouldDeleteSpoolFileOnClose() {
+        store.add(new ValidationError(fooValidator, new IllegalArgumentException("foo"), fooFile));
+        assertTrue(spoolFile.exists());
+        store.close();
+        assertFalse(spoolFile.exists());
+    }
+
+    private static class TestValidator implements Validator {
+
+        @Override
+        public void validate(ValidatorContext ctx) {
+        }
+
+    }
+
+}